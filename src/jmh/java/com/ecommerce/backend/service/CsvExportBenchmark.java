@@ -0,0 +1,90 @@
+package com.ecommerce.backend.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Geração de CSV em memória (gerarCSVDo*) e export em stream por páginas keyset,
+ * este último lendo as páginas do PostgrestStub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class CsvExportBenchmark {
+
+    private static final int TAMANHO_PAGINA = 1000;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int linhas;
+
+    private CsvExportService csvExportService;
+    private List<Map<String, Object>> produtos;
+    private List<Map<String, Object>> clientes;
+    private List<Map<String, Object>> itens;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        produtos = DadosSinteticos.produtos(linhas);
+        clientes = DadosSinteticos.clientes(linhas);
+        itens = DadosSinteticos.itensDetalhados(linhas);
+
+        PostgrestStub stub = new PostgrestStub(Jackson2ObjectMapperBuilder.json().build())
+                .tabela("/produtos", produtos)
+                .paginas("/produtos", TAMANHO_PAGINA);
+        csvExportService = new CsvExportService();
+        ReflectionTestUtils.setField(csvExportService, "supabaseWebClient", stub.webClient());
+        ReflectionTestUtils.setField(csvExportService, "tamanhoPagina", TAMANHO_PAGINA);
+        ReflectionTestUtils.setField(csvExportService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(csvExportService, "schedulerComputacao", Schedulers.parallel());
+    }
+
+    @Benchmark
+    public String gerarCSVDosProdutos() throws Exception {
+        return csvExportService.gerarCSVDosProdutos(produtos);
+    }
+
+    @Benchmark
+    public String gerarCSVDosClientes() throws Exception {
+        return csvExportService.gerarCSVDosClientes(clientes);
+    }
+
+    @Benchmark
+    public String gerarCSVDoPedido() throws Exception {
+        return csvExportService.gerarCSVDoPedido(itens);
+    }
+
+    @Benchmark
+    public long exportarProdutosEmStream() {
+        return csvExportService.exportarProdutosParaCSVStream()
+                .map(buffer -> {
+                    int bytes = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) bytes;
+                })
+                .reduce(0L, Long::sum)
+                .block();
+    }
+}
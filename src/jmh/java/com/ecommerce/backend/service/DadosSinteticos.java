@@ -0,0 +1,86 @@
+package com.ecommerce.backend.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gera linhas no mesmo formato que o PostgREST devolve para as tabelas do Supabase.
+ * Os dados são determinísticos para que as execuções sejam comparáveis entre si.
+ */
+final class DadosSinteticos {
+
+    private static final String[] STATUS = {"pendente", "pago", "enviado", "entregue", "cancelado"};
+
+    private DadosSinteticos() {}
+
+    static String id(String prefixo, int i) {
+        return String.format("%s%08d", prefixo, i);
+    }
+
+    static List<Map<String, Object>> produtos(int linhas) {
+        List<Map<String, Object>> produtos = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            Map<String, Object> produto = new LinkedHashMap<>();
+            produto.put("id", id("prod-", i));
+            produto.put("nome", "Produto " + i);
+            produto.put("descricao", "Descrição do produto " + i + ", com vírgula e \"aspas\"");
+            produto.put("preco", 10.0 + (i % 1000) + 0.99);
+            produto.put("estoque", i % 250);
+            produto.put("imagem_url", i % 3 == 0 ? null : "https://cdn.exemplo.com/produtos/" + i + ".jpg");
+            produto.put("created_at", dataHora(i));
+            produtos.add(produto);
+        }
+        return produtos;
+    }
+
+    static List<Map<String, Object>> clientes(int linhas) {
+        List<Map<String, Object>> clientes = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            Map<String, Object> cliente = new LinkedHashMap<>();
+            cliente.put("id", id("cli-", i));
+            cliente.put("nome", "Cliente " + i);
+            cliente.put("email", "cliente" + i + "@exemplo.com");
+            cliente.put("senha", "hash-" + i);
+            cliente.put("endereco", "Rua " + i + ", " + (i % 900) + " - São Paulo/SP");
+            cliente.put("telefone", "(11) 9" + String.format("%04d-%04d", i % 10000, (i * 7) % 10000));
+            cliente.put("created_at", dataHora(i));
+            clientes.add(cliente);
+        }
+        return clientes;
+    }
+
+    static List<Map<String, Object>> pedidos(int linhas) {
+        List<Map<String, Object>> pedidos = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            Map<String, Object> pedido = new LinkedHashMap<>();
+            pedido.put("id", id("ped-", i));
+            pedido.put("cliente_id", id("cli-", i % 5000));
+            pedido.put("data_pedido", dataHora(i));
+            pedido.put("status", STATUS[i % STATUS.length]);
+            pedido.put("total", 50.0 + (i % 2000) + 0.5);
+            pedido.put("created_at", dataHora(i));
+            pedidos.add(pedido);
+        }
+        return pedidos;
+    }
+
+    static List<Map<String, Object>> itensDetalhados(int linhas) {
+        List<Map<String, Object>> itens = new ArrayList<>(linhas);
+        for (int i = 0; i < linhas; i++) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("pedido_id", id("ped-", 0));
+            item.put("produto_nome", "Produto " + i);
+            item.put("quantidade", 1 + i % 5);
+            item.put("preco_unitario", 10.0 + (i % 1000) + 0.99);
+            item.put("subtotal", (1 + i % 5) * (10.0 + (i % 1000) + 0.99));
+            itens.add(item);
+        }
+        return itens;
+    }
+
+    private static String dataHora(int i) {
+        return String.format("2024-%02d-%02dT%02d:%02d:00", 1 + i % 12, 1 + i % 28, i % 24, i % 60);
+    }
+}
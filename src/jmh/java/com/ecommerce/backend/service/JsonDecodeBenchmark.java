@@ -0,0 +1,79 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Cliente;
+import com.ecommerce.backend.model.Pedido;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara a decodificação antiga das listas do PostgREST (resposta inteira como String +
+ * readValue com TypeReference) com o bodyToFlux usado pelos serviços, que tokeniza o array
+ * direto dos buffers e emite um elemento por vez.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class JsonDecodeBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    private int linhas;
+
+    private ObjectMapper objectMapper;
+    private WebClient webClient;
+    private byte[] pedidosJson;
+    private byte[] clientesJson;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        PostgrestStub stub = new PostgrestStub(objectMapper)
+                .tabela("/pedidos", DadosSinteticos.pedidos(linhas))
+                .tabela("/clientes", DadosSinteticos.clientes(linhas));
+        webClient = stub.webClient();
+        pedidosJson = stub.resposta("/pedidos");
+        clientesJson = stub.resposta("/clientes");
+    }
+
+    @Benchmark
+    public List<Pedido> pedidosReadValue() throws Exception {
+        String response = new String(pedidosJson, StandardCharsets.UTF_8);
+        return objectMapper.readValue(response, new TypeReference<List<Pedido>>() {});
+    }
+
+    @Benchmark
+    public Long pedidosBodyToFlux() {
+        return webClient.get().uri("/pedidos").retrieve().bodyToFlux(Pedido.class).count().block();
+    }
+
+    @Benchmark
+    public List<Cliente> clientesReadValue() throws Exception {
+        String response = new String(clientesJson, StandardCharsets.UTF_8);
+        return objectMapper.readValue(response, new TypeReference<List<Cliente>>() {});
+    }
+
+    @Benchmark
+    public Long clientesBodyToFlux() {
+        return webClient.get().uri("/clientes").retrieve().bodyToFlux(Cliente.class).count().block();
+    }
+}
@@ -0,0 +1,125 @@
+package com.ecommerce.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PostgREST em processo para os benchmarks: responde pelo ExchangeFunction do WebClient com JSON
+ * já serializado, dividido em blocos como chegaria da rede, sem Supabase nem sockets envolvidos.
+ * Entende as consultas paginadas do export em stream (order=id.asc&limit=N&id=gt.ultimo).
+ */
+final class PostgrestStub implements ExchangeFunction {
+
+    private static final int TAMANHO_BLOCO = 8 * 1024;
+
+    private final ObjectMapper objectMapper;
+    private final ExchangeStrategies strategies;
+    private final Map<String, List<Map<String, Object>>> tabelas = new HashMap<>();
+    private final Map<String, byte[]> respostas = new HashMap<>();
+
+    PostgrestStub(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024);
+                })
+                .build();
+    }
+
+    PostgrestStub tabela(String recurso, List<Map<String, Object>> linhas) {
+        tabelas.put(recurso, linhas);
+        respostas.put(recurso, serializar(linhas));
+        return this;
+    }
+
+    /**
+     * Pré-serializa as páginas do percurso keyset para que o custo de gerar o JSON não entre na medição.
+     */
+    PostgrestStub paginas(String recurso, int tamanhoPagina) {
+        List<Map<String, Object>> linhas = tabelas.get(recurso);
+        String ultimoId = null;
+        for (int inicio = 0; inicio <= linhas.size(); inicio += tamanhoPagina) {
+            List<Map<String, Object>> pagina = linhas.subList(inicio, Math.min(inicio + tamanhoPagina, linhas.size()));
+            respostas.put(chavePagina(recurso, tamanhoPagina, ultimoId), serializar(new ArrayList<>(pagina)));
+            if (pagina.isEmpty()) {
+                break;
+            }
+            ultimoId = String.valueOf(pagina.get(pagina.size() - 1).get("id"));
+        }
+        return this;
+    }
+
+    byte[] resposta(String recurso) {
+        return respostas.get(recurso);
+    }
+
+    WebClient webClient() {
+        return WebClient.builder()
+                .exchangeFunction(this)
+                .exchangeStrategies(strategies)
+                .build();
+    }
+
+    @Override
+    public Mono<ClientResponse> exchange(ClientRequest request) {
+        var componentes = UriComponentsBuilder.fromUri(request.url()).build();
+        var parametros = componentes.getQueryParams();
+        String recurso = componentes.getPath();
+        byte[] corpo;
+        if (parametros.containsKey("limit")) {
+            String id = parametros.getFirst("id");
+            corpo = respostas.get(chavePagina(recurso, Integer.parseInt(parametros.getFirst("limit")),
+                    id != null ? id.substring("gt.".length()) : null));
+        } else {
+            corpo = respostas.get(recurso);
+        }
+        if (corpo == null) {
+            return Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND, strategies).build());
+        }
+        return Mono.just(ClientResponse.create(HttpStatus.OK, strategies)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(emBlocos(corpo))
+                .build());
+    }
+
+    private static Flux<DataBuffer> emBlocos(byte[] corpo) {
+        return Flux.range(0, (corpo.length + TAMANHO_BLOCO - 1) / TAMANHO_BLOCO)
+                .map(i -> {
+                    int inicio = i * TAMANHO_BLOCO;
+                    int tamanho = Math.min(TAMANHO_BLOCO, corpo.length - inicio);
+                    return DefaultDataBufferFactory.sharedInstance.wrap(ByteBuffer.wrap(corpo, inicio, tamanho).slice());
+                });
+    }
+
+    private static String chavePagina(String recurso, int tamanhoPagina, String ultimoId) {
+        return recurso + "?limit=" + tamanhoPagina + "&after=" + ultimoId;
+    }
+
+    private byte[] serializar(List<Map<String, Object>> linhas) {
+        try {
+            return objectMapper.writeValueAsBytes(linhas);
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao serializar dados sintéticos", e);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.ecommerce.backend.carga;
+
+import com.ecommerce.backend.carga.CargaHttp.Requisicao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Benchmark de subida: inicia a aplicação várias vezes em cada variante, apontando para um
+ * {@link StubPostgrest} local, e mede do início do processo até a primeira resposta 200 de
+ * /api/health (servidor aceitando conexões) e de uma busca de pedido por id (primeira requisição
+ * real, que em inicialização preguiçosa inclui criar os beans do caminho). Reporta mediana, mínimo e
+ * máximo de cada variante.
+ *
+ * Variantes padrão, puladas se o artefato não existir:
+ * - jar: o jar executável (mvn package);
+ * - startup: jar fino com AOT, AppCDS e o perfil Spring startup (mvn -P startup package).
+ *
+ * Uso: BenchmarkInicializacao [--execucoes 5] [--variante nome="opções e jar/classe"]...
+ *                             [--app-jvm "-Xms512m -Xmx512m"] [--saida target/carga/inicializacao.json]
+ */
+public final class BenchmarkInicializacao {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final Duration LIMITE_SUBIDA = Duration.ofMinutes(2);
+
+    private record Variante(String nome, List<String> argumentos, Path artefato) {
+    }
+
+    private record Medicao(long prontoMs, long primeiraRequisicaoMs) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int execucoes = 5;
+        String jvmApp = "-Xms512m -Xmx512m";
+        List<Variante> variantes = new ArrayList<>();
+        Path saida = Path.of("target", "carga", "inicializacao.json");
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--execucoes" -> execucoes = Integer.parseInt(args[i + 1]);
+                case "--app-jvm" -> jvmApp = args[i + 1];
+                case "--variante" -> {
+                    String[] partes = args[i + 1].split("=", 2);
+                    variantes.add(new Variante(partes[0], separar(partes[1]), null));
+                }
+                case "--saida" -> saida = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        if (variantes.isEmpty()) {
+            variantes = variantesPadrao();
+        }
+        Files.createDirectories(saida.toAbsolutePath().getParent());
+
+        try (StubPostgrest stub = new StubPostgrest(2000, 500, 5000, 42,
+                new StubPostgrest.Falhas(Duration.ofMillis(2), Duration.ofMillis(3), 0), 64)) {
+            String pedidoId = stub.ids("pedidos", null, null).get(0);
+            Map<String, Object> resultados = new LinkedHashMap<>();
+            for (Variante variante : variantes) {
+                if (variante.artefato() != null && !Files.exists(variante.artefato())) {
+                    System.out.println(variante.nome() + ": " + variante.artefato() + " não existe; pulando");
+                    continue;
+                }
+                List<Medicao> medicoes = new ArrayList<>();
+                for (int execucao = 0; execucao < execucoes; execucao++) {
+                    medicoes.add(medir(variante, jvmApp, stub, pedidoId,
+                            saida.toAbsolutePath().getParent().resolve("inicializacao-" + variante.nome() + ".log")));
+                }
+                Map<String, Object> resumo = new LinkedHashMap<>();
+                resumo.put("pronto_ms", estatisticas(medicoes.stream().mapToLong(Medicao::prontoMs).toArray()));
+                resumo.put("primeira_requisicao_ms", estatisticas(medicoes.stream().mapToLong(Medicao::primeiraRequisicaoMs).toArray()));
+                resultados.put(variante.nome(), resumo);
+                System.out.printf(Locale.ROOT, "%-10s pronto %s | primeira requisição %s%n", variante.nome(),
+                        resumo.get("pronto_ms"), resumo.get("primeira_requisicao_ms"));
+            }
+            Map<String, Object> relatorio = new LinkedHashMap<>();
+            relatorio.put("execucoes", execucoes);
+            relatorio.put("app_jvm", jvmApp);
+            relatorio.put("variantes", resultados);
+            JSON.writerWithDefaultPrettyPrinter().writeValue(saida.toFile(), relatorio);
+            System.out.println("Resultado gravado em " + saida);
+        }
+    }
+
+    private static List<Variante> variantesPadrao() {
+        Path jar = Path.of("target", "ecommerce-backend-1.0.0.jar");
+        Path jarFino = Path.of("target", "startup", "ecommerce-backend-1.0.0-startup.jar");
+        Path arquivoCds = Path.of("target", "startup", "app.jsa");
+        return List.of(
+                new Variante("jar", List.of("-jar", jar.toString()), jar),
+                new Variante("startup", List.of("-XX:SharedArchiveFile=" + arquivoCds, "-Dspring.aot.enabled=true",
+                        "-jar", jarFino.toString(), "--spring.profiles.active=startup"), arquivoCds));
+    }
+
+    private static Medicao medir(Variante variante, String jvmApp, StubPostgrest stub, String pedidoId, Path log)
+            throws IOException, InterruptedException {
+        int porta = SuiteCarga.portaLivre();
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        comando.addAll(separar(jvmApp));
+        comando.addAll(variante.argumentos());
+        comando.addAll(List.of("--server.port=" + porta, "--management.server.port=0", "--supabase.url=" + stub.url(), "--http.admission.enabled=false"));
+
+        long inicio = System.nanoTime();
+        Process aplicacao = new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            CargaHttp cliente = new CargaHttp("http://127.0.0.1:" + porta, i -> null, 1);
+            long pronto = aguardar(cliente, aplicacao, Requisicao.get("/api/health"), inicio);
+            long primeiraRequisicao = aguardar(cliente, aplicacao, Requisicao.get("/api/pedidos/" + pedidoId), inicio);
+            return new Medicao(pronto, primeiraRequisicao);
+        } finally {
+            aplicacao.destroy();
+            aplicacao.waitFor();
+        }
+    }
+
+    /**
+     * Repete a requisição até um 200 e devolve os milissegundos desde o início do processo.
+     */
+    private static long aguardar(CargaHttp cliente, Process aplicacao, Requisicao requisicao, long inicio)
+            throws InterruptedException {
+        while (true) {
+            if (!aplicacao.isAlive()) {
+                throw new IllegalStateException("A aplicação terminou durante a subida; veja o log em target/carga");
+            }
+            try {
+                if (cliente.enviar(requisicao) == 200) {
+                    return (System.nanoTime() - inicio) / 1_000_000;
+                }
+            } catch (IOException e) {
+                // ainda subindo
+            }
+            if (System.nanoTime() - inicio > LIMITE_SUBIDA.toNanos()) {
+                throw new IllegalStateException("A aplicação não respondeu " + requisicao.caminho() + " em 2 minutos");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static Map<String, Long> estatisticas(long[] valores) {
+        long[] ordenados = valores.clone();
+        Arrays.sort(ordenados);
+        Map<String, Long> estatisticas = new LinkedHashMap<>();
+        estatisticas.put("mediana", ordenados[ordenados.length / 2]);
+        estatisticas.put("min", ordenados[0]);
+        estatisticas.put("max", ordenados[ordenados.length - 1]);
+        return estatisticas;
+    }
+
+    private static List<String> separar(String opcoes) {
+        return Arrays.stream(opcoes.trim().split("\\s+")).filter(opcao -> !opcao.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,239 @@
+package com.ecommerce.backend.carga;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * Gerador de carga HTTP em malha fechada: N clientes concorrentes repetem as requisições do cenário
+ * (em rodízio) durante o tempo pedido e o resultado sai como vazão e percentis de latência. O
+ * aquecimento roda a mesma carga sem medir, para o JIT e os pools estabilizarem.
+ *
+ * O cenário é uma função do número de sequência da requisição (global entre os clientes), então a
+ * mesma execução gera sempre as mesmas requisições na mesma ordem.
+ *
+ * Uso: CargaHttp --url http://localhost:8080 --concorrencia 64 --duracao 30s --aquecimento 10s
+ *                --caminho /api/produtos?q=produto --caminho /api/pedidos/o00001 [--saida arquivo.json]
+ */
+public final class CargaHttp {
+
+    private final HttpClient cliente;
+    private final String url;
+    private final IntFunction<Requisicao> cenario;
+    private final int concorrencia;
+
+    public CargaHttp(String url, IntFunction<Requisicao> cenario, int concorrencia) {
+        this.url = url;
+        this.cenario = cenario;
+        this.concorrencia = concorrencia;
+        this.cliente = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public CargaHttp(String url, List<String> caminhos, int concorrencia) {
+        this(url, i -> Requisicao.get(caminhos.get(i % caminhos.size())), concorrencia);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = "http://localhost:8080";
+        List<String> caminhos = new ArrayList<>();
+        int concorrencia = 32;
+        Duration duracao = Duration.ofSeconds(30);
+        Duration aquecimento = Duration.ofSeconds(10);
+        String saida = null;
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--caminho" -> caminhos.add(args[i + 1]);
+                case "--concorrencia" -> concorrencia = Integer.parseInt(args[i + 1]);
+                case "--duracao" -> duracao = duracao(args[i + 1]);
+                case "--aquecimento" -> aquecimento = duracao(args[i + 1]);
+                case "--saida" -> saida = args[i + 1];
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        if (caminhos.isEmpty()) {
+            caminhos.add("/api/health");
+        }
+        CargaHttp carga = new CargaHttp(url, caminhos, concorrencia);
+        carga.executar(aquecimento);
+        Resultado resultado = carga.executar(duracao);
+        System.out.println(resultado.resumo("cenário " + caminhos));
+        if (saida != null) {
+            Files.writeString(Path.of(saida), resultado.json());
+        }
+    }
+
+    public Resultado executar(Duration duracao) throws InterruptedException {
+        long fim = System.nanoTime() + duracao.toNanos();
+        AtomicInteger sequencia = new AtomicInteger();
+        AtomicLong erros = new AtomicLong();
+        long[][] latencias = new long[concorrencia][];
+        int[] quantidades = new int[concorrencia];
+        Thread[] clientes = new Thread[concorrencia];
+        for (int c = 0; c < concorrencia; c++) {
+            int indice = c;
+            clientes[c] = new Thread(() -> {
+                long[] medidas = new long[1024];
+                int n = 0;
+                while (System.nanoTime() < fim) {
+                    Requisicao requisicao = cenario.apply(sequencia.getAndIncrement());
+                    long inicio = System.nanoTime();
+                    try {
+                        if (enviar(requisicao) >= 400) {
+                            erros.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        erros.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                    if (n == medidas.length) {
+                        medidas = Arrays.copyOf(medidas, n * 2);
+                    }
+                    medidas[n++] = System.nanoTime() - inicio;
+                }
+                latencias[indice] = medidas;
+                quantidades[indice] = n;
+            }, "carga-" + c);
+            clientes[c].start();
+        }
+        long inicio = System.nanoTime();
+        for (Thread cliente : clientes) {
+            cliente.join();
+        }
+        long decorrido = System.nanoTime() - inicio;
+
+        long[] todas = new long[Arrays.stream(quantidades).sum()];
+        int posicao = 0;
+        for (int c = 0; c < concorrencia; c++) {
+            System.arraycopy(latencias[c], 0, todas, posicao, quantidades[c]);
+            posicao += quantidades[c];
+        }
+        Arrays.sort(todas);
+        return new Resultado(todas, erros.get(), decorrido);
+    }
+
+    /**
+     * Envia a requisição e devolve o status. Com primeiroEvento (SSE) a latência vai até o fim do
+     * primeiro evento e a conexão é fechada em seguida.
+     */
+    public int enviar(Requisicao requisicao) throws IOException, InterruptedException {
+        HttpResponse<?> resposta = requisicao.primeiroEvento()
+                ? primeiroEvento(montar(requisicao))
+                : cliente.send(montar(requisicao), HttpResponse.BodyHandlers.discarding());
+        return resposta.statusCode();
+    }
+
+    /**
+     * Envia a requisição e devolve o valor do cabeçalho pedido (null se ausente).
+     */
+    public String cabecalho(Requisicao requisicao, String nome) throws IOException, InterruptedException {
+        return cliente.send(montar(requisicao), HttpResponse.BodyHandlers.discarding())
+                .headers().firstValue(nome).orElse(null);
+    }
+
+    private HttpResponse<Stream<String>> primeiroEvento(HttpRequest requisicao) throws IOException, InterruptedException {
+        HttpResponse<Stream<String>> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.ofLines());
+        try (Stream<String> linhas = resposta.body()) {
+            linhas.dropWhile(String::isEmpty).takeWhile(linha -> !linha.isEmpty()).forEach(linha -> { });
+        }
+        return resposta;
+    }
+
+    private HttpRequest montar(Requisicao requisicao) {
+        HttpRequest.Builder construtor = HttpRequest.newBuilder(URI.create(url + requisicao.caminho()))
+                .timeout(Duration.ofSeconds(30))
+                .method(requisicao.metodo(), requisicao.corpo() == null
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(requisicao.corpo()));
+        if (requisicao.corpo() != null) {
+            construtor.header("Content-Type", "application/json");
+        }
+        requisicao.cabecalhos().forEach(construtor::header);
+        return construtor.build();
+    }
+
+    static Duration duracao(String valor) {
+        if (valor.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(valor.substring(0, valor.length() - 2)));
+        }
+        if (valor.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(valor.substring(0, valor.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(valor));
+    }
+
+    /**
+     * Uma requisição do cenário; corpo em JSON ou null.
+     */
+    public record Requisicao(String metodo, String caminho, Map<String, String> cabecalhos, String corpo,
+                             boolean primeiroEvento) {
+
+        public static Requisicao get(String caminho) {
+            return new Requisicao("GET", caminho, Map.of(), null, false);
+        }
+
+        public static Requisicao post(String caminho, String corpo) {
+            return new Requisicao("POST", caminho, Map.of(), corpo, false);
+        }
+
+        public Requisicao comCabecalho(String nome, String valor) {
+            Map<String, String> novos = new LinkedHashMap<>(cabecalhos);
+            novos.put(nome, valor);
+            return new Requisicao(metodo, caminho, novos, corpo, primeiroEvento);
+        }
+
+        public Requisicao ateOPrimeiroEvento() {
+            return new Requisicao(metodo, caminho, cabecalhos, corpo, true);
+        }
+    }
+
+    /**
+     * Latências ordenadas (ns) de uma execução.
+     */
+    public record Resultado(long[] latencias, long erros, long duracaoNanos) {
+
+        public double vazao() {
+            return latencias.length / (duracaoNanos / 1e9);
+        }
+
+        public double percentilMs(double percentil) {
+            if (latencias.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(percentil / 100.0 * latencias.length) - 1;
+            return latencias[Math.max(0, Math.min(indice, latencias.length - 1))] / 1e6;
+        }
+
+        public String resumo(String nome) {
+            return String.format(Locale.ROOT,
+                    "%s: %d requisições, %d erros, %.1f req/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, máx %.2f ms",
+                    nome, latencias.length, erros, vazao(), percentilMs(50), percentilMs(99), percentilMs(99.9), percentilMs(100));
+        }
+
+        public String json() {
+            return String.format(Locale.ROOT,
+                    "{\"requisicoes\":%d,\"erros\":%d,\"vazao\":%.2f,\"p50_ms\":%.3f,\"p99_ms\":%.3f,\"p999_ms\":%.3f,\"max_ms\":%.3f}",
+                    latencias.length, erros, vazao(), percentilMs(50), percentilMs(99), percentilMs(99.9), percentilMs(100));
+        }
+    }
+}
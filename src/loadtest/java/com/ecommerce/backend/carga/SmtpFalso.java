@@ -0,0 +1,110 @@
+package com.ecommerce.backend.carga;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor SMTP que aceita e descarta todas as mensagens, para o EmailService enviar durante os
+ * testes de carga sem um servidor real. Não anuncia STARTTLS; AUTH PLAIN/LOGIN é aceito sem checar
+ * credenciais.
+ */
+public final class SmtpFalso implements AutoCloseable {
+
+    private final ServerSocket servidor;
+    private final ExecutorService executor = Executors.newCachedThreadPool(tarefa -> {
+        Thread thread = new Thread(tarefa, "smtp-falso");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong mensagens = new AtomicLong();
+
+    public SmtpFalso() throws IOException {
+        servidor = new ServerSocket(0, 128, InetAddress.getLoopbackAddress());
+        executor.execute(this::aceitar);
+    }
+
+    public int porta() {
+        return servidor.getLocalPort();
+    }
+
+    public long mensagensRecebidas() {
+        return mensagens.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        executor.shutdownNow();
+    }
+
+    private void aceitar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket conexao = servidor.accept();
+                executor.execute(() -> atender(conexao));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void atender(Socket conexao) {
+        try (conexao;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(conexao.getInputStream(), StandardCharsets.US_ASCII));
+             OutputStream saida = conexao.getOutputStream()) {
+            responder(saida, "220 localhost ESMTP carga");
+            String linha;
+            while ((linha = entrada.readLine()) != null) {
+                String comando = linha.length() >= 4 ? linha.substring(0, 4).toUpperCase() : linha.toUpperCase();
+                switch (comando) {
+                    case "EHLO" -> responder(saida, "250-localhost\r\n250-AUTH PLAIN LOGIN\r\n250 8BITMIME");
+                    case "HELO", "MAIL", "RCPT", "RSET", "NOOP" -> responder(saida, "250 OK");
+                    case "AUTH" -> autenticar(linha, entrada, saida);
+                    case "DATA" -> {
+                        responder(saida, "354 fim com <CRLF>.<CRLF>");
+                        while ((linha = entrada.readLine()) != null && !linha.equals(".")) {
+                            // corpo descartado
+                        }
+                        mensagens.incrementAndGet();
+                        responder(saida, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        responder(saida, "221 tchau");
+                        return;
+                    }
+                    default -> responder(saida, "502 comando não implementado");
+                }
+            }
+        } catch (IOException e) {
+            // cliente desconectou
+        }
+    }
+
+    private static void autenticar(String linha, BufferedReader entrada, OutputStream saida) throws IOException {
+        String[] partes = linha.split(" ");
+        if (partes.length > 1 && partes[1].equalsIgnoreCase("LOGIN")) {
+            responder(saida, "334 VXNlcm5hbWU6");
+            entrada.readLine();
+            responder(saida, "334 UGFzc3dvcmQ6");
+            entrada.readLine();
+        } else if (partes.length == 2) {
+            responder(saida, "334 ");
+            entrada.readLine();
+        }
+        responder(saida, "235 autenticado");
+    }
+
+    private static void responder(OutputStream saida, String resposta) throws IOException {
+        saida.write((resposta + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        saida.flush();
+    }
+}
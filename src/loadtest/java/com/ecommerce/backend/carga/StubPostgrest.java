@@ -0,0 +1,674 @@
+package com.ecommerce.backend.carga;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Substituto local do PostgREST do Supabase para os testes de carga: serve /rest/v1/{tabela} com
+ * os filtros, ordenação, paginação e embutimentos que a aplicação usa, sobre dados sintéticos em
+ * memória gerados a partir de uma semente. Também atende a view pedidos_detalhados e a função
+ * rpc/baixar_estoque. Latência e erros (503) podem ser injetados em todas as respostas.
+ *
+ * Não é um PostgREST completo: só entende eq, neq, gt, gte, lt, lte, in, is.null, or/and aninhados,
+ * order, limit, offset e select com colunas e embutimentos de um nível por chave estrangeira
+ * (clientes(*) a partir de cliente_id, pedido_itens(*) a partir de pedido_id).
+ */
+public final class StubPostgrest implements AutoCloseable {
+
+    private static final String PREFIXO = "/rest/v1/";
+    private static final LocalDateTime INICIO_DADOS = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String[] STATUS = {"pendente", "pendente", "confirmado", "enviado", "entregue", "cancelado"};
+    private static final String[] CATEGORIAS = {"Camiseta", "Caneca", "Notebook", "Fone", "Cadeira", "Livro", "Tênis", "Mochila"};
+    private static final String[] ADJETIVOS = {"Básico", "Premium", "Compacto", "Clássico", "Esportivo", "Ergonômico"};
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    private final Map<String, Tabela> tabelas = new HashMap<>();
+    private final ReadWriteLock trava = new ReentrantReadWriteLock();
+    private final Set<String> baixasAplicadas = new HashSet<>();
+    private final Falhas falhas;
+    private final long semente;
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLong requisicoes = new AtomicLong();
+    private final AtomicLong errosInjetados = new AtomicLong();
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    /**
+     * Latência fixa mais um acréscimo uniforme de até jitter, e a fração das respostas trocada por 503.
+     */
+    public record Falhas(Duration latencia, Duration jitter, double taxaErro) {
+
+        public static final Falhas NENHUMA = new Falhas(Duration.ZERO, Duration.ZERO, 0);
+    }
+
+    public StubPostgrest(int produtos, int clientes, int pedidos, long semente, Falhas falhas, int threads) throws IOException {
+        this.falhas = falhas;
+        this.semente = semente;
+        tabelas.put("produtos", new Tabela());
+        tabelas.put("clientes", new Tabela());
+        tabelas.put("pedidos", new Tabela("cliente_id"));
+        tabelas.put("pedido_itens", new Tabela("pedido_id"));
+        gerarDados(produtos, clientes, pedidos);
+        executor = Executors.newFixedThreadPool(threads);
+        servidor = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 512);
+        servidor.setExecutor(executor);
+        servidor.createContext(PREFIXO, this::atender);
+        servidor.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + servidor.getAddress().getPort();
+    }
+
+    public long requisicoes() {
+        return requisicoes.get();
+    }
+
+    public long errosInjetados() {
+        return errosInjetados.get();
+    }
+
+    /**
+     * Ids (em ordem) das linhas da tabela com coluna igual a valor, ou de todas quando coluna é null.
+     */
+    public List<String> ids(String tabela, String coluna, Object valor) {
+        trava.readLock().lock();
+        try {
+            return tabelas.get(tabela).linhas.values().stream()
+                    .filter(linha -> coluna == null || Objects.equals(linha.get(coluna), valor))
+                    .map(linha -> (String) linha.get("id"))
+                    .toList();
+        } finally {
+            trava.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        servidor.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void gerarDados(int quantidadeProdutos, int quantidadeClientes, int quantidadePedidos) {
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+        List<Map<String, Object>> produtos = new ArrayList<>(quantidadeProdutos);
+        for (int i = 0; i < quantidadeProdutos; i++) {
+            Map<String, Object> produto = new LinkedHashMap<>();
+            produto.put("id", id(1, i));
+            produto.put("nome", CATEGORIAS[i % CATEGORIAS.length] + " " + ADJETIVOS[aleatorio.nextInt(ADJETIVOS.length)] + " " + i);
+            produto.put("descricao", "Produto sintético " + i + " para teste de carga");
+            produto.put("preco", BigDecimal.valueOf(500 + aleatorio.nextInt(49_500), 2));
+            // Estoque alto: as reservas da confirmação não devem esgotar durante a medição
+            produto.put("estoque", 1_000_000);
+            produto.put("imagem_url", null);
+            produto.put("created_at", data(INICIO_DADOS.plusMinutes(i)));
+            produtos.add(produto);
+            tabelas.get("produtos").inserir(produto);
+        }
+        for (int i = 0; i < quantidadeClientes; i++) {
+            Map<String, Object> cliente = new LinkedHashMap<>();
+            cliente.put("id", id(2, i));
+            cliente.put("nome", "Cliente " + i);
+            cliente.put("email", "cliente" + i + "@carga.local");
+            cliente.put("senha", "carga");
+            cliente.put("endereco", "Rua " + i + ", " + (1 + aleatorio.nextInt(2000)));
+            cliente.put("telefone", String.format("119%08d", i));
+            cliente.put("created_at", data(INICIO_DADOS.plusMinutes(i)));
+            tabelas.get("clientes").inserir(cliente);
+        }
+        long item = 0;
+        for (int i = 0; i < quantidadePedidos; i++) {
+            String pedidoId = id(3, i);
+            String criadoEm = data(INICIO_DADOS.plusSeconds(aleatorio.nextLong(90L * 24 * 3600)));
+            BigDecimal total = BigDecimal.ZERO;
+            int itens = 1 + aleatorio.nextInt(5);
+            for (int j = 0; j < itens; j++) {
+                Map<String, Object> produto = produtos.get(aleatorio.nextInt(produtos.size()));
+                int quantidade = 1 + aleatorio.nextInt(3);
+                BigDecimal preco = (BigDecimal) produto.get("preco");
+                BigDecimal subtotal = preco.multiply(BigDecimal.valueOf(quantidade));
+                total = total.add(subtotal);
+                Map<String, Object> pedidoItem = new LinkedHashMap<>();
+                pedidoItem.put("id", id(4, item++));
+                pedidoItem.put("pedido_id", pedidoId);
+                pedidoItem.put("produto_id", produto.get("id"));
+                pedidoItem.put("quantidade", quantidade);
+                pedidoItem.put("preco_unitario", preco);
+                pedidoItem.put("subtotal", subtotal);
+                pedidoItem.put("created_at", criadoEm);
+                tabelas.get("pedido_itens").inserir(pedidoItem);
+            }
+            Map<String, Object> pedido = new LinkedHashMap<>();
+            pedido.put("id", pedidoId);
+            pedido.put("cliente_id", id(2, aleatorio.nextInt(Math.max(1, quantidadeClientes))));
+            pedido.put("data_pedido", criadoEm);
+            pedido.put("status", STATUS[aleatorio.nextInt(STATUS.length)]);
+            pedido.put("total", total.setScale(2, RoundingMode.HALF_UP));
+            pedido.put("created_at", criadoEm);
+            pedido.put("updated_at", criadoEm);
+            tabelas.get("pedidos").inserir(pedido);
+        }
+    }
+
+    private static String id(long tipo, long indice) {
+        return new UUID(tipo, indice).toString();
+    }
+
+    private static String data(LocalDateTime dataHora) {
+        return dataHora.truncatedTo(ChronoUnit.MICROS).toString();
+    }
+
+    private void atender(HttpExchange troca) throws IOException {
+        requisicoes.incrementAndGet();
+        try (troca) {
+            SplittableRandom aleatorio = new SplittableRandom(semente ^ sequencia.incrementAndGet());
+            long espera = falhas.latencia().toMillis()
+                    + (falhas.jitter().isZero() ? 0 : aleatorio.nextLong(falhas.jitter().toMillis() + 1));
+            if (espera > 0) {
+                Thread.sleep(espera);
+            }
+            if (falhas.taxaErro() > 0 && aleatorio.nextDouble() < falhas.taxaErro()) {
+                errosInjetados.incrementAndGet();
+                responder(troca, 503, Map.of("code", "PGRST000", "message", "erro injetado pelo stub"));
+                return;
+            }
+            String recurso = troca.getRequestURI().getRawPath().substring(PREFIXO.length());
+            Map<String, List<String>> parametros = parametros(troca.getRequestURI().getRawQuery());
+            boolean minimo = String.valueOf(troca.getRequestHeaders().getFirst("Prefer")).contains("return=minimal");
+            switch (troca.getRequestMethod()) {
+                case "GET" -> consultar(troca, recurso, parametros);
+                case "POST" -> {
+                    if (recurso.startsWith("rpc/")) {
+                        executarFuncao(troca, recurso.substring(4));
+                    } else {
+                        inserir(troca, recurso, minimo);
+                    }
+                }
+                case "PATCH" -> alterar(troca, recurso, parametros, minimo);
+                case "DELETE" -> excluir(troca, recurso, parametros, minimo);
+                default -> responder(troca, 405, Map.of("message", "método não suportado"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IllegalArgumentException e) {
+            responder(troca, 400, Map.of("code", "PGRST100", "message", String.valueOf(e.getMessage())));
+        }
+    }
+
+    private void consultar(HttpExchange troca, String recurso, Map<String, List<String>> parametros) throws IOException {
+        boolean detalhado = recurso.equals("pedidos_detalhados");
+        Tabela tabela = tabelas.get(detalhado ? "pedido_itens" : recurso);
+        if (tabela == null) {
+            responder(troca, 404, Map.of("code", "PGRST205", "message", "tabela desconhecida: " + recurso));
+            return;
+        }
+        List<Map<String, Object>> resultado;
+        trava.readLock().lock();
+        try {
+            List<Map<String, Object>> linhas = filtrar(tabela, parametros);
+            ordenar(linhas, primeiro(parametros, "order"));
+            linhas = paginar(linhas, parametros);
+            if (detalhado) {
+                resultado = linhas.stream().map(this::detalhar).toList();
+            } else {
+                String select = primeiro(parametros, "select");
+                resultado = linhas.stream().map(linha -> projetar(recurso, linha, select == null ? "*" : select)).toList();
+            }
+        } finally {
+            trava.readLock().unlock();
+        }
+        responder(troca, 200, resultado);
+    }
+
+    private void inserir(HttpExchange troca, String recurso, boolean minimo) throws IOException {
+        Tabela tabela = tabelas.get(recurso);
+        if (tabela == null) {
+            responder(troca, 404, Map.of("code", "PGRST205", "message", "tabela desconhecida: " + recurso));
+            return;
+        }
+        List<Map<String, Object>> linhas = corpoComoLista(troca.getRequestBody());
+        String agora = data(LocalDateTime.now(ZoneOffset.UTC));
+        trava.writeLock().lock();
+        try {
+            for (Map<String, Object> linha : linhas) {
+                if (linha.containsKey("id") && tabela.linhas.containsKey(String.valueOf(linha.get("id")))) {
+                    responder(troca, 409, Map.of("code", "23505", "message", "chave duplicada: " + linha.get("id")));
+                    return;
+                }
+            }
+            for (Map<String, Object> linha : linhas) {
+                linha.putIfAbsent("id", UUID.randomUUID().toString());
+                linha.putIfAbsent("created_at", agora);
+                if (recurso.equals("pedidos")) {
+                    linha.putIfAbsent("updated_at", agora);
+                }
+                tabela.inserir(linha);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        if (minimo) {
+            responder(troca, 201, null);
+        } else {
+            responder(troca, 201, linhas);
+        }
+    }
+
+    /**
+     * PATCH com updated_at preenchido como faria o trigger do banco.
+     */
+    @SuppressWarnings("unchecked")
+    private void alterar(HttpExchange troca, String recurso, Map<String, List<String>> parametros, boolean minimo) throws IOException {
+        Tabela tabela = tabelas.get(recurso);
+        if (tabela == null) {
+            responder(troca, 404, Map.of("code", "PGRST205", "message", "tabela desconhecida: " + recurso));
+            return;
+        }
+        Map<String, Object> valores = objectMapper.readValue(troca.getRequestBody(), Map.class);
+        List<Map<String, Object>> alteradas = new ArrayList<>();
+        trava.writeLock().lock();
+        try {
+            for (Map<String, Object> linha : filtrar(tabela, parametros)) {
+                Map<String, Object> nova = new LinkedHashMap<>(linha);
+                nova.putAll(valores);
+                if (nova.containsKey("updated_at") && !valores.containsKey("updated_at")) {
+                    nova.put("updated_at", data(LocalDateTime.now(ZoneOffset.UTC)));
+                }
+                tabela.remover(linha);
+                tabela.inserir(nova);
+                alteradas.add(nova);
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        responder(troca, minimo ? 204 : 200, minimo ? null : alteradas);
+    }
+
+    private void excluir(HttpExchange troca, String recurso, Map<String, List<String>> parametros, boolean minimo) throws IOException {
+        Tabela tabela = tabelas.get(recurso);
+        if (tabela == null) {
+            responder(troca, 404, Map.of("code", "PGRST205", "message", "tabela desconhecida: " + recurso));
+            return;
+        }
+        List<Map<String, Object>> removidas;
+        trava.writeLock().lock();
+        try {
+            removidas = filtrar(tabela, parametros);
+            removidas.forEach(tabela::remover);
+        } finally {
+            trava.writeLock().unlock();
+        }
+        responder(troca, minimo ? 204 : 200, minimo ? null : removidas);
+    }
+
+    /**
+     * baixar_estoque: idempotente por (referencia, produto_id), como a função do banco.
+     */
+    @SuppressWarnings("unchecked")
+    private void executarFuncao(HttpExchange troca, String funcao) throws IOException {
+        if (!funcao.equals("baixar_estoque")) {
+            responder(troca, 404, Map.of("code", "PGRST202", "message", "função desconhecida: " + funcao));
+            return;
+        }
+        Map<String, Object> corpo = objectMapper.readValue(troca.getRequestBody(), Map.class);
+        Tabela produtos = tabelas.get("produtos");
+        trava.writeLock().lock();
+        try {
+            for (Object item : (List<?>) corpo.getOrDefault("baixas", List.of())) {
+                Map<?, ?> baixa = (Map<?, ?>) item;
+                if (!baixasAplicadas.add(baixa.get("referencia") + "|" + baixa.get("produto_id"))) {
+                    continue;
+                }
+                Map<String, Object> produto = produtos.linhas.get(String.valueOf(baixa.get("produto_id")));
+                if (produto != null) {
+                    produto.put("estoque", ((Number) produto.get("estoque")).intValue() - ((Number) baixa.get("quantidade")).intValue());
+                }
+            }
+        } finally {
+            trava.writeLock().unlock();
+        }
+        responder(troca, 204, null);
+    }
+
+    private Map<String, Object> detalhar(Map<String, Object> item) {
+        Map<String, Object> produto = tabelas.get("produtos").linhas.get(String.valueOf(item.get("produto_id")));
+        Map<String, Object> linha = new LinkedHashMap<>();
+        linha.put("pedido_id", item.get("pedido_id"));
+        linha.put("produto_nome", produto != null ? produto.get("nome") : null);
+        linha.put("quantidade", item.get("quantidade"));
+        linha.put("preco_unitario", item.get("preco_unitario"));
+        linha.put("subtotal", item.get("subtotal"));
+        return linha;
+    }
+
+    private List<Map<String, Object>> filtrar(Tabela tabela, Map<String, List<String>> parametros) {
+        List<Filtro> filtros = new ArrayList<>();
+        List<Predicate<Map<String, Object>>> condicoes = new ArrayList<>();
+        parametros.forEach((coluna, valores) -> {
+            for (String valor : valores) {
+                switch (coluna) {
+                    case "select", "order", "limit", "offset" -> { }
+                    case "or", "and" -> condicoes.add(condicaoComposta(coluna, valor));
+                    default -> {
+                        Filtro filtro = Filtro.de(coluna, valor);
+                        filtros.add(filtro);
+                        condicoes.add(filtro);
+                    }
+                }
+            }
+        });
+        List<Map<String, Object>> linhas = new ArrayList<>();
+        for (Map<String, Object> linha : candidatas(tabela, filtros)) {
+            if (condicoes.stream().allMatch(condicao -> condicao.test(linha))) {
+                linhas.add(linha);
+            }
+        }
+        return linhas;
+    }
+
+    /**
+     * Usa o id ou uma coluna indexada quando há filtro eq/in sobre ela; senão percorre a tabela.
+     */
+    private static Collection<Map<String, Object>> candidatas(Tabela tabela, List<Filtro> filtros) {
+        for (Filtro filtro : filtros) {
+            if (!filtro.operador().equals("eq") && !filtro.operador().equals("in")) {
+                continue;
+            }
+            if (filtro.coluna().equals("id")) {
+                return filtro.valores().stream().map(tabela.linhas::get).filter(Objects::nonNull).toList();
+            }
+            Map<String, List<Map<String, Object>>> indice = tabela.indices.get(filtro.coluna());
+            if (indice != null) {
+                return filtro.valores().stream()
+                        .flatMap(valor -> indice.getOrDefault(valor, List.of()).stream())
+                        .toList();
+            }
+        }
+        return tabela.linhas.values();
+    }
+
+    private static Predicate<Map<String, Object>> condicaoComposta(String operador, String expressao) {
+        List<Predicate<Map<String, Object>>> partes = new ArrayList<>();
+        for (String parte : dividir(expressao.substring(1, expressao.length() - 1))) {
+            if (parte.startsWith("and(") || parte.startsWith("or(")) {
+                int abre = parte.indexOf('(');
+                partes.add(condicaoComposta(parte.substring(0, abre), parte.substring(abre)));
+            } else {
+                int ponto = parte.indexOf('.');
+                partes.add(Filtro.de(parte.substring(0, ponto), parte.substring(ponto + 1)));
+            }
+        }
+        return operador.equals("and")
+                ? linha -> partes.stream().allMatch(parte -> parte.test(linha))
+                : linha -> partes.stream().anyMatch(parte -> parte.test(linha));
+    }
+
+    /**
+     * Divide nas vírgulas de primeiro nível (fora de parênteses).
+     */
+    private static List<String> dividir(String lista) {
+        List<String> partes = new ArrayList<>();
+        int nivel = 0;
+        int inicio = 0;
+        for (int i = 0; i < lista.length(); i++) {
+            char c = lista.charAt(i);
+            if (c == '(') {
+                nivel++;
+            } else if (c == ')') {
+                nivel--;
+            } else if (c == ',' && nivel == 0) {
+                partes.add(lista.substring(inicio, i).trim());
+                inicio = i + 1;
+            }
+        }
+        if (inicio < lista.length()) {
+            partes.add(lista.substring(inicio).trim());
+        }
+        return partes;
+    }
+
+    private static void ordenar(List<Map<String, Object>> linhas, String ordem) {
+        if (ordem == null) {
+            return;
+        }
+        Comparator<Map<String, Object>> comparador = null;
+        for (String termo : ordem.split(",")) {
+            String[] partes = termo.split("\\.");
+            Comparator<Map<String, Object>> porColuna = Comparator.comparing(linha -> linha.get(partes[0]),
+                    Comparator.nullsLast(StubPostgrest::comparar));
+            if (partes.length > 1 && partes[1].equals("desc")) {
+                porColuna = porColuna.reversed();
+            }
+            comparador = comparador == null ? porColuna : comparador.thenComparing(porColuna);
+        }
+        linhas.sort(comparador);
+    }
+
+    private static List<Map<String, Object>> paginar(List<Map<String, Object>> linhas, Map<String, List<String>> parametros) {
+        int inicio = Math.min(linhas.size(), Integer.parseInt(Objects.requireNonNullElse(primeiro(parametros, "offset"), "0")));
+        String limite = primeiro(parametros, "limit");
+        int fim = limite == null ? linhas.size() : Math.min(linhas.size(), inicio + Integer.parseInt(limite));
+        return linhas.subList(inicio, fim);
+    }
+
+    /**
+     * Aplica o select: colunas (ou *) e embutimentos nome(select). Um embutimento é muitos-para-um
+     * quando a linha tem a coluna {nome no singular}_id, e um-para-muitos quando a tabela embutida
+     * tem a coluna {tabela atual no singular}_id.
+     */
+    private Map<String, Object> projetar(String recurso, Map<String, Object> linha, String select) {
+        Map<String, Object> resultado = new LinkedHashMap<>();
+        for (String campo : dividir(select)) {
+            int abre = campo.indexOf('(');
+            if (abre < 0) {
+                if (campo.equals("*")) {
+                    resultado.putAll(linha);
+                } else {
+                    resultado.put(campo, linha.get(campo));
+                }
+                continue;
+            }
+            String embutido = campo.substring(0, abre);
+            String selectEmbutido = campo.substring(abre + 1, campo.length() - 1);
+            Tabela tabela = tabelas.get(embutido);
+            if (tabela == null) {
+                throw new IllegalArgumentException("relacionamento desconhecido: " + embutido);
+            }
+            Object chaveEstrangeira = linha.get(singular(embutido) + "_id");
+            if (chaveEstrangeira != null) {
+                Map<String, Object> relacionada = tabela.linhas.get(String.valueOf(chaveEstrangeira));
+                resultado.put(embutido, relacionada == null ? null : projetar(embutido, relacionada, selectEmbutido));
+            } else {
+                Map<String, List<Map<String, Object>>> indice = tabela.indices.get(singular(recurso) + "_id");
+                if (indice == null) {
+                    throw new IllegalArgumentException("relacionamento desconhecido: " + recurso + " -> " + embutido);
+                }
+                resultado.put(embutido, indice.getOrDefault(String.valueOf(linha.get("id")), List.of()).stream()
+                        .map(filha -> projetar(embutido, filha, selectEmbutido))
+                        .toList());
+            }
+        }
+        return resultado;
+    }
+
+    private static String singular(String tabela) {
+        return tabela.endsWith("s") ? tabela.substring(0, tabela.length() - 1) : tabela;
+    }
+
+    /**
+     * Compara o valor da linha com o literal da URL: numérico, como data/hora, ou como texto.
+     */
+    static int comparar(Object valor, Object outro) {
+        if (valor instanceof Number || outro instanceof Number) {
+            try {
+                return new BigDecimal(valor.toString()).compareTo(new BigDecimal(outro.toString()));
+            } catch (NumberFormatException e) {
+                return valor.toString().compareTo(outro.toString());
+            }
+        }
+        String a = valor.toString();
+        String b = outro.toString();
+        if (a.length() >= 16 && b.length() >= 16 && a.charAt(10) == 'T' && b.charAt(10) == 'T') {
+            try {
+                return LocalDateTime.parse(a).compareTo(LocalDateTime.parse(b));
+            } catch (DateTimeParseException e) {
+                // não é data/hora: compara como texto
+            }
+        }
+        return a.compareTo(b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> corpoComoLista(InputStream corpo) throws IOException {
+        Object valor = objectMapper.readValue(corpo, Object.class);
+        List<Map<String, Object>> linhas = new ArrayList<>();
+        if (valor instanceof List<?> lista) {
+            lista.forEach(item -> linhas.add(new LinkedHashMap<>((Map<String, Object>) item)));
+        } else if (valor instanceof Map<?, ?> mapa) {
+            linhas.add(new LinkedHashMap<>((Map<String, Object>) mapa));
+        }
+        return linhas;
+    }
+
+    private void responder(HttpExchange troca, int status, Object corpo) throws IOException {
+        if (corpo == null) {
+            troca.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(corpo);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(status, bytes.length);
+        troca.getResponseBody().write(bytes);
+    }
+
+    private static Map<String, List<String>> parametros(String consulta) {
+        Map<String, List<String>> parametros = new LinkedHashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String nome = URLDecoder.decode(igual < 0 ? par : par.substring(0, igual), StandardCharsets.UTF_8);
+            String valor = igual < 0 ? "" : URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8);
+            parametros.computeIfAbsent(nome, n -> new ArrayList<>()).add(valor);
+        }
+        return parametros;
+    }
+
+    private static String primeiro(Map<String, List<String>> parametros, String nome) {
+        List<String> valores = parametros.get(nome);
+        return valores == null ? null : valores.get(0);
+    }
+
+    /**
+     * Filtro coluna=operador.valor do PostgREST.
+     */
+    private record Filtro(String coluna, String operador, List<String> valores) implements Predicate<Map<String, Object>> {
+
+        static Filtro de(String coluna, String expressao) {
+            int ponto = expressao.indexOf('.');
+            if (ponto < 0) {
+                throw new IllegalArgumentException("filtro inválido: " + coluna + "=" + expressao);
+            }
+            String operador = expressao.substring(0, ponto);
+            String valor = expressao.substring(ponto + 1);
+            List<String> valores = operador.equals("in")
+                    ? dividir(valor.substring(1, valor.length() - 1)).stream().map(v -> v.replace("\"", "")).toList()
+                    : List.of(valor);
+            return new Filtro(coluna, operador, valores);
+        }
+
+        @Override
+        public boolean test(Map<String, Object> linha) {
+            Object valor = linha.get(coluna);
+            if (operador.equals("is")) {
+                return valores.get(0).equals("null") == (valor == null);
+            }
+            if (valor == null) {
+                return false;
+            }
+            return switch (operador) {
+                case "eq" -> comparar(valor, valores.get(0)) == 0;
+                case "neq" -> comparar(valor, valores.get(0)) != 0;
+                case "gt" -> comparar(valor, valores.get(0)) > 0;
+                case "gte" -> comparar(valor, valores.get(0)) >= 0;
+                case "lt" -> comparar(valor, valores.get(0)) < 0;
+                case "lte" -> comparar(valor, valores.get(0)) <= 0;
+                case "in" -> valores.stream().anyMatch(v -> comparar(valor, v) == 0);
+                default -> throw new IllegalArgumentException("operador não suportado: " + operador);
+            };
+        }
+    }
+
+    /**
+     * Linhas por id (em ordem de id, como o PostgREST sem order) e índices por chave estrangeira.
+     */
+    private static final class Tabela {
+
+        final NavigableMap<String, Map<String, Object>> linhas = new TreeMap<>();
+        final Map<String, Map<String, List<Map<String, Object>>>> indices = new HashMap<>();
+
+        Tabela(String... colunasIndexadas) {
+            for (String coluna : colunasIndexadas) {
+                indices.put(coluna, new HashMap<>());
+            }
+        }
+
+        void inserir(Map<String, Object> linha) {
+            linhas.put(String.valueOf(linha.get("id")), linha);
+            indices.forEach((coluna, indice) -> {
+                Object valor = linha.get(coluna);
+                if (valor != null) {
+                    indice.computeIfAbsent(valor.toString(), v -> new ArrayList<>()).add(linha);
+                }
+            });
+        }
+
+        void remover(Map<String, Object> linha) {
+            linhas.remove(String.valueOf(linha.get("id")));
+            indices.forEach((coluna, indice) -> {
+                Object valor = linha.get(coluna);
+                List<Map<String, Object>> lista = valor == null ? null : indice.get(valor.toString());
+                if (lista != null) {
+                    lista.remove(linha);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.ecommerce.backend.carga;
+
+import com.ecommerce.backend.carga.CargaHttp.Requisicao;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+/**
+ * Suíte de carga autocontida: sobe o {@link StubPostgrest} e o {@link SmtpFalso} neste processo, a
+ * aplicação em uma JVM separada (mesmo classpath, opções fixas) apontando para eles, e roda um
+ * cenário por endpoint do OrderController, um de cada vez, com {@link CargaHttp}. Dados e requisições
+ * saem da semente, então duas execuções na mesma máquina fazem exatamente o mesmo trabalho.
+ *
+ * Os cenários de leitura rodam antes dos de escrita (confirmar, criar, importar), que alteram os
+ * dados. A confirmação percorre os pedidos pendentes; depois da primeira passada as repetições caem
+ * no caminho idempotente.
+ *
+ * Uso: SuiteCarga [--cenario nome]... [--concorrencia 16] [--duracao 20s] [--aquecimento 5s]
+ *                 [--produtos 2000] [--clientes 500] [--pedidos 5000] [--semente 42]
+ *                 [--latencia 2ms] [--jitter 3ms] [--taxa-erro 0.0] [--app-jvm "-Xms512m -Xmx512m"]
+ *                 [--app-arg --propriedade=valor]... [--saida target/carga/resultado.json]
+ */
+public final class SuiteCarga {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    /**
+     * Cenário de um endpoint; concorrenciaMaxima limita os que fazem exportação completa.
+     */
+    record Cenario(String nome, int concorrenciaMaxima, IntFunction<Requisicao> requisicoes) {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> selecionados = new ArrayList<>();
+        List<String> argumentosApp = new ArrayList<>();
+        int concorrencia = 16;
+        Duration duracao = Duration.ofSeconds(20);
+        Duration aquecimento = Duration.ofSeconds(5);
+        int produtos = 2000;
+        int clientes = 500;
+        int pedidos = 5000;
+        long semente = 42;
+        Duration latencia = Duration.ofMillis(2);
+        Duration jitter = Duration.ofMillis(3);
+        double taxaErro = 0;
+        String jvmApp = "-Xms512m -Xmx512m";
+        Path saida = Path.of("target", "carga", "resultado.json");
+        for (int i = 0; i < args.length - 1; i += 2) {
+            switch (args[i]) {
+                case "--cenario" -> selecionados.add(args[i + 1]);
+                case "--concorrencia" -> concorrencia = Integer.parseInt(args[i + 1]);
+                case "--duracao" -> duracao = CargaHttp.duracao(args[i + 1]);
+                case "--aquecimento" -> aquecimento = CargaHttp.duracao(args[i + 1]);
+                case "--produtos" -> produtos = Integer.parseInt(args[i + 1]);
+                case "--clientes" -> clientes = Integer.parseInt(args[i + 1]);
+                case "--pedidos" -> pedidos = Integer.parseInt(args[i + 1]);
+                case "--semente" -> semente = Long.parseLong(args[i + 1]);
+                case "--latencia" -> latencia = CargaHttp.duracao(args[i + 1]);
+                case "--jitter" -> jitter = CargaHttp.duracao(args[i + 1]);
+                case "--taxa-erro" -> taxaErro = Double.parseDouble(args[i + 1]);
+                case "--app-jvm" -> jvmApp = args[i + 1];
+                case "--app-arg" -> argumentosApp.add(args[i + 1]);
+                case "--saida" -> saida = Path.of(args[i + 1]);
+                default -> throw new IllegalArgumentException("Opção desconhecida: " + args[i]);
+            }
+        }
+        Files.createDirectories(saida.toAbsolutePath().getParent());
+
+        try (StubPostgrest stub = new StubPostgrest(produtos, clientes, pedidos, semente,
+                new StubPostgrest.Falhas(latencia, jitter, taxaErro), 64);
+             SmtpFalso smtp = new SmtpFalso()) {
+            int porta = portaLivre();
+            Process aplicacao = iniciarAplicacao(porta, stub, smtp, jvmApp, argumentosApp,
+                    saida.toAbsolutePath().getParent().resolve("aplicacao.log"));
+            try {
+                String url = "http://127.0.0.1:" + porta;
+                aguardarAplicacao(url, aplicacao, stub.ids("produtos", null, null).get(0));
+                List<Cenario> cenarios = cenarios(url, stub);
+                Map<String, Object> resultados = new LinkedHashMap<>();
+                for (Cenario cenario : cenarios) {
+                    if (!selecionados.isEmpty() && !selecionados.contains(cenario.nome())) {
+                        continue;
+                    }
+                    CargaHttp carga = new CargaHttp(url, cenario.requisicoes(), Math.min(concorrencia, cenario.concorrenciaMaxima()));
+                    carga.executar(aquecimento);
+                    CargaHttp.Resultado resultado = carga.executar(duracao);
+                    System.out.println(resultado.resumo(cenario.nome()));
+                    resultados.put(cenario.nome(), JSON.readTree(resultado.json()));
+                }
+                System.out.printf(Locale.ROOT, "stub: %d requisições, %d erros injetados; smtp: %d mensagens%n",
+                        stub.requisicoes(), stub.errosInjetados(), smtp.mensagensRecebidas());
+                Map<String, Object> relatorio = new LinkedHashMap<>();
+                relatorio.put("configuracao", Map.of(
+                        "concorrencia", concorrencia, "duracao_s", duracao.toSeconds(), "aquecimento_s", aquecimento.toSeconds(),
+                        "produtos", produtos, "clientes", clientes, "pedidos", pedidos, "semente", semente,
+                        "latencia_ms", latencia.toMillis(), "jitter_ms", jitter.toMillis(), "taxa_erro", taxaErro));
+                relatorio.put("cenarios", resultados);
+                relatorio.put("emails_recebidos", smtp.mensagensRecebidas());
+                JSON.writerWithDefaultPrettyPrinter().writeValue(saida.toFile(), relatorio);
+                System.out.println("Resultado gravado em " + saida);
+            } finally {
+                aplicacao.destroy();
+                aplicacao.waitFor();
+            }
+        }
+    }
+
+    static List<Cenario> cenarios(String url, StubPostgrest stub) throws IOException, InterruptedException {
+        List<String> pedidos = stub.ids("pedidos", null, null);
+        List<String> pendentes = stub.ids("pedidos", "status", "pendente");
+        List<String> clientes = stub.ids("clientes", null, null);
+        List<String> produtos = stub.ids("produtos", null, null);
+        List<String> etags = etags(url, pedidos.subList(0, Math.min(500, pedidos.size())));
+        int semLimite = Integer.MAX_VALUE;
+
+        List<Cenario> cenarios = new ArrayList<>();
+        cenarios.add(new Cenario("health", semLimite, i -> Requisicao.get("/api/health")));
+        cenarios.add(new Cenario("buscar_pedido", semLimite, i -> Requisicao.get("/api/pedidos/" + pedidos.get(i % pedidos.size()))));
+        cenarios.add(new Cenario("buscar_pedido_condicional", semLimite, i -> {
+            int indice = i % etags.size();
+            return Requisicao.get("/api/pedidos/" + pedidos.get(indice)).comCabecalho("If-None-Match", etags.get(indice));
+        }));
+        cenarios.add(new Cenario("pedidos_em_lote", semLimite, i -> {
+            int inicio = (i * 50) % Math.max(1, pedidos.size() - 50);
+            return Requisicao.post("/api/pedidos/batch", json(pedidos.subList(inicio, Math.min(pedidos.size(), inicio + 50))));
+        }));
+        cenarios.add(new Cenario("pedidos_do_cliente", semLimite,
+                i -> Requisicao.get("/api/clientes/" + clientes.get(i % clientes.size()) + "/pedidos")));
+        cenarios.add(new Cenario("feed_do_cliente", semLimite,
+                i -> Requisicao.get("/api/clientes/" + clientes.get(i % clientes.size()) + "/pedidos/stream").ateOPrimeiroEvento()));
+        cenarios.add(new Cenario("exportar_pedido_csv", semLimite,
+                i -> Requisicao.get("/api/pedidos/" + pedidos.get(i % pedidos.size()) + "/export/csv")));
+        cenarios.add(new Cenario("exportar_produtos_csv", 4,
+                i -> Requisicao.get("/api/produtos/export/csv").comCabecalho("Accept-Encoding", "gzip")));
+        cenarios.add(new Cenario("exportar_clientes_csv", 4,
+                i -> Requisicao.get("/api/clientes/export/csv").comCabecalho("Accept-Encoding", "gzip")));
+        cenarios.add(new Cenario("exportar_zip", 2, i -> Requisicao.get("/api/export/zip")));
+        cenarios.add(new Cenario("exportar_arrow", 4, i -> Requisicao.get("/api/export/arrow/pedidos")));
+        cenarios.add(new Cenario("confirmar_pedido", semLimite,
+                i -> Requisicao.post("/api/pedidos/" + pendentes.get(i % pendentes.size()) + "/confirmar", null)));
+        cenarios.add(new Cenario("criar_pedido", semLimite, i -> Requisicao.post("/api/pedidos", json(novoPedido(i, clientes, produtos)))));
+        cenarios.add(new Cenario("importar_pedidos", 4, i -> {
+            List<Map<String, Object>> lote = new ArrayList<>(20);
+            for (int j = 0; j < 20; j++) {
+                lote.add(novoPedido(i * 20 + j, clientes, produtos));
+            }
+            return Requisicao.post("/api/pedidos/importacao", json(Map.of("pedidos", lote)));
+        }));
+        return cenarios;
+    }
+
+    private static Map<String, Object> novoPedido(int sequencia, List<String> clientes, List<String> produtos) {
+        List<Map<String, Object>> itens = new ArrayList<>();
+        for (int k = 0; k <= sequencia % 3; k++) {
+            itens.add(Map.of("produto_id", produtos.get((sequencia * 7 + k * 13) % produtos.size()), "quantidade", 1 + k));
+        }
+        return Map.of("cliente_id", clientes.get(sequencia % clientes.size()), "itens", itens);
+    }
+
+    /**
+     * ETags atuais dos pedidos, para o cenário condicional reenviá-los em If-None-Match.
+     */
+    private static List<String> etags(String url, List<String> pedidos) throws IOException, InterruptedException {
+        CargaHttp cliente = new CargaHttp(url, i -> null, 1);
+        List<String> etags = new ArrayList<>(pedidos.size());
+        for (String pedidoId : pedidos) {
+            etags.add(cliente.cabecalho(Requisicao.get("/api/pedidos/" + pedidoId), "ETag"));
+        }
+        return etags;
+    }
+
+    private static Process iniciarAplicacao(int porta, StubPostgrest stub, SmtpFalso smtp, String jvmApp,
+                                            List<String> argumentosApp, Path log) throws IOException {
+        List<String> comando = new ArrayList<>();
+        comando.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        // O jar declara Add-Opens no manifesto; rodando pelo classpath o Arrow precisa da opção explícita
+        comando.add("--add-opens=java.base/java.nio=ALL-UNNAMED");
+        comando.addAll(Arrays.stream(jvmApp.trim().split("\\s+")).filter(opcao -> !opcao.isEmpty()).toList());
+        comando.addAll(List.of("-cp", System.getProperty("java.class.path"),
+                "com.ecommerce.backend.EcommerceBackendApplication",
+                "--server.port=" + porta,
+                "--management.server.port=0",
+                "--supabase.url=" + stub.url(),
+                "--spring.mail.host=127.0.0.1",
+                "--spring.mail.port=" + smtp.porta(),
+                "--spring.mail.properties.mail.smtp.auth=false",
+                "--spring.mail.properties.mail.smtp.starttls.enable=false"));
+        // Todo o tráfego da suíte sai do mesmo IP; sem isto o controle de admissão mediria a si mesmo
+        if (argumentosApp.stream().noneMatch(arg -> arg.startsWith("--http.admission.enabled="))) {
+            comando.add("--http.admission.enabled=false");
+        }
+        comando.addAll(argumentosApp);
+        return new ProcessBuilder(comando)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+    }
+
+    /**
+     * Espera o health e o estoque carregado (a confirmação devolve 503 antes disso; com o estoque
+     * desativado a consulta não devolve 503 e a espera termina).
+     */
+    private static void aguardarAplicacao(String url, Process aplicacao, String produtoId) throws InterruptedException {
+        CargaHttp cliente = new CargaHttp(url, i -> null, 1);
+        long limite = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        for (String caminho : List.of("/api/health", "/api/estoque/" + produtoId)) {
+            while (true) {
+                if (!aplicacao.isAlive()) {
+                    throw new IllegalStateException("A aplicação terminou durante a subida; veja aplicacao.log");
+                }
+                try {
+                    int status = cliente.enviar(Requisicao.get(caminho));
+                    if (caminho.equals("/api/health") ? status == 200 : status != 503) {
+                        break;
+                    }
+                } catch (IOException e) {
+                    // ainda subindo
+                }
+                if (System.nanoTime() > limite) {
+                    throw new IllegalStateException("A aplicação não respondeu " + caminho + " em 2 minutos");
+                }
+                Thread.sleep(250);
+            }
+        }
+    }
+
+    static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String json(Object valor) {
+        try {
+            return JSON.writeValueAsString(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.ecommerce.backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import reactor.core.publisher.Hooks;
 
 @SpringBootApplication
 public class EcommerceBackendApplication {
 
     public static void main(String[] args) {
+        // Leva trace id e id de correlação do contexto do Reactor para o MDC dos logs
+        Hooks.enableAutomaticContextPropagation();
         SpringApplication.run(EcommerceBackendApplication.class, args);
     }
 }
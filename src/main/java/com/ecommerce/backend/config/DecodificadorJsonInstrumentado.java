@@ -0,0 +1,54 @@
+package com.ecommerce.backend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Jackson2JsonDecoder que mede a decodificação das respostas do Supabase: o tempo entre o primeiro
+ * bloco recebido e o último elemento emitido (supabase.json.decode) e quantos elementos saíram.
+ */
+public class DecodificadorJsonInstrumentado extends Jackson2JsonDecoder {
+
+    private final MeterRegistry meterRegistry;
+
+    public DecodificadorJsonInstrumentado(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType,
+                               @Nullable MimeType mimeType, @Nullable Map<String, Object> hints) {
+        return Flux.defer(() -> {
+            AtomicLong inicio = new AtomicLong();
+            AtomicLong elementos = new AtomicLong();
+            Flux<DataBuffer> entrada = Flux.from(input).doOnNext(buffer -> inicio.compareAndSet(0, System.nanoTime()));
+            return super.decode(entrada, elementType, mimeType, hints)
+                    .doOnNext(elemento -> elementos.incrementAndGet())
+                    .doOnComplete(() -> {
+                        if (inicio.get() == 0) {
+                            return;
+                        }
+                        String tipo = elementType.toClass().getSimpleName();
+                        Timer.builder("supabase.json.decode")
+                                .description("Tempo entre o primeiro bloco recebido e o último elemento decodificado")
+                                .tag("type", tipo)
+                                .register(meterRegistry)
+                                .record(System.nanoTime() - inicio.get(), TimeUnit.NANOSECONDS);
+                        meterRegistry.summary("supabase.json.elements", "type", tipo).record(elementos.get());
+                    });
+        });
+    }
+}
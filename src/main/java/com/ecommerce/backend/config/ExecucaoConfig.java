@@ -0,0 +1,124 @@
+package com.ecommerce.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Modo de execução: qual servidor atende as requisições e onde roda o trabalho que não pode ficar
+ * nas threads de I/O. A API é toda WebFlux (WebFilters, respostas em Flux de DataBuffer), então os
+ * dois modos usam o WebFlux e o Spring MVC do starter-web nunca atende requisições:
+ *
+ * - runtime.server=netty (padrão): Reactor Netty, só event loops.
+ * - runtime.server=tomcat: WebFlux sobre o Tomcat; com threads virtuais, os workers do Tomcat também
+ *   passam a ser virtuais.
+ *
+ * O processamento AOT (perfil Maven startup) avalia as condições no build, então o jar AOT sobe
+ * sempre com o servidor do build (netty) e ignora o runtime.server da execução; a subida falha
+ * quando os dois divergem, em vez de seguir com o servidor errado.
+ *
+ * As integrações bloqueantes (spool de e-mail em disco, espera de tarefas do ForkJoinPool) usam o
+ * schedulerBloqueante: uma thread virtual por tarefa quando o Java tem (21+) e runtime.virtual-threads
+ * permite, senão o boundedElastic do Reactor. O trabalho de CPU pesado (gerar CSV, Arrow, montar
+ * índices) usa o schedulerComputacao, para não segurar os event loops que entregam as respostas do
+ * Supabase. O SMTP continua no pool próprio da {@code FilaEmailService}.
+ */
+@Configuration
+public class ExecucaoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExecucaoConfig.class);
+
+    @Value("${runtime.server:netty}")
+    private String servidor;
+
+    @Value("${runtime.virtual-threads:auto}")
+    private String threadsVirtuais;
+
+    @Bean
+    @ConditionalOnProperty(name = "runtime.server", havingValue = "netty", matchIfMissing = true)
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory(ObjectProvider<NettyServerCustomizer> customizers) {
+        NettyReactiveWebServerFactory factory = new NettyReactiveWebServerFactory();
+        factory.getServerCustomizers().addAll(customizers.orderedStream().toList());
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "runtime.server", havingValue = "tomcat")
+    public TomcatProtocolHandlerCustomizer<?> tomcatThreadsVirtuais() {
+        return protocolHandler -> executorVirtual().ifPresent(protocolHandler::setExecutor);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler schedulerBloqueante() {
+        return executorVirtual()
+                .map(executor -> Schedulers.fromExecutorService(executor, "bloqueante-virtual"))
+                .orElseGet(Schedulers::boundedElastic);
+    }
+
+    @Bean
+    public Scheduler schedulerComputacao() {
+        return Schedulers.parallel();
+    }
+
+    @EventListener
+    public void registrarModo(WebServerInitializedEvent evento) {
+        if ("management".equals(evento.getApplicationContext().getServerNamespace())) {
+            return;
+        }
+        String emUso = evento.getWebServer().getClass().getSimpleName();
+        if (!emUso.toLowerCase().startsWith(servidor.toLowerCase())) {
+            throw new IllegalStateException("runtime.server=" + servidor + ", mas o servidor iniciado é " + emUso
+                    + "; com spring.aot.enabled=true o servidor é o do build AOT (gere o jar com o mesmo runtime.server)");
+        }
+        logger.info("Servidor {} (WebFlux) na porta {}; integrações bloqueantes em {}",
+                servidor, evento.getWebServer().getPort(),
+                executorVirtualDisponivel() && usarThreadsVirtuais() ? "threads virtuais" : "boundedElastic");
+    }
+
+    /**
+     * Executor com uma thread virtual por tarefa, obtido por reflexão para o código continuar
+     * compilando com release 17; vazio em Java anterior ao 21 ou com runtime.virtual-threads=false.
+     */
+    private Optional<ExecutorService> executorVirtual() {
+        if (!usarThreadsVirtuais()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (ReflectiveOperationException e) {
+            if ("true".equals(threadsVirtuais)) {
+                logger.warn("runtime.virtual-threads=true, mas o Java {} não tem threads virtuais; usando boundedElastic",
+                        Runtime.version().feature());
+            }
+            return Optional.empty();
+        }
+    }
+
+    private boolean executorVirtualDisponivel() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private boolean usarThreadsVirtuais() {
+        return !"false".equals(threadsVirtuais);
+    }
+}
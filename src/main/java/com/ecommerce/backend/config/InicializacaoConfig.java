@@ -0,0 +1,91 @@
+package com.ecommerce.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.ExecutableMode;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.web.server.WebFilter;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+
+/**
+ * Ajustes de inicialização do perfil startup (mvn -P startup package; ver o pom.xml):
+ *
+ * - Com spring.main.lazy-initialization=true, os beans só são criados no primeiro uso, exceto os
+ *   que precisam existir desde a subida: os que iniciam trabalho próprio (@PostConstruct, listeners,
+ *   agendamentos) e os WebFilters.
+ * - startup.training-run=true encerra a aplicação logo depois de pronta; é a execução de
+ *   treinamento que gera o arquivo AppCDS no build.
+ * - As dicas de reflexão dos modelos (desserializados pelo Jackson a partir do PostgREST) mantêm o
+ *   código pronto para o processamento AOT e para imagem nativa.
+ */
+@Configuration
+@ImportRuntimeHints(InicializacaoConfig.DicasReflexao.class)
+public class InicializacaoConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(InicializacaoConfig.class);
+
+    @Value("${startup.training-run:false}")
+    private boolean execucaoTreinamento;
+
+    @Bean
+    public static LazyInitializationExcludeFilter beansComInicializacaoPropria() {
+        return (nome, definicao, tipo) -> WebFilter.class.isAssignableFrom(tipo)
+                || Arrays.stream(ReflectionUtils.getUniqueDeclaredMethods(tipo)).anyMatch(InicializacaoConfig::iniciaTrabalho);
+    }
+
+    @EventListener
+    public void encerrarTreinamento(ApplicationReadyEvent evento) {
+        if (execucaoTreinamento) {
+            logger.info("Execução de treinamento concluída; encerrando");
+            System.exit(SpringApplication.exit(evento.getApplicationContext()));
+        }
+    }
+
+    private static boolean iniciaTrabalho(Method metodo) {
+        return metodo.isAnnotationPresent(PostConstruct.class)
+                || metodo.isAnnotationPresent(EventListener.class)
+                || metodo.isAnnotationPresent(Scheduled.class);
+    }
+
+    static class DicasReflexao implements RuntimeHintsRegistrar {
+
+        private static final String PACOTE_MODELOS = "com.ecommerce.backend.model";
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            BindingReflectionHintsRegistrar binding = new BindingReflectionHintsRegistrar();
+            ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+            scanner.addIncludeFilter(new AssignableTypeFilter(Object.class));
+            for (BeanDefinition modelo : scanner.findCandidateComponents(PACOTE_MODELOS)) {
+                binding.registerReflectionHints(hints.reflection(), ClassUtils.resolveClassName(modelo.getBeanClassName(), classLoader));
+            }
+            // Spool da fila de e-mails, lido e gravado pelo Jackson
+            binding.registerReflectionHints(hints.reflection(),
+                    ClassUtils.resolveClassName("com.ecommerce.backend.service.FilaEmailService$EmailPendente", classLoader));
+            // ExecucaoConfig procura as threads virtuais por reflexão para compilar com release 17
+            hints.reflection().registerType(Executors.class, tipo ->
+                    tipo.withMethod("newVirtualThreadPerTaskExecutor", List.of(), ExecutableMode.INVOKE));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.ecommerce.backend.config;
+
+import com.ecommerce.backend.filter.CorrelacaoIdFilter;
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+@Configuration
+public class ObservabilidadeConfig {
+
+    private static final String PREFIXO_REST = "/rest/v1/";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * Com a propagação automática de contexto do Reactor (ligada no main), o id de correlação
+     * guardado no contexto aparece no MDC em qualquer thread que processe a requisição.
+     */
+    @PostConstruct
+    public void registrarCorrelacaoNoMdc() {
+        ContextRegistry.getInstance().registerThreadLocalAccessor(CorrelacaoIdFilter.CHAVE_CONTEXTO,
+                () -> MDC.get(CorrelacaoIdFilter.CHAVE_CONTEXTO),
+                valor -> MDC.put(CorrelacaoIdFilter.CHAVE_CONTEXTO, valor),
+                () -> MDC.remove(CorrelacaoIdFilter.CHAVE_CONTEXTO));
+    }
+
+    /**
+     * Filtro dos WebClients do Supabase: repassa o id de correlação e mede a latência até a resposta
+     * (supabase.requests) e os erros (supabase.errors) por recurso do PostgREST.
+     */
+    @Bean
+    public ExchangeFilterFunction supabaseObservabilidadeFilter() {
+        return (request, next) -> Mono.deferContextual(contexto -> {
+            ClientRequest requisicao = contexto.<String>getOrEmpty(CorrelacaoIdFilter.CHAVE_CONTEXTO)
+                    .map(id -> ClientRequest.from(request).header(CorrelacaoIdFilter.HEADER, id).build())
+                    .orElse(request);
+            String recurso = recurso(request.url());
+            String metodo = request.method().name();
+            Timer.Sample amostra = Timer.start(meterRegistry);
+
+            return next.exchange(requisicao)
+                    .doOnSuccess(response -> {
+                        int status = response.statusCode().value();
+                        String resultado = status >= 500 ? "SERVER_ERROR" : status >= 400 ? "CLIENT_ERROR" : "SUCCESS";
+                        amostra.stop(timer(recurso, metodo, String.valueOf(status), resultado));
+                        if (status >= 400) {
+                            meterRegistry.counter("supabase.errors", "resource", recurso, "type", resultado).increment();
+                        }
+                    })
+                    .doOnError(e -> {
+                        amostra.stop(timer(recurso, metodo, "IO_ERROR", "ERROR"));
+                        meterRegistry.counter("supabase.errors", "resource", recurso, "type", e.getClass().getSimpleName()).increment();
+                    });
+        });
+    }
+
+    private Timer timer(String recurso, String metodo, String status, String resultado) {
+        return Timer.builder("supabase.requests")
+                .description("Latência das chamadas ao PostgREST até a resposta")
+                .tags("resource", recurso, "method", metodo, "status", status, "outcome", resultado)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Nome do recurso do PostgREST (tabela ou rpc/função) a partir da URL da chamada.
+     */
+    public static String recurso(URI url) {
+        String caminho = url.getPath();
+        int inicio = caminho.indexOf(PREFIXO_REST);
+        return inicio >= 0 ? caminho.substring(inicio + PREFIXO_REST.length()) : caminho;
+    }
+}
@@ -1,13 +1,41 @@
 package com.ecommerce.backend.config;
 
+import com.ecommerce.backend.resiliencia.ResilienciaSupabaseFilter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class SupabaseConfig {
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("supabaseObservabilidadeFilter")
+    private ExchangeFilterFunction supabaseObservabilidadeFilter;
+
+    @Autowired
+    private ResilienciaSupabaseFilter resilienciaSupabaseFilter;
+
     @Value("${supabase.url}")
     private String supabaseUrl;
 
@@ -17,25 +45,136 @@ public class SupabaseConfig {
     @Value("${supabase.service-role-key}")
     private String supabaseServiceRoleKey;
 
+    @Value("${supabase.codec.max-in-memory-size:1MB}")
+    private DataSize maxInMemorySize;
+
+    @Value("${supabase.http.event-loop-threads:0}")
+    private int threadsEventLoop;
+
+    @Value("${supabase.http.connect-timeout:5s}")
+    private Duration connectTimeout;
+
+    @Value("${supabase.http.response-timeout:30s}")
+    private Duration responseTimeout;
+
+    @Value("${supabase.http.read-timeout:60s}")
+    private Duration readTimeout;
+
+    @Value("${supabase.http.pending-acquire-timeout:10s}")
+    private Duration pendingAcquireTimeout;
+
+    @Value("${supabase.http.max-idle-time:30s}")
+    private Duration maxIdleTime;
+
+    @Value("${supabase.http.max-life-time:5m}")
+    private Duration maxLifeTime;
+
+    @Value("${supabase.http.evict-interval:30s}")
+    private Duration evictInterval;
+
+    @Value("${supabase.http.compress:true}")
+    private boolean compress;
+
+    @Value("${supabase.http.http2:true}")
+    private boolean http2;
+
+    @Value("${supabase.http.anon.max-connections:100}")
+    private int maxConexoesAnon;
+
+    @Value("${supabase.http.anon.pending-acquire-max-count:500}")
+    private int maxPendentesAnon;
+
+    @Value("${supabase.http.service.max-connections:20}")
+    private int maxConexoesService;
+
+    @Value("${supabase.http.service.pending-acquire-max-count:100}")
+    private int maxPendentesService;
+
+    /**
+     * Event loop único para os dois clientes do Supabase.
+     */
+    @Bean(destroyMethod = "dispose")
+    public LoopResources supabaseLoopResources() {
+        int threads = threadsEventLoop > 0 ? threadsEventLoop : Math.max(Runtime.getRuntime().availableProcessors(), 4);
+        return LoopResources.create("supabase-http", threads, true);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseConnectionProvider() {
+        return criarPool("supabase-anon", maxConexoesAnon, maxPendentesAnon);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider supabaseServiceConnectionProvider() {
+        return criarPool("supabase-service", maxConexoesService, maxPendentesService);
+    }
+
     @Bean
-    public WebClient supabaseWebClient() {
-        return WebClient.builder()
-                .baseUrl(supabaseUrl + "/rest/v1")
-                .defaultHeader("apikey", supabaseAnonKey)
-                .defaultHeader("Authorization", "Bearer " + supabaseAnonKey)
-                .defaultHeader("Content-Type", "application/json")
-                .defaultHeader("Prefer", "return=representation")
-                .build();
+    public WebClient supabaseWebClient(WebClient.Builder builder, ObjectMapper objectMapper, LoopResources supabaseLoopResources,
+                                       @Qualifier("supabaseConnectionProvider") ConnectionProvider connectionProvider) {
+        return criarWebClient(builder, objectMapper, criarHttpClient(connectionProvider, supabaseLoopResources), supabaseAnonKey);
     }
 
     @Bean
-    public WebClient supabaseServiceWebClient() {
-        return WebClient.builder()
+    public WebClient supabaseServiceWebClient(WebClient.Builder builder, ObjectMapper objectMapper, LoopResources supabaseLoopResources,
+                                              @Qualifier("supabaseServiceConnectionProvider") ConnectionProvider connectionProvider) {
+        return criarWebClient(builder, objectMapper, criarHttpClient(connectionProvider, supabaseLoopResources), supabaseServiceRoleKey);
+    }
+
+    /**
+     * Pool com tamanho e fila de espera limitados: quando todas as conexões estão ocupadas e a fila
+     * está cheia, a aquisição falha na hora em vez de acumular pedidos pendentes sem limite.
+     * Conexões ociosas ou antigas demais são despejadas em segundo plano. As métricas do pool
+     * (reactor.netty.connection.provider.*) vão para o registro global do Micrometer.
+     */
+    private ConnectionProvider criarPool(String nome, int maxConexoes, int maxPendentes) {
+        return ConnectionProvider.builder(nome)
+                .maxConnections(maxConexoes)
+                .pendingAcquireMaxCount(maxPendentes)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictInterval)
+                .metrics(true)
+                .build();
+    }
+
+    private HttpClient criarHttpClient(ConnectionProvider connectionProvider, LoopResources loopResources) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .runOn(loopResources)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .responseTimeout(responseTimeout)
+                .doOnConnected(conexao -> conexao.addHandlerLast(new ReadTimeoutHandler(readTimeout.toMillis(), TimeUnit.MILLISECONDS)))
+                .compress(compress);
+        if (http2 && supabaseUrl.startsWith("https")) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        return httpClient;
+    }
+
+    /**
+     * Os dois clientes decodificam as respostas do PostgREST com o ObjectMapper da aplicação,
+     * direto dos buffers da rede: com bodyToFlux o array JSON é tokenizado de forma não bloqueante
+     * e cada elemento é emitido assim que chega, sem materializar a resposta inteira como String.
+     * O limite de memória vale por elemento, não pela resposta. O decodificador e o filtro de
+     * observabilidade registram as métricas de latência e decodificação por recurso; o filtro de
+     * resiliência vem antes, então cada tentativa (inclusive de hedge) é medida separadamente.
+     */
+    private WebClient criarWebClient(WebClient.Builder builder, ObjectMapper objectMapper, HttpClient httpClient, String chave) {
+        return builder
                 .baseUrl(supabaseUrl + "/rest/v1")
-                .defaultHeader("apikey", supabaseServiceRoleKey)
-                .defaultHeader("Authorization", "Bearer " + supabaseServiceRoleKey)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader("apikey", chave)
+                .defaultHeader("Authorization", "Bearer " + chave)
                 .defaultHeader("Content-Type", "application/json")
                 .defaultHeader("Prefer", "return=representation")
+                .filter(resilienciaSupabaseFilter)
+                .filter(supabaseObservabilidadeFilter)
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonDecoder(new DecodificadorJsonInstrumentado(objectMapper, meterRegistry));
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().maxInMemorySize((int) maxInMemorySize.toBytes());
+                })
                 .build();
     }
 
@@ -0,0 +1,48 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.service.CacheService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Estatísticas e invalidação dos caches locais, no actuator (/actuator/cachelocal): fica na porta
+ * de gerenciamento (management.server.port), fora da API pública.
+ */
+@Component
+@WebEndpoint(id = "cachelocal")
+public class CacheEndpoint {
+
+    @Autowired
+    private CacheService cacheService;
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> estatisticas() {
+        return cacheService.estatisticas();
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Map<String, String>> invalidarCache(@Selector String nomeCache) {
+        return executar(() -> cacheService.invalidarTudo(nomeCache));
+    }
+
+    @DeleteOperation
+    public WebEndpointResponse<Map<String, String>> invalidarChave(@Selector String nomeCache, @Selector String id) {
+        return executar(() -> cacheService.invalidar(nomeCache, id));
+    }
+
+    private static WebEndpointResponse<Map<String, String>> executar(Runnable invalidacao) {
+        try {
+            invalidacao.run();
+            return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NO_CONTENT);
+        } catch (IllegalArgumentException e) {
+            return new WebEndpointResponse<>(Map.of("error", e.getMessage()), WebEndpointResponse.STATUS_BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.resiliencia.ResilienciaSupabaseFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Estado do circuit breaker de cada recurso do Supabase, no actuator (/actuator/circuitos).
+ */
+@Component
+@Endpoint(id = "circuitos")
+public class CircuitosEndpoint {
+
+    @Autowired
+    private ResilienciaSupabaseFilter resilienciaSupabaseFilter;
+
+    @ReadOperation
+    public Map<String, String> estados() {
+        Map<String, String> estados = new TreeMap<>();
+        resilienciaSupabaseFilter.getDisjuntores().forEach((recurso, disjuntor) -> estados.put(recurso, disjuntor.getEstado().name()));
+        return estados;
+    }
+}
@@ -0,0 +1,73 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.estoque.EstoqueInsuficienteException;
+import com.ecommerce.backend.estoque.EstoqueNaoCarregadoException;
+import com.ecommerce.backend.model.ReservaEstoque;
+import com.ecommerce.backend.model.SaldoEstoque;
+import com.ecommerce.backend.model.SolicitacaoReserva;
+import com.ecommerce.backend.service.EstoqueService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/estoque")
+public class EstoqueController {
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @GetMapping("/{produtoId}")
+    public ResponseEntity<SaldoEstoque> saldo(@PathVariable String produtoId) {
+        return estoqueService.saldo(produtoId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/reservas")
+    public ResponseEntity<?> reservar(@RequestBody SolicitacaoReserva solicitacao) {
+        if (!estoqueService.isAtivo()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (solicitacao.itens() == null || solicitacao.itens().isEmpty()
+                || solicitacao.itens().values().stream().anyMatch(quantidade -> quantidade == null || quantidade < 1)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "itens deve ter ao menos um produto com quantidade positiva"));
+        }
+        if (solicitacao.ttlSegundos() != null && solicitacao.ttlSegundos() < 1) {
+            return ResponseEntity.badRequest().body(Map.of("error", "ttl_segundos deve ser positivo"));
+        }
+        Duration ttl = solicitacao.ttlSegundos() == null ? null : Duration.ofSeconds(solicitacao.ttlSegundos());
+        ReservaEstoque reserva = estoqueService.reservar(solicitacao.pedidoId(), solicitacao.itens(), ttl);
+        return ResponseEntity.status(HttpStatus.CREATED).body(reserva);
+    }
+
+    @PostMapping("/reservas/{reservaId}/confirmar")
+    public ResponseEntity<Void> confirmar(@PathVariable String reservaId) {
+        return estoqueService.confirmar(reservaId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @DeleteMapping("/reservas/{reservaId}")
+    public ResponseEntity<Void> liberar(@PathVariable String reservaId) {
+        return estoqueService.liberar(reservaId) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    @ExceptionHandler(EstoqueInsuficienteException.class)
+    public ResponseEntity<Map<String, Object>> estoqueInsuficiente(EstoqueInsuficienteException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", e.getMessage(),
+                "produto_id", e.getProdutoId(),
+                "disponivel", e.getDisponivel()));
+    }
+
+    @ExceptionHandler(EstoqueNaoCarregadoException.class)
+    public ResponseEntity<Map<String, String>> estoqueNaoCarregado(EstoqueNaoCarregadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", e.getMessage()));
+    }
+}
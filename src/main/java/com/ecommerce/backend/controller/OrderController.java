@@ -1,19 +1,55 @@
 package com.ecommerce.backend.controller;
 
+import com.ecommerce.backend.estoque.EstoqueInsuficienteException;
+import com.ecommerce.backend.estoque.EstoqueNaoCarregadoException;
+import com.ecommerce.backend.model.ImportacaoPedidos;
+import com.ecommerce.backend.model.NovoPedido;
 import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.resiliencia.SupabaseIndisponivelException;
+import com.ecommerce.backend.service.ArrowExportService;
+import com.ecommerce.backend.service.CompressaoService;
+import com.ecommerce.backend.service.CriacaoPedidoService;
 import com.ecommerce.backend.service.CsvExportService;
+import com.ecommerce.backend.service.ExportacaoZipService;
+import com.ecommerce.backend.service.FeedPedidosService;
+import com.ecommerce.backend.service.IdempotenciaService;
 import com.ecommerce.backend.service.OrderService;
+import com.ecommerce.backend.service.SnapshotService;
+import com.ecommerce.backend.service.ValidadorService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
@@ -21,83 +57,440 @@ public class OrderController {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderController.class);
 
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType ARROW_STREAM = MediaType.parseMediaType("application/vnd.apache.arrow.stream");
+
     @Autowired
     private OrderService orderService;
 
     @Autowired
     private CsvExportService csvExportService;
 
+    @Autowired
+    private CompressaoService compressaoService;
+
+    @Autowired
+    private ExportacaoZipService exportacaoZipService;
+
+    @Autowired
+    private ArrowExportService arrowExportService;
+
+    @Autowired
+    private FeedPedidosService feedPedidosService;
+
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private CriacaoPedidoService criacaoPedidoService;
+
+    @Autowired
+    private ValidadorService validadorService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Value("${pedidos.batch.max-ids:1000}")
+    private int maxIdsLote;
+
+    @Value("${pedidos.feed.heartbeat:15s}")
+    private Duration intervaloHeartbeat;
+
+    @Value("${pedidos.import.max-orders:10000}")
+    private int maxPedidosImportacao;
+
+    /**
+     * ETag fraco derivado do updated_at (ou hash do JSON, quando não há updated_at) e Last-Modified.
+     * Um If-None-Match igual ao validador conferido há menos de http.validators.max-age é respondido
+     * com 304 sem consultar o Supabase. Com o Supabase inacessível, responde do snapshot local (se o
+     * pedido estiver nele) com Warning 110 e Age.
+     */
     @GetMapping("/pedidos/{pedidoId}")
-    public Mono<ResponseEntity<?>> buscarPedido(@PathVariable String pedidoId) {
+    public Mono<ResponseEntity<?>> buscarPedido(
+            @PathVariable String pedidoId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        String chave = ValidadorService.chavePedido(pedidoId);
+        Optional<ResponseEntity<Pedido>> naoModificado = naoModificadoSemConsulta(chave, "pedido", null, ifNoneMatch, ifModifiedSince);
+        if (naoModificado.isPresent()) {
+            return Mono.just(naoModificado.get());
+        }
         return orderService.buscarPedidoPorId(pedidoId)
-                .map(pedido -> {
-                    if (pedido != null) {
-                        return ResponseEntity.ok(pedido);
-                    } else {
-                        return ResponseEntity.notFound().build();
-                    }
+                .<ResponseEntity<?>>map(pedido -> {
+                    ValidadorService.Validador validador = pedido.getUpdatedAt() != null
+                            ? validadorService.registrar(chave, ValidadorService.hash(
+                                    (pedido.getId() + "|" + pedido.getUpdatedAt()).getBytes(StandardCharsets.UTF_8)),
+                                    true, instante(pedido.getUpdatedAt()))
+                            : validadorService.registrar(chave, ValidadorService.hash(json(pedido)), false,
+                                    instante(pedido.getCreatedAt()));
+                    return respostaCondicional(validador, null, "pedido", ifNoneMatch, ifModifiedSince,
+                            () -> ResponseEntity.ok()
+                                    .eTag(validador.etag(null))
+                                    .lastModified(validador.ultimaModificacao())
+                                    .body(pedido));
                 })
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(SnapshotService::upstreamIndisponivel, e -> snapshotService.buscarPedido(pedidoId)
+                        .<Mono<ResponseEntity<?>>>map(pedido -> Mono.just(ResponseEntity.ok()
+                                .header(HttpHeaders.WARNING, SnapshotService.AVISO_DESATUALIZADO)
+                                .header(HttpHeaders.AGE, String.valueOf(snapshotService.getIdadeSegundos()))
+                                .body(pedido)))
+                        .orElseGet(() -> Mono.error(e)))
+                .onErrorResume(SupabaseIndisponivelException.class, e -> Mono.just(supabaseIndisponivel(e)))
                 .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
     }
 
+    /**
+     * Cria o pedido (status pendente) com todos os itens; preços e total são calculados no servidor.
+     */
+    @PostMapping("/pedidos")
+    public Mono<ResponseEntity<?>> criarPedido(@Valid @RequestBody NovoPedido novoPedido) {
+        return criacaoPedidoService.criarPedido(novoPedido)
+                .<ResponseEntity<?>>map(pedido -> ResponseEntity.created(URI.create("/api/pedidos/" + pedido.getId())).body(pedido))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.unprocessableEntity()
+                        .body(Map.of("error", e.getMessage()))))
+                .onErrorResume(SupabaseIndisponivelException.class, e -> Mono.just(supabaseIndisponivel(e)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Erro ao criar pedido")));
+    }
+
+    @PostMapping("/pedidos/importacao")
+    public Mono<ResponseEntity<?>> importarPedidos(@Valid @RequestBody ImportacaoPedidos importacao) {
+        if (importacao.pedidos().size() > maxPedidosImportacao) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(Map.of("error", "No máximo " + maxPedidosImportacao + " pedidos por importação")));
+        }
+        return criacaoPedidoService.importarPedidos(importacao.pedidos())
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(ResponseEntity.unprocessableEntity()
+                        .body(Map.of("error", e.getMessage()))))
+                .onErrorResume(SupabaseIndisponivelException.class, e -> Mono.just(supabaseIndisponivel(e)))
+                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("error", "Erro ao importar pedidos")));
+    }
+
+    @PostMapping("/pedidos/batch")
+    public ResponseEntity<Flux<Pedido>> buscarPedidosEmLote(@RequestBody List<String> pedidoIds) {
+        if (pedidoIds.size() > maxIdsLote) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderService.buscarPedidosPorIds(pedidoIds));
+    }
+
     @GetMapping("/clientes/{clienteId}/pedidos")
-    public Mono<ResponseEntity<List<Pedido>>> listarPedidosDoCliente(@PathVariable String clienteId) {
-        return orderService.listarPedidosPorCliente(clienteId)
-                .map(ResponseEntity::ok)
-                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    public ResponseEntity<Flux<Pedido>> listarPedidosDoCliente(@PathVariable String clienteId) {
+        return ResponseEntity.ok(orderService.listarPedidosPorCliente(clienteId));
+    }
+
+    /**
+     * Server-Sent Events com os pedidos do cliente: um evento "snapshot" com a lista atual e depois
+     * um evento "pedido" por alteração. A lista do snapshot substitui o estado do cliente, então uma
+     * alteração que chegue antes dela pode ser ignorada.
+     */
+    @GetMapping(value = "/clientes/{clienteId}/pedidos/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<?>> acompanharPedidosDoCliente(@PathVariable String clienteId) {
+        Flux<ServerSentEvent<?>> alteracoes = feedPedidosService.alteracoesDoCliente(clienteId)
+                .map(alteracao -> ServerSentEvent.builder(alteracao)
+                        .event("pedido")
+                        .id(alteracao.getPedido().getId())
+                        .build());
+        Mono<ServerSentEvent<?>> snapshot = orderService.listarPedidosPorCliente(clienteId)
+                .collectList()
+                .map(pedidos -> ServerSentEvent.builder(pedidos)
+                        .event("snapshot")
+                        .retry(Duration.ofSeconds(5))
+                        .build());
+        Flux<ServerSentEvent<?>> heartbeat = Flux.interval(intervaloHeartbeat)
+                .map(i -> ServerSentEvent.builder().comment("keep-alive").build());
+        return Flux.merge(alteracoes, snapshot, heartbeat);
     }
 
+    /**
+     * Idempotente: repetir a chamada (com ou sem Idempotency-Key) não reenvia o e-mail.
+     * Uma Idempotency-Key reaproveitada para outro pedido é rejeitada com 422.
+     */
     @PostMapping("/pedidos/{pedidoId}/confirmar")
-    public Mono<ResponseEntity<Map<String, String>>> confirmarPedido(@PathVariable String pedidoId) {
+    public Mono<ResponseEntity<Map<String, String>>> confirmarPedido(
+            @PathVariable String pedidoId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String chaveIdempotencia) {
+        if (chaveIdempotencia != null && !idempotenciaService.vincularChave(chaveIdempotencia, "confirmar", pedidoId)) {
+            return Mono.just(ResponseEntity.unprocessableEntity()
+                    .body(Map.of("error", "Idempotency-Key já utilizada para outro pedido")));
+        }
         return orderService.processarConfirmacaoPedido(pedidoId)
-                .then(Mono.just(ResponseEntity.ok(Map.of("message", "E-mail de confirmação enviado com sucesso!"))))
+                .map(resultado -> ResponseEntity.ok(Map.of(
+                        "message", resultado.isEmailEnfileirado()
+                                ? "E-mail de confirmação enfileirado para envio!"
+                                : "Pedido já processado; e-mail não reenviado",
+                        "status", resultado.getStatus(),
+                        "email_enfileirado", String.valueOf(resultado.isEmailEnfileirado()))))
+                .onErrorResume(SupabaseIndisponivelException.class, e -> Mono.just(supabaseIndisponivel(e)))
+                .onErrorResume(EstoqueInsuficienteException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", e.getMessage(), "produto_id", e.getProdutoId()))))
+                .onErrorResume(EstoqueNaoCarregadoException.class, e -> Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(Map.of("error", e.getMessage()))))
                 .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                         .body(Map.of("error", "Erro ao processar confirmação do pedido")));
     }
 
     @GetMapping("/pedidos/{pedidoId}/export/csv")
-    public Mono<ResponseEntity<String>> exportarPedidoCSV(@PathVariable String pedidoId) {
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportarPedidoCSV(
+            @PathVariable String pedidoId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        String chave = ValidadorService.chavePedidoCsv(pedidoId);
+        CompressaoService.Codificacao codificacao = compressaoService.negociar(acceptEncoding);
+        Optional<ResponseEntity<Flux<DataBuffer>>> naoModificado =
+                naoModificadoSemConsulta(chave, "pedido_csv", codificacao, ifNoneMatch, ifModifiedSince);
+        if (naoModificado.isPresent()) {
+            return Mono.just(naoModificado.get());
+        }
         return csvExportService.exportarPedidoParaCSV(pedidoId)
                 .map(csvContent -> {
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.parseMediaType("text/csv"));
-                    headers.setContentDispositionFormData("attachment", "pedido_" + pedidoId + ".csv");
-                    return ResponseEntity.ok()
-                            .headers(headers)
-                            .body(csvContent);
+                    byte[] bytes = csvContent.getBytes(StandardCharsets.UTF_8);
+                    ValidadorService.Validador validador =
+                            validadorService.registrar(chave, ValidadorService.hash(bytes), false, null);
+                    return respostaCondicional(validador, codificacao, "pedido_csv", ifNoneMatch, ifModifiedSince,
+                            () -> respostaDownload("pedido_" + pedidoId + ".csv", "pedido", TEXT_CSV,
+                                    Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(bytes)), codificacao, validador));
+                })
+                .onErrorResume(SupabaseIndisponivelException.class, e -> {
+                    ResponseEntity<Map<String, String>> resposta = supabaseIndisponivel(e);
+                    return Mono.just(ResponseEntity.status(resposta.getStatusCode())
+                            .headers(resposta.getHeaders())
+                            .contentType(MediaType.TEXT_PLAIN)
+                            .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                                    resposta.getBody().get("error").getBytes(StandardCharsets.UTF_8)))));
                 })
                 .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Erro ao gerar CSV do pedido"));
+                        .contentType(MediaType.TEXT_PLAIN)
+                        .body(Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(
+                                "Erro ao gerar CSV do pedido".getBytes(StandardCharsets.UTF_8)))));
     }
 
     @GetMapping("/produtos/export/csv")
-    public Mono<ResponseEntity<String>> exportarProdutosCSV() {
-        return csvExportService.exportarProdutosParaCSV()
-                .map(csvContent -> {
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.parseMediaType("text/csv"));
-                    headers.setContentDispositionFormData("attachment", "produtos.csv");
-                    return ResponseEntity.ok()
-                            .headers(headers)
-                            .body(csvContent);
-                })
-                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Erro ao gerar CSV dos produtos"));
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportarProdutosCSV(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return exportacaoCondicional("produtos", csvExportService::exportarProdutosParaCSVStream,
+                acceptEncoding, ifNoneMatch, ifModifiedSince);
     }
 
     @GetMapping("/clientes/export/csv")
-    public Mono<ResponseEntity<String>> exportarClientesCSV() {
-        return csvExportService.exportarClientesParaCSV()
-                .map(csvContent -> {
-                    HttpHeaders headers = new HttpHeaders();
-                    headers.setContentType(MediaType.parseMediaType("text/csv"));
-                    headers.setContentDispositionFormData("attachment", "clientes.csv");
-                    return ResponseEntity.ok()
-                            .headers(headers)
-                            .body(csvContent);
+    public Mono<ResponseEntity<Flux<DataBuffer>>> exportarClientesCSV(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.IF_MODIFIED_SINCE, required = false) String ifModifiedSince) {
+        return exportacaoCondicional("clientes", csvExportService::exportarClientesParaCSVStream,
+                acceptEncoding, ifNoneMatch, ifModifiedSince);
+    }
+
+    /**
+     * Exportações em stream não conhecem o hash do conteúdo antes de enviá-lo, então o ETag é fraco e
+     * vem da versão da tabela (maior updated_at e total de linhas), lida numa consulta de uma linha.
+     * Dentro da janela de validade o validador guardado responde sem consulta; fora dela a versão é
+     * relida antes de decidir entre 304 e o download. Como a versão é lida antes do stream, o ETag
+     * enviado nunca é mais novo que o corpo: no pior caso o cliente baixa de novo sem precisar.
+     */
+    private Mono<ResponseEntity<Flux<DataBuffer>>> exportacaoCondicional(String tabela, Supplier<Flux<DataBuffer>> exportacao,
+                                                                         String acceptEncoding, String ifNoneMatch,
+                                                                         String ifModifiedSince) {
+        String chave = ValidadorService.chaveExportacao(tabela);
+        CompressaoService.Codificacao codificacao = compressaoService.negociar(acceptEncoding);
+        Optional<ValidadorService.Validador> conhecido = validadorService.buscar(chave);
+        if (conhecido.isPresent() && validadorService.fresco(conhecido.get())) {
+            return Mono.just(respostaCondicional(conhecido.get(), codificacao, tabela + "_csv", ifNoneMatch, ifModifiedSince,
+                    () -> respostaDownload(tabela + ".csv", tabela, TEXT_CSV, exportacao.get(), codificacao, conhecido.get()), true));
+        }
+        return csvExportService.versaoTabela(tabela)
+                .map(versao -> {
+                    ValidadorService.Validador validador = validadorService.registrar(chave,
+                            ValidadorService.hash(versao.getBytes(StandardCharsets.UTF_8)), true, null);
+                    return respostaCondicional(validador, codificacao, tabela + "_csv", ifNoneMatch, ifModifiedSince,
+                            () -> respostaDownload(tabela + ".csv", tabela, TEXT_CSV, exportacao.get(), codificacao, validador));
                 })
-                .onErrorReturn(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                        .body("Erro ao gerar CSV dos clientes"));
+                .onErrorResume(e -> {
+                    logger.warn("Versão de {} indisponível; exportando sem validador: {}", tabela, e.getMessage());
+                    validadorService.registrarResultado(tabela + "_csv", "full");
+                    return Mono.just(respostaDownload(tabela + ".csv", tabela, TEXT_CSV, exportacao.get(), codificacao, null));
+                });
+    }
+
+    /**
+     * Exportação completa (produtos, clientes, pedidos e itens) em um ZIP com um CSV por tabela.
+     * O período filtra por created_at e as duas datas são inclusivas.
+     */
+    @GetMapping("/export/zip")
+    public ResponseEntity<Flux<DataBuffer>> exportarTudoZip(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        if (inicio != null && fim != null && inicio.isAfter(fim)) {
+            return ResponseEntity.badRequest().build();
+        }
+        String nomeArquivo = "exportacao" + (inicio != null ? "_" + inicio : "") + (fim != null ? "_" + fim : "") + ".zip";
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType("application/zip"));
+        headers.setContentDispositionFormData("attachment", nomeArquivo);
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(exportacaoZipService.exportarTudoParaZip(
+                        inicio != null ? inicio.atStartOfDay() : null,
+                        fim != null ? fim.plusDays(1).atStartOfDay() : null));
+    }
+
+    /**
+     * Exportação colunar de uma tabela (produtos, clientes, pedidos, pedido_itens) em Arrow IPC stream,
+     * com o mesmo filtro opcional de período da exportação completa.
+     */
+    @GetMapping("/export/arrow/{tabela}")
+    public ResponseEntity<Flux<DataBuffer>> exportarArrow(
+            @PathVariable String tabela,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (!arrowExportService.suporta(tabela)) {
+            return ResponseEntity.notFound().build();
+        }
+        if (inicio != null && fim != null && inicio.isAfter(fim)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return respostaDownload(tabela + ".arrows", tabela + "_arrow", ARROW_STREAM,
+                arrowExportService.exportarParaArrow(tabela,
+                        inicio != null ? inicio.atStartOfDay() : null,
+                        fim != null ? fim.plusDays(1).atStartOfDay() : null),
+                compressaoService.negociar(acceptEncoding), null);
+    }
+
+    /**
+     * Monta a resposta do download negociando gzip/zstd pelo Accept-Encoding; o corpo continua em stream.
+     */
+    private ResponseEntity<Flux<DataBuffer>> respostaDownload(String nomeArquivo, String exportacao, MediaType tipo,
+                                                              Flux<DataBuffer> conteudo,
+                                                              CompressaoService.Codificacao codificacao,
+                                                              ValidadorService.Validador validador) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(tipo);
+        headers.setContentDispositionFormData("attachment", nomeArquivo);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (codificacao != CompressaoService.Codificacao.IDENTITY) {
+            headers.set(HttpHeaders.CONTENT_ENCODING, codificacao.getValor());
+        }
+        if (validador != null) {
+            headers.setETag(validador.etag(codificacao));
+            headers.setLastModified(validador.ultimaModificacao());
+        }
+        return ResponseEntity.ok()
+                .headers(headers)
+                .body(compressaoService.comprimir(conteudo, codificacao, exportacao));
+    }
+
+    /**
+     * 304 direto do validador guardado, quando ele ainda está dentro da janela de validade.
+     */
+    private <T> Optional<ResponseEntity<T>> naoModificadoSemConsulta(String chave, String recurso,
+                                                                     CompressaoService.Codificacao codificacao,
+                                                                     String ifNoneMatch, String ifModifiedSince) {
+        if (ifNoneMatch == null && ifModifiedSince == null) {
+            return Optional.empty();
+        }
+        return validadorService.buscar(chave)
+                .filter(validadorService::fresco)
+                .filter(validador -> naoModificado(validador, codificacao, ifNoneMatch, ifModifiedSince))
+                .map(validador -> {
+                    validadorService.registrarResultado(recurso, "not_modified_cached");
+                    return naoModificado(validador, codificacao);
+                });
+    }
+
+    private <T> ResponseEntity<T> respostaCondicional(ValidadorService.Validador validador,
+                                                      CompressaoService.Codificacao codificacao, String recurso,
+                                                      String ifNoneMatch, String ifModifiedSince,
+                                                      Supplier<ResponseEntity<T>> resposta) {
+        return respostaCondicional(validador, codificacao, recurso, ifNoneMatch, ifModifiedSince, resposta, false);
+    }
+
+    private <T> ResponseEntity<T> respostaCondicional(ValidadorService.Validador validador,
+                                                      CompressaoService.Codificacao codificacao, String recurso,
+                                                      String ifNoneMatch, String ifModifiedSince,
+                                                      Supplier<ResponseEntity<T>> resposta, boolean semConsulta) {
+        if (naoModificado(validador, codificacao, ifNoneMatch, ifModifiedSince)) {
+            validadorService.registrarResultado(recurso, semConsulta ? "not_modified_cached" : "not_modified");
+            return naoModificado(validador, codificacao);
+        }
+        validadorService.registrarResultado(recurso, "full");
+        return resposta.get();
+    }
+
+    /**
+     * If-None-Match tem precedência; If-Modified-Since só é avaliado sem ele (RFC 9110, 13.2.2).
+     */
+    private boolean naoModificado(ValidadorService.Validador validador, CompressaoService.Codificacao codificacao,
+                                  String ifNoneMatch, String ifModifiedSince) {
+        if (ifNoneMatch != null) {
+            return ValidadorService.corresponde(ifNoneMatch, validador.etag(codificacao));
+        }
+        if (ifModifiedSince != null) {
+            try {
+                Instant desde = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+                return !validador.ultimaModificacao().isAfter(desde);
+            } catch (DateTimeParseException e) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static <T> ResponseEntity<T> naoModificado(ValidadorService.Validador validador,
+                                                       CompressaoService.Codificacao codificacao) {
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(validador.etag(codificacao))
+                .lastModified(validador.ultimaModificacao());
+        if (codificacao != null) {
+            resposta.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        }
+        return resposta.build();
+    }
+
+    private static Instant instante(LocalDateTime dataHora) {
+        return dataHora != null ? dataHora.toInstant(ZoneOffset.UTC) : null;
+    }
+
+    private byte[] json(Pedido pedido) {
+        try {
+            return objectMapper.writeValueAsBytes(pedido);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar pedido " + pedido.getId(), e);
+        }
+    }
+
+    /**
+     * Falha rápida da camada de resiliência (circuito aberto, limite de concorrência, prazo esgotado):
+     * 503 com Retry-After, ou 504 quando o prazo da requisição acabou.
+     */
+    @ExceptionHandler(SupabaseIndisponivelException.class)
+    public ResponseEntity<Map<String, String>> supabaseIndisponivel(SupabaseIndisponivelException e) {
+        logger.warn("Chamada ao Supabase rejeitada: {}", e.getMessage());
+        if (e.getMotivo() == SupabaseIndisponivelException.Motivo.PRAZO_ESGOTADO) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT)
+                    .body(Map.of("error", "Prazo da requisição esgotado"));
+        }
+        long segundos = Math.max(1, (e.getTentarNovamenteEm().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(segundos))
+                .body(Map.of("error", "Supabase temporariamente indisponível"));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<Map<String, Object>> payloadInvalido(WebExchangeBindException e) {
+        Map<String, String> campos = new TreeMap<>();
+        e.getFieldErrors().forEach(erro -> campos.putIfAbsent(erro.getField(), erro.getDefaultMessage()));
+        return ResponseEntity.badRequest().body(Map.of("error", "Payload inválido", "campos", campos));
     }
 
     @GetMapping("/health")
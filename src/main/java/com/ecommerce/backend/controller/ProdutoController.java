@@ -0,0 +1,80 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.model.Produto;
+import com.ecommerce.backend.service.CatalogoService;
+import com.ecommerce.backend.service.ProdutoService;
+import com.ecommerce.backend.service.SnapshotService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/produtos")
+public class ProdutoController {
+
+    private static final int TAMANHO_MAXIMO = 100;
+
+    @Autowired
+    private CatalogoService catalogoService;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    /**
+     * Busca no catálogo em memória: q (termos por prefixo em nome/descrição), faixa de preço,
+     * só com estoque, ordenação por preço e paginação a partir de 0. Não consulta o Supabase.
+     */
+    @GetMapping
+    public ResponseEntity<?> pesquisar(@RequestParam(required = false) String q,
+                                       @RequestParam(required = false) BigDecimal precoMin,
+                                       @RequestParam(required = false) BigDecimal precoMax,
+                                       @RequestParam(defaultValue = "false") boolean emEstoque,
+                                       @RequestParam(defaultValue = "preco") String ordenarPor,
+                                       @RequestParam(defaultValue = "0") int pagina,
+                                       @RequestParam(defaultValue = "20") int tamanho) {
+        if (pagina < 0 || tamanho < 1 || tamanho > TAMANHO_MAXIMO) {
+            return ResponseEntity.badRequest().body(Map.of("error", "pagina deve ser >= 0 e tamanho entre 1 e " + TAMANHO_MAXIMO));
+        }
+        if (!ordenarPor.equals("preco") && !ordenarPor.equals("preco_desc")) {
+            return ResponseEntity.badRequest().body(Map.of("error", "ordenarPor deve ser preco ou preco_desc"));
+        }
+        if (precoMin != null && precoMax != null && precoMax.compareTo(precoMin) < 0) {
+            return ResponseEntity.badRequest().body(Map.of("error", "precoMax deve ser maior ou igual a precoMin"));
+        }
+        return catalogoService.pesquisar(q, precoMin, precoMax, emEstoque, ordenarPor.equals("preco_desc"), pagina, tamanho)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(this::catalogoIndisponivel);
+    }
+
+    /**
+     * Produto pelo id: do catálogo quando carregado, senão pelo cache/Supabase. Com o Supabase
+     * inacessível, do snapshot local com Warning 110 e Age.
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Produto>> buscarProduto(@PathVariable String id) {
+        return produtoService.buscarProdutoPorId(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build())
+                .onErrorResume(SnapshotService::upstreamIndisponivel, e -> snapshotService.buscarProduto(id)
+                        .map(produto -> Mono.just(ResponseEntity.ok()
+                                .header(HttpHeaders.WARNING, SnapshotService.AVISO_DESATUALIZADO)
+                                .header(HttpHeaders.AGE, String.valueOf(snapshotService.getIdadeSegundos()))
+                                .body(produto)))
+                        .orElseGet(() -> Mono.error(e)));
+    }
+
+    private ResponseEntity<?> catalogoIndisponivel() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("error", "Catálogo de produtos ainda sendo carregado"));
+    }
+}
@@ -0,0 +1,55 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.service.RelatorioVendasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/relatorios")
+public class RelatorioController {
+
+    @Autowired
+    private RelatorioVendasService relatorioVendasService;
+
+    @GetMapping("/resumo")
+    public ResponseEntity<?> resumo() {
+        return responder(relatorioVendasService.resumo());
+    }
+
+    @GetMapping("/receita-diaria")
+    public ResponseEntity<?> receitaDiaria(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate inicio,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fim) {
+        if (fim.isBefore(inicio)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "fim deve ser igual ou posterior a inicio"));
+        }
+        return responder(relatorioVendasService.vendasPorDia(inicio, fim));
+    }
+
+    @GetMapping("/produtos-mais-vendidos")
+    public ResponseEntity<?> produtosMaisVendidos(@RequestParam(defaultValue = "10") int limite,
+                                                  @RequestParam(defaultValue = "quantidade") String ordenarPor) {
+        if (limite < 1 || limite > 1000 || !(ordenarPor.equals("quantidade") || ordenarPor.equals("receita"))) {
+            return ResponseEntity.badRequest().body(Map.of("error", "limite deve estar entre 1 e 1000 e ordenarPor ser quantidade ou receita"));
+        }
+        return responder(relatorioVendasService.produtosMaisVendidos(limite, ordenarPor.equals("receita")));
+    }
+
+    /**
+     * Enquanto a primeira agregação não termina não há o que responder: 503 com Retry-After.
+     */
+    private ResponseEntity<?> responder(Optional<?> resultado) {
+        return resultado.<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "5")
+                        .body(Map.of("error", "Relatórios de vendas ainda sendo calculados")));
+    }
+}
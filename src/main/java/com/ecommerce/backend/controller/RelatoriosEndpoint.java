@@ -0,0 +1,29 @@
+package com.ecommerce.backend.controller;
+
+import com.ecommerce.backend.service.RelatorioVendasService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Reconstrução dos relatórios de vendas, no actuator (POST /actuator/relatorios): relê pedidos e
+ * itens inteiros no Supabase, então fica na porta de gerenciamento, fora da API pública.
+ */
+@Component
+@WebEndpoint(id = "relatorios")
+public class RelatoriosEndpoint {
+
+    @Autowired
+    private RelatorioVendasService relatorioVendasService;
+
+    @WriteOperation
+    public WebEndpointResponse<Map<String, String>> reconstruir() {
+        relatorioVendasService.solicitarReconstrucao();
+        return new WebEndpointResponse<>(Map.of("message", "Reconstrução dos relatórios agendada"), HttpStatus.ACCEPTED.value());
+    }
+}
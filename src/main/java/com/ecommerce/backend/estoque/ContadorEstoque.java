@@ -0,0 +1,89 @@
+package com.ecommerce.backend.estoque;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Saldo de um produto em memória. Disponível e reservado ficam empacotados num único long (32 bits
+ * cada), então reservar, liberar e reconciliar são um compare-and-set só, sem trava. O pendente
+ * (baixas confirmadas que ainda não foram gravadas no Supabase) fica à parte.
+ *
+ * Invariante: disponível + reservado + pendente = estoque gravado no banco.
+ */
+public final class ContadorEstoque {
+
+    private final AtomicLong saldo = new AtomicLong();
+    private final AtomicInteger pendente = new AtomicInteger();
+
+    public ContadorEstoque(int disponivel) {
+        saldo.set(empacotar(disponivel, 0));
+    }
+
+    public boolean reservar(int quantidade) {
+        while (true) {
+            long atual = saldo.get();
+            int disponivel = disponivel(atual);
+            if (disponivel < quantidade) {
+                return false;
+            }
+            if (saldo.compareAndSet(atual, empacotar(disponivel - quantidade, reservado(atual) + quantidade))) {
+                return true;
+            }
+        }
+    }
+
+    public void liberar(int quantidade) {
+        saldo.updateAndGet(atual -> empacotar(disponivel(atual) + quantidade, reservado(atual) - quantidade));
+    }
+
+    /**
+     * O pendente sobe antes de o reservado descer: uma reconciliação que rode no meio conta a
+     * quantidade duas vezes e erra para menos (até a próxima), nunca para mais.
+     */
+    public void confirmar(int quantidade) {
+        pendente.addAndGet(quantidade);
+        saldo.updateAndGet(atual -> empacotar(disponivel(atual), reservado(atual) - quantidade));
+    }
+
+    public void baixaGravada(int quantidade) {
+        pendente.addAndGet(-quantidade);
+    }
+
+    /**
+     * Recalcula o disponível a partir do estoque lido do banco, preservando as reservas em aberto e
+     * as baixas ainda não gravadas. Só pode rodar sem gravação de baixas em andamento.
+     */
+    public void reconciliar(int estoqueNoBanco) {
+        while (true) {
+            long atual = saldo.get();
+            int reservado = reservado(atual);
+            if (saldo.compareAndSet(atual, empacotar(estoqueNoBanco - reservado - pendente.get(), reservado))) {
+                return;
+            }
+        }
+    }
+
+    public int getDisponivel() {
+        return disponivel(saldo.get());
+    }
+
+    public int getReservado() {
+        return reservado(saldo.get());
+    }
+
+    public int getPendente() {
+        return pendente.get();
+    }
+
+    private static long empacotar(int disponivel, int reservado) {
+        return ((long) disponivel << 32) | (reservado & 0xFFFFFFFFL);
+    }
+
+    private static int disponivel(long saldo) {
+        return (int) (saldo >> 32);
+    }
+
+    private static int reservado(long saldo) {
+        return (int) saldo;
+    }
+}
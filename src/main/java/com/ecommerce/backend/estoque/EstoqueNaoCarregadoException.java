@@ -0,0 +1,12 @@
+package com.ecommerce.backend.estoque;
+
+/**
+ * Os saldos ainda não foram carregados do Supabase (subida da aplicação): reservas são recusadas
+ * em vez de aceitas sem saber o estoque.
+ */
+public class EstoqueNaoCarregadoException extends RuntimeException {
+
+    public EstoqueNaoCarregadoException() {
+        super("Estoque ainda não carregado");
+    }
+}
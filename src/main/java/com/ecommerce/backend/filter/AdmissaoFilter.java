@@ -0,0 +1,202 @@
+package com.ecommerce.backend.filter;
+
+import com.ecommerce.backend.resiliencia.BaldeTokens;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Controle de admissão das rotas /api: cada cliente (API key do header configurado, ou IP) tem um
+ * balde de tokens e cada requisição consome conforme o custo da rota (consulta, listagem ou
+ * exportação). Exportações também disputam um limite global de execuções simultâneas. Quem passa do
+ * limite recebe 429 com Retry-After na hora, antes de qualquer trabalho ou chamada ao Supabase.
+ *
+ * Os baldes ficam num cache Caffeine (leitura sem trava) e expiram após http.admission.idle-expiry
+ * sem uso; cada balde é um AtomicLong atualizado por CAS, então clientes diferentes não disputam
+ * nada entre si.
+ *
+ * A API key só identifica o cliente quando está em http.admission.api-keys; uma chave desconhecida
+ * é ignorada e conta pelo IP, senão bastaria trocar de chave a cada requisição para escapar do
+ * limite e encher o cache de baldes. Atrás de um proxy ou load balancer com trust-forwarded-for
+ * desligado, o IP visto é o do proxy e todos os clientes sem chave dividem um único balde.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class AdmissaoFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissaoFilter.class);
+
+    public enum ClasseRota {
+        CONSULTA, LISTAGEM, EXPORTACAO
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${http.admission.enabled:true}")
+    private boolean ativo;
+
+    @Value("${http.admission.api-key-header:X-API-Key}")
+    private String headerChave;
+
+    @Value("${http.admission.api-keys:}")
+    private Set<String> chavesValidas;
+
+    @Value("${http.admission.trust-forwarded-for:false}")
+    private boolean confiarForwardedFor;
+
+    @Value("${http.admission.rate:50}")
+    private double taxa;
+
+    @Value("${http.admission.burst:200}")
+    private int rajada;
+
+    @Value("${http.admission.costs.lookup:1}")
+    private int custoConsulta;
+
+    @Value("${http.admission.costs.list:5}")
+    private int custoListagem;
+
+    @Value("${http.admission.costs.export:20}")
+    private int custoExportacao;
+
+    @Value("${http.admission.export-max-concurrent:4}")
+    private int maxExportacoes;
+
+    @Value("${http.admission.idle-expiry:10m}")
+    private Duration expiracao;
+
+    @Value("${http.admission.maximum-clients:100000}")
+    private long maxClientes;
+
+    private final AtomicInteger exportacoesAtivas = new AtomicInteger();
+    private final Map<ClasseRota, Integer> custos = new EnumMap<>(ClasseRota.class);
+    private final Map<ClasseRota, Counter> admitidas = new EnumMap<>(ClasseRota.class);
+    private final Map<ClasseRota, Counter> limitadas = new EnumMap<>(ClasseRota.class);
+    private Counter exportacoesRejeitadas;
+    private Cache<String, BaldeTokens> baldes;
+    private long intervaloNanos;
+    private long toleranciaNanos;
+
+    @PostConstruct
+    public void inicializar() {
+        custos.put(ClasseRota.CONSULTA, custoConsulta);
+        custos.put(ClasseRota.LISTAGEM, custoListagem);
+        custos.put(ClasseRota.EXPORTACAO, custoExportacao);
+        int maiorCusto = custos.values().stream().max(Integer::compare).orElse(1);
+        if (rajada < maiorCusto) {
+            logger.warn("http.admission.burst ({}) menor que o maior custo ({}); usando {}", rajada, maiorCusto, maiorCusto);
+            rajada = maiorCusto;
+        }
+        intervaloNanos = (long) (1_000_000_000L / taxa);
+        toleranciaNanos = rajada * intervaloNanos;
+        baldes = Caffeine.newBuilder()
+                .maximumSize(maxClientes)
+                .expireAfterAccess(expiracao)
+                .build();
+        for (ClasseRota classe : ClasseRota.values()) {
+            String tag = classe.name().toLowerCase();
+            admitidas.put(classe, meterRegistry.counter("http.admission.decisions", "class", tag, "decision", "allowed"));
+            limitadas.put(classe, meterRegistry.counter("http.admission.decisions", "class", tag, "decision", "rate_limited"));
+        }
+        exportacoesRejeitadas = meterRegistry.counter("http.admission.decisions", "class", "exportacao", "decision", "concurrency_limited");
+        Gauge.builder("http.admission.export.active", exportacoesAtivas, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("http.admission.clients", baldes, cache -> cache.estimatedSize()).register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String caminho = exchange.getRequest().getPath().value();
+        if (!ativo || !caminho.startsWith("/api/") || caminho.equals("/api/health")) {
+            return chain.filter(exchange);
+        }
+        ClasseRota classe = classificar(exchange.getRequest(), caminho);
+        long agora = System.nanoTime();
+        BaldeTokens balde = baldes.get(identificarCliente(exchange.getRequest()), chave -> new BaldeTokens(agora));
+        long espera = balde.consumir(custos.get(classe), intervaloNanos, toleranciaNanos, agora);
+        if (espera > 0) {
+            limitadas.get(classe).increment();
+            return rejeitar(exchange, Duration.ofNanos(espera), "Limite de requisições excedido");
+        }
+        if (classe != ClasseRota.EXPORTACAO) {
+            admitidas.get(classe).increment();
+            return chain.filter(exchange);
+        }
+        if (exportacoesAtivas.incrementAndGet() > maxExportacoes) {
+            exportacoesAtivas.decrementAndGet();
+            exportacoesRejeitadas.increment();
+            return rejeitar(exchange, Duration.ofSeconds(1), "Muitas exportações em andamento");
+        }
+        admitidas.get(classe).increment();
+        return chain.filter(exchange).doFinally(sinal -> exportacoesAtivas.decrementAndGet());
+    }
+
+    /**
+     * Exportações são as rotas /export/; listagens devolvem coleções (pedidos de um cliente, lote,
+     * importação); o resto é consulta por id.
+     */
+    static ClasseRota classificar(ServerHttpRequest requisicao, String caminho) {
+        if (caminho.contains("/export/")) {
+            return ClasseRota.EXPORTACAO;
+        }
+        if (caminho.endsWith("/pedidos") && HttpMethod.GET.equals(requisicao.getMethod())
+                || caminho.endsWith("/pedidos/batch")
+                || caminho.endsWith("/pedidos/importacao")) {
+            return ClasseRota.LISTAGEM;
+        }
+        return ClasseRota.CONSULTA;
+    }
+
+    private String identificarCliente(ServerHttpRequest requisicao) {
+        String chave = requisicao.getHeaders().getFirst(headerChave);
+        if (chave != null && chavesValidas.contains(chave.trim())) {
+            return "chave:" + chave.trim();
+        }
+        if (confiarForwardedFor) {
+            String encaminhado = requisicao.getHeaders().getFirst("X-Forwarded-For");
+            if (encaminhado != null && !encaminhado.isBlank()) {
+                return "ip:" + encaminhado.split(",")[0].trim();
+            }
+        }
+        InetSocketAddress remoto = requisicao.getRemoteAddress();
+        return "ip:" + (remoto != null && remoto.getAddress() != null ? remoto.getAddress().getHostAddress() : "desconhecido");
+    }
+
+    private static Mono<Void> rejeitar(ServerWebExchange exchange, Duration espera, String mensagem) {
+        ServerHttpResponse resposta = exchange.getResponse();
+        resposta.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        resposta.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (espera.toMillis() + 999) / 1000)));
+        resposta.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        DataBuffer corpo = resposta.bufferFactory().wrap(("{\"error\":\"" + mensagem + "\"}").getBytes(StandardCharsets.UTF_8));
+        return resposta.writeWith(Mono.just(corpo));
+    }
+}
@@ -0,0 +1,35 @@
+package com.ecommerce.backend.filter;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Garante um id de correlação por requisição: usa o X-Correlation-Id recebido ou gera um novo,
+ * devolve no response e o coloca no contexto do Reactor. Daí ele segue para o MDC dos logs e
+ * para as chamadas ao Supabase (ver ObservabilidadeConfig).
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class CorrelacaoIdFilter implements WebFilter {
+
+    public static final String HEADER = "X-Correlation-Id";
+    public static final String CHAVE_CONTEXTO = "correlationId";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String recebido = exchange.getRequest().getHeaders().getFirst(HEADER);
+        String correlacaoId = recebido != null && !recebido.isBlank() && recebido.length() <= 128
+                ? recebido
+                : UUID.randomUUID().toString();
+        exchange.getResponse().getHeaders().set(HEADER, correlacaoId);
+        return chain.filter(exchange)
+                .contextWrite(contexto -> contexto.put(CHAVE_CONTEXTO, correlacaoId));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.backend.filter;
+
+import com.ecommerce.backend.resiliencia.SupabaseIndisponivelException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Define o prazo de cada requisição e o coloca no contexto do Reactor, junto com a classe de carga
+ * (exportação, importação de pedidos ou consulta). As chamadas ao Supabase feitas durante a requisição herdam esse prazo
+ * e o limite de concorrência da sua classe (ver ResilienciaSupabaseFilter).
+ *
+ * Exportações não têm prazo total, já que depois do 200 cortar o stream no meio só entrega um
+ * arquivo truncado: cada página lida do Supabase tem o seu próprio prazo
+ * (supabase.resilience.deadline.export-page). A importação em lote grava vários lotes antes de
+ * responder e tem prazo total próprio (supabase.resilience.deadline.import).
+ *
+ * O cliente pode pedir um prazo menor pelo header X-Request-Timeout (em milissegundos); nunca maior
+ * que o configurado para a rota.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class PrazoRequisicaoFilter implements WebFilter {
+
+    public static final String HEADER = "X-Request-Timeout";
+    public static final String CHAVE_PRAZO = "prazoRequisicao";
+    public static final String CHAVE_PRAZO_CHAMADA = "prazoChamada";
+    public static final String CHAVE_CLASSE = "classeCarga";
+
+    public enum ClasseCarga {
+        CONSULTA, EXPORTACAO, IMPORTACAO
+    }
+
+    @Value("${supabase.resilience.deadline.default:10s}")
+    private Duration prazoPadrao;
+
+    @Value("${supabase.resilience.deadline.export-page:60s}")
+    private Duration prazoPaginaExportacao;
+
+    @Value("${supabase.resilience.deadline.import:2m}")
+    private Duration prazoImportacao;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ClasseCarga classe = classificar(exchange.getRequest().getPath().value());
+        Duration prazo = switch (classe) {
+            case EXPORTACAO -> prazoPaginaExportacao;
+            case IMPORTACAO -> prazoImportacao;
+            case CONSULTA -> prazoPadrao;
+        };
+        Duration pedido = prazoPedido(exchange.getRequest().getHeaders().getFirst(HEADER));
+        if (pedido != null && pedido.compareTo(prazo) < 0) {
+            prazo = pedido;
+        }
+        if (classe == ClasseCarga.EXPORTACAO) {
+            Duration prazoChamada = prazo;
+            return chain.filter(exchange)
+                    .contextWrite(contexto -> contexto.put(CHAVE_PRAZO_CHAMADA, prazoChamada).put(CHAVE_CLASSE, classe));
+        }
+        long prazoNanos = System.nanoTime() + prazo.toNanos();
+        return chain.filter(exchange)
+                .contextWrite(contexto -> contexto.put(CHAVE_PRAZO, prazoNanos).put(CHAVE_CLASSE, classe));
+    }
+
+    static ClasseCarga classificar(String caminho) {
+        if (caminho.contains("/export/")) {
+            return ClasseCarga.EXPORTACAO;
+        }
+        return caminho.endsWith("/pedidos/importacao") ? ClasseCarga.IMPORTACAO : ClasseCarga.CONSULTA;
+    }
+
+    /**
+     * Aplica o prazo da requisição atual a um Mono cuja execução não herda o contexto dela
+     * (cargas compartilhadas do cache, consultas agrupadas em lote).
+     */
+    public static <T> Mono<T> limitarAoPrazo(Mono<T> mono, String recurso) {
+        return Mono.deferContextual(contexto -> contexto.<Long>getOrEmpty(CHAVE_PRAZO)
+                .map(prazo -> mono.timeout(Duration.ofNanos(Math.max(0, prazo - System.nanoTime())))
+                        .onErrorMap(TimeoutException.class, e -> new SupabaseIndisponivelException(
+                                SupabaseIndisponivelException.Motivo.PRAZO_ESGOTADO, recurso, Duration.ZERO)))
+                .orElse(mono));
+    }
+
+    private static Duration prazoPedido(String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        try {
+            long millis = Long.parseLong(valor.trim());
+            return millis > 0 ? Duration.ofMillis(millis) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
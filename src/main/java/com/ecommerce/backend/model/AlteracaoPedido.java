@@ -0,0 +1,44 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class AlteracaoPedido {
+    private String tipo;
+
+    @JsonProperty("status_anterior")
+    private String statusAnterior;
+
+    private Pedido pedido;
+
+    public AlteracaoPedido() {}
+
+    public AlteracaoPedido(String tipo, String statusAnterior, Pedido pedido) {
+        this.tipo = tipo;
+        this.statusAnterior = statusAnterior;
+        this.pedido = pedido;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public String getStatusAnterior() {
+        return statusAnterior;
+    }
+
+    public void setStatusAnterior(String statusAnterior) {
+        this.statusAnterior = statusAnterior;
+    }
+
+    public Pedido getPedido() {
+        return pedido;
+    }
+
+    public void setPedido(Pedido pedido) {
+        this.pedido = pedido;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.backend.model;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * Corpo de POST /api/pedidos/importacao; o limite de pedidos por chamada vem de pedidos.import.max-orders.
+ */
+public record ImportacaoPedidos(@NotEmpty List<@Valid NovoPedido> pedidos) {
+}
@@ -0,0 +1,12 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record NovoItemPedido(
+        @NotBlank @JsonProperty("produto_id") String produtoId,
+        @NotNull @Min(1) @Max(10000) Integer quantidade) {
+}
@@ -0,0 +1,17 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * Corpo de POST /api/pedidos. Preços, subtotais e total são calculados no servidor com os preços
+ * lidos do Supabase na criação; o cliente informa só produto e quantidade.
+ */
+public record NovoPedido(
+        @NotBlank @JsonProperty("cliente_id") String clienteId,
+        @NotEmpty @Size(max = 500) List<@Valid NovoItemPedido> itens) {
+}
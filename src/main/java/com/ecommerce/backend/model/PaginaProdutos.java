@@ -0,0 +1,13 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PaginaProdutos(
+        List<Produto> itens,
+        long total,
+        int pagina,
+        int tamanho,
+        @JsonProperty("atualizado_em") LocalDateTime atualizadoEm) {
+}
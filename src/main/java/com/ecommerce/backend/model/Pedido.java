@@ -19,6 +19,9 @@ public class Pedido {
     @JsonProperty("created_at")
     private LocalDateTime createdAt;
 
+    @JsonProperty("updated_at")
+    private LocalDateTime updatedAt;
+
     public Pedido() {}
 
     public Pedido(String id, String clienteId, LocalDateTime dataPedido, String status, BigDecimal total, LocalDateTime createdAt) {
@@ -77,4 +80,12 @@ public class Pedido {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
 }
@@ -0,0 +1,36 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pedido carregado junto com o cliente e os itens em uma única consulta ao PostgREST
+ * (select=*,clientes(*),pedido_itens(*,produtos(nome))).
+ */
+public class PedidoCompleto extends Pedido {
+
+    @JsonProperty("clientes")
+    private Cliente cliente;
+
+    @JsonProperty("pedido_itens")
+    private List<PedidoItem> itens = new ArrayList<>();
+
+    public PedidoCompleto() {}
+
+    public Cliente getCliente() {
+        return cliente;
+    }
+
+    public void setCliente(Cliente cliente) {
+        this.cliente = cliente;
+    }
+
+    public List<PedidoItem> getItens() {
+        return itens;
+    }
+
+    public void setItens(List<PedidoItem> itens) {
+        this.itens = itens;
+    }
+}
@@ -1,5 +1,6 @@
 package com.ecommerce.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -23,6 +24,11 @@ public class PedidoItem {
     @JsonProperty("created_at")
     private LocalDateTime createdAt;
 
+    // Preenchido apenas quando a consulta embute o produto (pedido_itens(*,produtos(...)))
+    @JsonProperty("produtos")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Produto produto;
+
     // Construtores
     public PedidoItem() {}
 
@@ -92,4 +98,12 @@ public class PedidoItem {
     public void setCreatedAt(LocalDateTime createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Produto getProduto() {
+        return produto;
+    }
+
+    public void setProduto(Produto produto) {
+        this.produto = produto;
+    }
 }
@@ -0,0 +1,12 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+public record ReservaEstoque(
+        @JsonProperty("reserva_id") String id,
+        @JsonProperty("pedido_id") String pedidoId,
+        Map<String, Integer> itens,
+        @JsonProperty("expira_em") LocalDateTime expiraEm) {
+}
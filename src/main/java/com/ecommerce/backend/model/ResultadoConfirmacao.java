@@ -0,0 +1,58 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.time.LocalDateTime;
+
+public class ResultadoConfirmacao {
+    @JsonProperty("pedido_id")
+    private String pedidoId;
+
+    private String status;
+
+    @JsonProperty("email_enfileirado")
+    private boolean emailEnfileirado;
+
+    @JsonProperty("processado_em")
+    private LocalDateTime processadoEm;
+
+    public ResultadoConfirmacao() {}
+
+    public ResultadoConfirmacao(String pedidoId, String status, boolean emailEnfileirado, LocalDateTime processadoEm) {
+        this.pedidoId = pedidoId;
+        this.status = status;
+        this.emailEnfileirado = emailEnfileirado;
+        this.processadoEm = processadoEm;
+    }
+
+    public String getPedidoId() {
+        return pedidoId;
+    }
+
+    public void setPedidoId(String pedidoId) {
+        this.pedidoId = pedidoId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public boolean isEmailEnfileirado() {
+        return emailEnfileirado;
+    }
+
+    public void setEmailEnfileirado(boolean emailEnfileirado) {
+        this.emailEnfileirado = emailEnfileirado;
+    }
+
+    public LocalDateTime getProcessadoEm() {
+        return processadoEm;
+    }
+
+    public void setProcessadoEm(LocalDateTime processadoEm) {
+        this.processadoEm = processadoEm;
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.List;
+
+public record ResultadoImportacao(
+        @JsonProperty("pedidos_criados") int pedidosCriados,
+        @JsonProperty("itens_criados") int itensCriados,
+        @JsonProperty("pedidos_com_falha") int pedidosComFalha,
+        List<String> erros) {
+}
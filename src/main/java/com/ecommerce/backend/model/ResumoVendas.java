@@ -0,0 +1,13 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record ResumoVendas(
+        @JsonProperty("receita_total") BigDecimal receitaTotal,
+        long pedidos,
+        @JsonProperty("ticket_medio") BigDecimal ticketMedio,
+        @JsonProperty("itens_vendidos") long itensVendidos,
+        @JsonProperty("atualizado_em") LocalDateTime atualizadoEm) {
+}
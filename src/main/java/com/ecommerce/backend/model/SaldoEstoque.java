@@ -0,0 +1,10 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record SaldoEstoque(
+        @JsonProperty("produto_id") String produtoId,
+        int disponivel,
+        int reservado,
+        @JsonProperty("pendente_baixa") int pendenteBaixa) {
+}
@@ -0,0 +1,13 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.util.Map;
+
+/**
+ * Corpo de POST /api/estoque/reservas: quantidades por produto_id, pedido opcional e TTL opcional.
+ */
+public record SolicitacaoReserva(
+        @JsonProperty("pedido_id") String pedidoId,
+        Map<String, Integer> itens,
+        @JsonProperty("ttl_segundos") Integer ttlSegundos) {
+}
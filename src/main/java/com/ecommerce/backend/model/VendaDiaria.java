@@ -0,0 +1,12 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record VendaDiaria(
+        LocalDate data,
+        BigDecimal receita,
+        long pedidos,
+        @JsonProperty("ticket_medio") BigDecimal ticketMedio) {
+}
@@ -0,0 +1,10 @@
+package com.ecommerce.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import java.math.BigDecimal;
+
+public record VendaProduto(
+        @JsonProperty("produto_id") String produtoId,
+        long quantidade,
+        BigDecimal receita) {
+}
@@ -0,0 +1,41 @@
+package com.ecommerce.backend.resiliencia;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Balde de tokens sem trava, no formato GCRA: o estado é um único instante teórico de chegada
+ * (System.nanoTime) atualizado por CAS. Cada token adia esse instante em um intervalo de emissão;
+ * a requisição passa enquanto ele não estiver mais de uma rajada à frente do relógio. Equivale a um
+ * balde de capacidade rajada reabastecido continuamente à taxa configurada.
+ */
+public final class BaldeTokens {
+
+    private final AtomicLong chegadaTeorica;
+
+    public BaldeTokens(long agora) {
+        this.chegadaTeorica = new AtomicLong(agora);
+    }
+
+    /**
+     * Consome o custo se houver tokens; senão não altera o balde e devolve quanto esperar (ns)
+     * até haver.
+     *
+     * @param intervaloNanos intervalo de emissão de um token (1 / taxa)
+     * @param toleranciaNanos rajada em tempo (capacidade * intervalo)
+     * @return 0 se admitido
+     */
+    public long consumir(int custo, long intervaloNanos, long toleranciaNanos, long agora) {
+        long incremento = custo * intervaloNanos;
+        while (true) {
+            long atual = chegadaTeorica.get();
+            long nova = Math.max(atual, agora) + incremento;
+            long espera = nova - toleranciaNanos - agora;
+            if (espera > 0) {
+                return espera;
+            }
+            if (chegadaTeorica.compareAndSet(atual, nova)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.ecommerce.backend.resiliencia;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+
+/**
+ * Circuit breaker por recurso do PostgREST, com janela deslizante das últimas N chamadas.
+ * Abre quando a taxa de falhas passa do limiar, rejeita chamadas enquanto aberto e, depois do
+ * tempo de espera, deixa passar algumas chamadas de teste antes de fechar de novo.
+ */
+public class DisjuntorCircuito {
+
+    private static final Logger logger = LoggerFactory.getLogger(DisjuntorCircuito.class);
+
+    public enum Estado {
+        FECHADO, ABERTO, MEIO_ABERTO
+    }
+
+    private final String recurso;
+    private final boolean[] falhas;
+    private final int minimoChamadas;
+    private final double limiarFalhas;
+    private final long duracaoAbertoNanos;
+    private final int chamadasTeste;
+    private final BiConsumer<Estado, Estado> aoMudarEstado;
+
+    private Estado estado = Estado.FECHADO;
+    private int posicao;
+    private int registradas;
+    private int totalFalhas;
+    private long abertoAte;
+    private int testesEmAndamento;
+    private int testesComSucesso;
+
+    public DisjuntorCircuito(String recurso, int tamanhoJanela, int minimoChamadas, double limiarFalhas,
+                             Duration duracaoAberto, int chamadasTeste, BiConsumer<Estado, Estado> aoMudarEstado) {
+        this.recurso = recurso;
+        this.falhas = new boolean[tamanhoJanela];
+        this.minimoChamadas = minimoChamadas;
+        this.limiarFalhas = limiarFalhas;
+        this.duracaoAbertoNanos = duracaoAberto.toNanos();
+        this.chamadasTeste = chamadasTeste;
+        this.aoMudarEstado = aoMudarEstado;
+    }
+
+    public synchronized boolean permitir() {
+        if (estado == Estado.ABERTO) {
+            if (System.nanoTime() - abertoAte < 0) {
+                return false;
+            }
+            mudarEstado(Estado.MEIO_ABERTO);
+        }
+        if (estado == Estado.MEIO_ABERTO) {
+            if (testesEmAndamento >= chamadasTeste) {
+                return false;
+            }
+            testesEmAndamento++;
+        }
+        return true;
+    }
+
+    public synchronized void registrarSucesso() {
+        if (estado == Estado.MEIO_ABERTO) {
+            testesEmAndamento--;
+            if (++testesComSucesso >= chamadasTeste) {
+                mudarEstado(Estado.FECHADO);
+            }
+            return;
+        }
+        registrar(false);
+    }
+
+    public synchronized void registrarFalha() {
+        if (estado == Estado.MEIO_ABERTO) {
+            mudarEstado(Estado.ABERTO);
+            return;
+        }
+        registrar(true);
+        if (estado == Estado.FECHADO && registradas >= minimoChamadas
+                && (double) totalFalhas / registradas >= limiarFalhas) {
+            mudarEstado(Estado.ABERTO);
+        }
+    }
+
+    /**
+     * Chamada cancelada antes de terminar (cliente desistiu, hedge perdedor): não conta como
+     * resultado, só devolve a vaga de teste quando o circuito está meio aberto.
+     */
+    public synchronized void descartar() {
+        if (estado == Estado.MEIO_ABERTO && testesEmAndamento > 0) {
+            testesEmAndamento--;
+        }
+    }
+
+    public synchronized Estado getEstado() {
+        return estado;
+    }
+
+    /**
+     * Tempo até o circuito aceitar chamadas de teste; usado no Retry-After.
+     */
+    public synchronized Duration tempoRestanteAberto() {
+        long restante = abertoAte - System.nanoTime();
+        return estado == Estado.ABERTO && restante > 0 ? Duration.ofNanos(restante) : Duration.ZERO;
+    }
+
+    private void registrar(boolean falhou) {
+        if (registradas == falhas.length) {
+            if (falhas[posicao]) {
+                totalFalhas--;
+            }
+        } else {
+            registradas++;
+        }
+        falhas[posicao] = falhou;
+        if (falhou) {
+            totalFalhas++;
+        }
+        posicao = (posicao + 1) % falhas.length;
+    }
+
+    private void mudarEstado(Estado novo) {
+        Estado anterior = estado;
+        estado = novo;
+        testesEmAndamento = 0;
+        testesComSucesso = 0;
+        if (novo == Estado.ABERTO) {
+            abertoAte = System.nanoTime() + duracaoAbertoNanos;
+        } else if (novo == Estado.FECHADO) {
+            posicao = 0;
+            registradas = 0;
+            totalFalhas = 0;
+        }
+        logger.warn("Circuito do Supabase para {}: {} -> {}", recurso, anterior, novo);
+        aoMudarEstado.accept(anterior, novo);
+    }
+}
@@ -0,0 +1,44 @@
+package com.ecommerce.backend.resiliencia;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Amostras das últimas latências de um recurso, para estimar o p95 que dispara o hedge.
+ */
+public class LatenciaRecente {
+
+    private final long[] amostras;
+    private final int minimoAmostras;
+    private int posicao;
+    private int total;
+
+    public LatenciaRecente(int tamanho, int minimoAmostras) {
+        this.amostras = new long[tamanho];
+        this.minimoAmostras = minimoAmostras;
+    }
+
+    public synchronized void registrar(long nanos) {
+        amostras[posicao] = nanos;
+        posicao = (posicao + 1) % amostras.length;
+        if (total < amostras.length) {
+            total++;
+        }
+    }
+
+    /**
+     * Percentil das amostras atuais, ou o valor padrão enquanto não há amostras suficientes.
+     */
+    public Duration percentil(double percentil, Duration padrao) {
+        long[] copia;
+        synchronized (this) {
+            if (total < minimoAmostras) {
+                return padrao;
+            }
+            copia = Arrays.copyOf(amostras, total);
+        }
+        Arrays.sort(copia);
+        int indice = (int) Math.ceil(percentil * copia.length) - 1;
+        return Duration.ofNanos(copia[Math.max(0, Math.min(indice, copia.length - 1))]);
+    }
+}
@@ -0,0 +1,161 @@
+package com.ecommerce.backend.resiliencia;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Bulkhead não bloqueante: no máximo N chamadas simultâneas e uma fila limitada de espera.
+ * Quem não consegue vaga dentro do tempo máximo de espera (ou encontra a fila cheia) falha
+ * com SupabaseIndisponivelException, sem ocupar thread nenhuma enquanto espera.
+ */
+public class LimiteConcorrencia {
+
+    private final String nome;
+    private final int maximo;
+    private final int maxFila;
+    private final ArrayDeque<Espera> fila = new ArrayDeque<>();
+    private int emUso;
+
+    public LimiteConcorrencia(String nome, int maximo, int maxFila) {
+        this.nome = nome;
+        this.maximo = maximo;
+        this.maxFila = maxFila;
+    }
+
+    public <T> Mono<T> executar(Mono<T> chamada, Duration esperaMaxima, String recurso) {
+        return executar(devolver -> chamada.doFinally(sinal -> devolver.run()), esperaMaxima, recurso);
+    }
+
+    /**
+     * Para chamadas cujo trabalho continua depois do valor emitido (o corpo de uma resposta em
+     * stream): a função recebe quem devolve a vaga e decide quando chamá-lo. Erro, cancelamento ou
+     * término vazio antes do valor devolvem a vaga sozinhos; chamadas repetidas são ignoradas.
+     */
+    public <T> Mono<T> executar(Function<Runnable, Mono<T>> chamada, Duration esperaMaxima, String recurso) {
+        return adquirir(recurso)
+                .timeout(esperaMaxima)
+                .onErrorMap(TimeoutException.class,
+                        e -> new SupabaseIndisponivelException(SupabaseIndisponivelException.Motivo.LIMITE_CONCORRENCIA, recurso, esperaMaxima))
+                .flatMap(vaga -> {
+                    if (!tomar(vaga)) {
+                        // Cancelado entre a entrega e aqui: a vaga já foi devolvida
+                        return Mono.empty();
+                    }
+                    AtomicBoolean devolvida = new AtomicBoolean();
+                    Runnable devolver = () -> {
+                        if (devolvida.compareAndSet(false, true)) {
+                            liberar();
+                        }
+                    };
+                    return chamada.apply(devolver)
+                            .doOnSuccess(valor -> {
+                                if (valor == null) {
+                                    devolver.run();
+                                }
+                            })
+                            .doOnError(e -> devolver.run())
+                            .doOnCancel(devolver);
+                });
+    }
+
+    public synchronized int getEmUso() {
+        return emUso;
+    }
+
+    public synchronized int getNaFila() {
+        return fila.size();
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * A vaga é entregue por um MonoSink, que pode ser cancelado antes ou depois da entrega; o estado
+     * da Espera decide quem a devolve: o cancelamento, enquanto ninguém a tomou, ou quem a tomou.
+     */
+    private Mono<Espera> adquirir(String recurso) {
+        return Mono.create(sink -> {
+            Espera espera = new Espera(sink);
+            boolean imediata = false;
+            synchronized (this) {
+                if (emUso < maximo) {
+                    emUso++;
+                    espera.estado = Espera.ENTREGUE;
+                    imediata = true;
+                } else if (fila.size() < maxFila) {
+                    fila.addLast(espera);
+                } else {
+                    sink.error(new SupabaseIndisponivelException(SupabaseIndisponivelException.Motivo.LIMITE_CONCORRENCIA, recurso, Duration.ofSeconds(1)));
+                    return;
+                }
+            }
+            sink.onCancel(() -> cancelar(espera));
+            if (imediata) {
+                sink.success(espera);
+            }
+        });
+    }
+
+    private synchronized boolean tomar(Espera espera) {
+        if (espera.estado != Espera.ENTREGUE) {
+            return false;
+        }
+        espera.estado = Espera.TOMADA;
+        return true;
+    }
+
+    private void cancelar(Espera espera) {
+        synchronized (this) {
+            switch (espera.estado) {
+                case Espera.AGUARDANDO -> {
+                    fila.remove(espera);
+                    espera.estado = Espera.CANCELADA;
+                    return;
+                }
+                case Espera.ENTREGUE -> espera.estado = Espera.CANCELADA;
+                default -> {
+                    return;
+                }
+            }
+        }
+        liberar();
+    }
+
+    /**
+     * A vaga passa direto para o próximo da fila; só volta ao contador quando não há ninguém esperando.
+     * A entrega acontece fora do lock porque dispara o restante do pipeline de quem esperava.
+     */
+    private void liberar() {
+        Espera proxima;
+        synchronized (this) {
+            proxima = fila.pollFirst();
+            if (proxima == null) {
+                emUso--;
+                return;
+            }
+            proxima.estado = Espera.ENTREGUE;
+        }
+        proxima.sink.success(proxima);
+    }
+
+    private static final class Espera {
+        private static final int AGUARDANDO = 0;
+        private static final int ENTREGUE = 1;
+        private static final int TOMADA = 2;
+        private static final int CANCELADA = 3;
+
+        private final MonoSink<Espera> sink;
+        private int estado = AGUARDANDO;
+
+        private Espera(MonoSink<Espera> sink) {
+            this.sink = sink;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.ecommerce.backend.resiliencia;
+
+import com.ecommerce.backend.config.ObservabilidadeConfig;
+import com.ecommerce.backend.filter.PrazoRequisicaoFilter;
+import com.ecommerce.backend.filter.PrazoRequisicaoFilter.ClasseCarga;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Camada de resiliência dos WebClients do Supabase, aplicada antes do filtro de observabilidade:
+ * <ul>
+ *     <li>prazo: cada chamada usa o tempo que ainda resta do prazo da requisição de entrada
+ *     (cabeçalhos e corpo); em exportações, que não têm prazo total, cada página tem o seu prazo
+ *     próprio; fora de uma requisição vale o prazo padrão;</li>
+ *     <li>bulkhead: exportações, importações e consultas têm limites de concorrência separados,
+ *     então exportações longas e importações em lote não tiram vaga das consultas por id; a vaga
+ *     só é devolvida quando o corpo da resposta termina;</li>
+ *     <li>circuit breaker por recurso: com o Supabase falhando, as chamadas falham na hora. Só
+ *     erros de transporte e respostas 5xx contam como falha; prazo esgotado e cancelamento
+ *     dependem de quem chamou (o X-Request-Timeout é do cliente) e são descartados;</li>
+ *     <li>hedge: GETs de consulta que passam do p95 recente ganham uma segunda tentativa
+ *     em paralelo e vale a primeira resposta.</li>
+ * </ul>
+ */
+@Component
+public class ResilienciaSupabaseFilter implements ExchangeFilterFunction {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${supabase.resilience.deadline.default:10s}")
+    private Duration prazoPadrao;
+
+    @Value("${supabase.resilience.circuit-breaker.sliding-window:50}")
+    private int tamanhoJanela;
+
+    @Value("${supabase.resilience.circuit-breaker.minimum-calls:20}")
+    private int minimoChamadas;
+
+    @Value("${supabase.resilience.circuit-breaker.failure-rate-threshold:0.5}")
+    private double limiarFalhas;
+
+    @Value("${supabase.resilience.circuit-breaker.open-duration:30s}")
+    private Duration duracaoAberto;
+
+    @Value("${supabase.resilience.circuit-breaker.half-open-calls:5}")
+    private int chamadasTeste;
+
+    @Value("${supabase.resilience.bulkhead.lookup.max-concurrent:64}")
+    private int maxConsultas;
+
+    @Value("${supabase.resilience.bulkhead.lookup.max-queued:256}")
+    private int filaConsultas;
+
+    @Value("${supabase.resilience.bulkhead.lookup.max-wait:2s}")
+    private Duration esperaConsultas;
+
+    @Value("${supabase.resilience.bulkhead.export.max-concurrent:8}")
+    private int maxExportacoes;
+
+    @Value("${supabase.resilience.bulkhead.export.max-queued:32}")
+    private int filaExportacoes;
+
+    @Value("${supabase.resilience.bulkhead.export.max-wait:10s}")
+    private Duration esperaExportacoes;
+
+    @Value("${supabase.resilience.bulkhead.import.max-concurrent:8}")
+    private int maxImportacoes;
+
+    @Value("${supabase.resilience.bulkhead.import.max-queued:32}")
+    private int filaImportacoes;
+
+    @Value("${supabase.resilience.bulkhead.import.max-wait:10s}")
+    private Duration esperaImportacoes;
+
+    @Value("${supabase.resilience.hedge.enabled:true}")
+    private boolean hedgeAtivo;
+
+    @Value("${supabase.resilience.hedge.percentile:0.95}")
+    private double percentilHedge;
+
+    @Value("${supabase.resilience.hedge.min-delay:20ms}")
+    private Duration atrasoMinimoHedge;
+
+    @Value("${supabase.resilience.hedge.default-delay:200ms}")
+    private Duration atrasoPadraoHedge;
+
+    private final Map<String, DisjuntorCircuito> disjuntores = new ConcurrentHashMap<>();
+    private final Map<String, LatenciaRecente> latencias = new ConcurrentHashMap<>();
+    private LimiteConcorrencia limiteConsultas;
+    private LimiteConcorrencia limiteExportacoes;
+    private LimiteConcorrencia limiteImportacoes;
+
+    @PostConstruct
+    public void inicializar() {
+        limiteConsultas = registrarLimite(new LimiteConcorrencia("consulta", maxConsultas, filaConsultas));
+        limiteExportacoes = registrarLimite(new LimiteConcorrencia("exportacao", maxExportacoes, filaExportacoes));
+        limiteImportacoes = registrarLimite(new LimiteConcorrencia("importacao", maxImportacoes, filaImportacoes));
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(contexto -> {
+            String recurso = ObservabilidadeConfig.recurso(request.url());
+            long prazo = contexto.<Long>getOrEmpty(PrazoRequisicaoFilter.CHAVE_PRAZO)
+                    .orElseGet(() -> System.nanoTime() + contexto.<Duration>getOrEmpty(PrazoRequisicaoFilter.CHAVE_PRAZO_CHAMADA)
+                            .orElse(prazoPadrao).toNanos());
+            ClasseCarga classe = contexto.<ClasseCarga>getOrEmpty(PrazoRequisicaoFilter.CHAVE_CLASSE)
+                    .orElse(ClasseCarga.CONSULTA);
+            Duration restante = restante(prazo);
+            if (restante.isZero()) {
+                return Mono.error(rejeitar(SupabaseIndisponivelException.Motivo.PRAZO_ESGOTADO, recurso, Duration.ZERO));
+            }
+            DisjuntorCircuito disjuntor = disjuntores.computeIfAbsent(recurso, this::criarDisjuntor);
+            LimiteConcorrencia limite = switch (classe) {
+                case EXPORTACAO -> limiteExportacoes;
+                case IMPORTACAO -> limiteImportacoes;
+                case CONSULTA -> limiteConsultas;
+            };
+            Duration espera = switch (classe) {
+                case EXPORTACAO -> esperaExportacoes;
+                case IMPORTACAO -> esperaImportacoes;
+                case CONSULTA -> esperaConsultas;
+            };
+            boolean hedge = hedgeAtivo && classe == ClasseCarga.CONSULTA && request.method() == HttpMethod.GET;
+
+            Function<Runnable, Mono<ClientResponse>> chamada = devolverVaga -> Mono.defer(() -> {
+                if (!disjuntor.permitir()) {
+                    return Mono.error(rejeitar(SupabaseIndisponivelException.Motivo.CIRCUITO_ABERTO, recurso, disjuntor.tempoRestanteAberto()));
+                }
+                long inicio = System.nanoTime();
+                return (hedge ? comHedge(request, next, recurso) : next.exchange(request))
+                        .timeout(restante(prazo))
+                        .onErrorMap(TimeoutException.class,
+                                e -> rejeitar(SupabaseIndisponivelException.Motivo.PRAZO_ESGOTADO, recurso, Duration.ZERO))
+                        .doOnSuccess(response -> {
+                            if (response.statusCode().is5xxServerError()) {
+                                disjuntor.registrarFalha();
+                            } else {
+                                disjuntor.registrarSucesso();
+                                latencia(recurso).registrar(System.nanoTime() - inicio);
+                            }
+                        })
+                        .doOnError(e -> {
+                            if (e instanceof SupabaseIndisponivelException) {
+                                disjuntor.descartar();
+                            } else {
+                                disjuntor.registrarFalha();
+                            }
+                        })
+                        .doOnCancel(disjuntor::descartar)
+                        .map(response -> aplicarPrazoNoCorpo(response, prazo, recurso, devolverVaga));
+            });
+            return limite.executar(chamada, menor(espera, restante), recurso)
+                    .doOnError(SupabaseIndisponivelException.class, e -> meterRegistry.counter("supabase.resilience.rejected",
+                            "resource", recurso, "reason", e.getMotivo().name()).increment());
+        });
+    }
+
+    public Map<String, DisjuntorCircuito> getDisjuntores() {
+        return disjuntores;
+    }
+
+    /**
+     * Dispara uma segunda tentativa se a primeira não responder dentro do p95 recente do recurso.
+     * A que perder é cancelada.
+     */
+    private Mono<ClientResponse> comHedge(ClientRequest request, ExchangeFunction next, String recurso) {
+        Duration atraso = menor(latencia(recurso).percentil(percentilHedge, atrasoPadraoHedge), prazoPadrao);
+        if (atraso.compareTo(atrasoMinimoHedge) < 0) {
+            atraso = atrasoMinimoHedge;
+        }
+        AtomicBoolean reservaVenceu = new AtomicBoolean();
+        Mono<ClientResponse> reserva = Mono.delay(atraso)
+                .then(Mono.defer(() -> {
+                    meterRegistry.counter("supabase.hedged.requests", "resource", recurso).increment();
+                    return next.exchange(request);
+                }))
+                .doOnNext(response -> reservaVenceu.set(true));
+        return Mono.firstWithValue(next.exchange(request), reserva)
+                .doOnNext(response -> {
+                    if (reservaVenceu.get()) {
+                        meterRegistry.counter("supabase.hedged.wins", "resource", recurso).increment();
+                    }
+                })
+                // A resposta perdedora pode já ter sido liberada pelo cancelamento
+                .doOnDiscard(ClientResponse.class, response -> response.releaseBody().onErrorResume(e -> Mono.empty()).subscribe());
+    }
+
+    /**
+     * O corpo também respeita o prazo: cada buffer recebido rearma o timeout com o tempo que ainda
+     * resta. A vaga do bulkhead fica ocupada até o corpo terminar, ser cancelado ou falhar.
+     */
+    private ClientResponse aplicarPrazoNoCorpo(ClientResponse response, long prazo, String recurso, Runnable devolverVaga) {
+        return response.mutate()
+                .body(corpo -> corpo
+                        .timeout(Mono.defer(() -> Mono.delay(restante(prazo))), buffer -> Mono.defer(() -> Mono.delay(restante(prazo))))
+                        .onErrorMap(TimeoutException.class,
+                                e -> rejeitar(SupabaseIndisponivelException.Motivo.PRAZO_ESGOTADO, recurso, Duration.ZERO))
+                        .doFinally(sinal -> devolverVaga.run()))
+                .build();
+    }
+
+    private DisjuntorCircuito criarDisjuntor(String recurso) {
+        DisjuntorCircuito disjuntor = new DisjuntorCircuito(recurso, tamanhoJanela, minimoChamadas, limiarFalhas,
+                duracaoAberto, chamadasTeste,
+                (anterior, novo) -> meterRegistry.counter("supabase.circuit.transitions",
+                        "resource", recurso, "from", anterior.name(), "to", novo.name()).increment());
+        Gauge.builder("supabase.circuit.state", disjuntor, d -> d.getEstado().ordinal())
+                .description("Estado do circuito por recurso: 0 fechado, 1 aberto, 2 meio aberto")
+                .tag("resource", recurso)
+                .register(meterRegistry);
+        return disjuntor;
+    }
+
+    private LimiteConcorrencia registrarLimite(LimiteConcorrencia limite) {
+        Gauge.builder("supabase.bulkhead.active", limite, LimiteConcorrencia::getEmUso)
+                .tag("class", limite.getNome())
+                .register(meterRegistry);
+        Gauge.builder("supabase.bulkhead.queued", limite, LimiteConcorrencia::getNaFila)
+                .tag("class", limite.getNome())
+                .register(meterRegistry);
+        return limite;
+    }
+
+    private LatenciaRecente latencia(String recurso) {
+        return latencias.computeIfAbsent(recurso, r -> new LatenciaRecente(256, 20));
+    }
+
+    private static SupabaseIndisponivelException rejeitar(SupabaseIndisponivelException.Motivo motivo, String recurso, Duration tentarNovamenteEm) {
+        return new SupabaseIndisponivelException(motivo, recurso, tentarNovamenteEm);
+    }
+
+    private static Duration restante(long prazo) {
+        long nanos = prazo - System.nanoTime();
+        return nanos > 0 ? Duration.ofNanos(nanos) : Duration.ZERO;
+    }
+
+    private static Duration menor(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ecommerce.backend.resiliencia;
+
+import java.time.Duration;
+
+/**
+ * Falha rápida da camada de resiliência: a chamada ao Supabase nem foi feita (circuito aberto,
+ * limite de concorrência cheio) ou passou do prazo da requisição.
+ */
+public class SupabaseIndisponivelException extends RuntimeException {
+
+    public enum Motivo {
+        CIRCUITO_ABERTO, LIMITE_CONCORRENCIA, PRAZO_ESGOTADO
+    }
+
+    private final Motivo motivo;
+    private final String recurso;
+    private final Duration tentarNovamenteEm;
+
+    public SupabaseIndisponivelException(Motivo motivo, String recurso, Duration tentarNovamenteEm) {
+        super("Supabase indisponível para " + recurso + ": " + motivo);
+        this.motivo = motivo;
+        this.recurso = recurso;
+        this.tentarNovamenteEm = tentarNovamenteEm;
+    }
+
+    public Motivo getMotivo() {
+        return motivo;
+    }
+
+    public String getRecurso() {
+        return recurso;
+    }
+
+    public Duration getTentarNovamenteEm() {
+        return tentarNovamenteEm;
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.VendaDiaria;
+import com.ecommerce.backend.model.VendaProduto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Agregados de vendas em centavos (long), por dia e por produto, em arrays primitivos.
+ *
+ * Os dias ficam em arrays indexados a partir do primeiro dia com venda; os produtos recebem um
+ * índice na primeira aparição. Uma instância publicada para leitura nunca é alterada: a atualização
+ * incremental trabalha sobre uma cópia, que depois substitui a anterior.
+ */
+final class AgregadosVendas {
+
+    private long diaInicial = Long.MIN_VALUE;
+    private long[] receitaPorDia = new long[0];
+    private long[] pedidosPorDia = new long[0];
+
+    private final Map<String, Integer> indiceProdutos;
+    private String[] produtos;
+    private long[] quantidadePorProduto;
+    private long[] receitaPorProduto;
+
+    private long receitaTotal;
+    private long totalPedidos;
+    private long itensVendidos;
+
+    AgregadosVendas() {
+        this.indiceProdutos = new HashMap<>();
+        this.produtos = new String[16];
+        this.quantidadePorProduto = new long[16];
+        this.receitaPorProduto = new long[16];
+    }
+
+    private AgregadosVendas(AgregadosVendas origem) {
+        this.diaInicial = origem.diaInicial;
+        this.receitaPorDia = origem.receitaPorDia.clone();
+        this.pedidosPorDia = origem.pedidosPorDia.clone();
+        this.indiceProdutos = new HashMap<>(origem.indiceProdutos);
+        this.produtos = origem.produtos.clone();
+        this.quantidadePorProduto = origem.quantidadePorProduto.clone();
+        this.receitaPorProduto = origem.receitaPorProduto.clone();
+        this.receitaTotal = origem.receitaTotal;
+        this.totalPedidos = origem.totalPedidos;
+        this.itensVendidos = origem.itensVendidos;
+    }
+
+    AgregadosVendas copia() {
+        return new AgregadosVendas(this);
+    }
+
+    void adicionarPedido(long dia, long centavos) {
+        adicionarDia(dia, centavos, 1);
+    }
+
+    void adicionarItem(String produtoId, long quantidade, long centavos) {
+        int indice = indiceProduto(produtoId);
+        quantidadePorProduto[indice] += quantidade;
+        receitaPorProduto[indice] += centavos;
+        itensVendidos += quantidade;
+    }
+
+    /**
+     * Soma os agregados de outra instância nesta (junção das partes da reconstrução paralela).
+     */
+    void combinar(AgregadosVendas outro) {
+        for (int i = 0; i < outro.receitaPorDia.length; i++) {
+            if (outro.pedidosPorDia[i] != 0 || outro.receitaPorDia[i] != 0) {
+                adicionarDia(outro.diaInicial + i, outro.receitaPorDia[i], outro.pedidosPorDia[i]);
+            }
+        }
+        for (Map.Entry<String, Integer> produto : outro.indiceProdutos.entrySet()) {
+            int indice = indiceProduto(produto.getKey());
+            quantidadePorProduto[indice] += outro.quantidadePorProduto[produto.getValue()];
+            receitaPorProduto[indice] += outro.receitaPorProduto[produto.getValue()];
+        }
+        itensVendidos += outro.itensVendidos;
+    }
+
+    long getReceitaTotal() {
+        return receitaTotal;
+    }
+
+    long getTotalPedidos() {
+        return totalPedidos;
+    }
+
+    long getItensVendidos() {
+        return itensVendidos;
+    }
+
+    List<VendaDiaria> vendasPorDia(LocalDate inicio, LocalDate fim) {
+        List<VendaDiaria> dias = new ArrayList<>();
+        if (receitaPorDia.length == 0) {
+            return dias;
+        }
+        long primeiro = Math.max(diaInicial, inicio != null ? inicio.toEpochDay() : diaInicial);
+        long ultimo = Math.min(diaInicial + receitaPorDia.length - 1, fim != null ? fim.toEpochDay() : Long.MAX_VALUE);
+        for (long dia = primeiro; dia <= ultimo; dia++) {
+            int i = (int) (dia - diaInicial);
+            if (pedidosPorDia[i] == 0 && receitaPorDia[i] == 0) {
+                continue;
+            }
+            dias.add(new VendaDiaria(LocalDate.ofEpochDay(dia), reais(receitaPorDia[i]), pedidosPorDia[i],
+                    ticketMedio(receitaPorDia[i], pedidosPorDia[i])));
+        }
+        return dias;
+    }
+
+    /**
+     * Top N por quantidade ou receita; seleção parcial sobre os índices, sem ordenar todos os produtos.
+     */
+    List<VendaProduto> produtosMaisVendidos(int limite, boolean porReceita) {
+        long[] metrica = porReceita ? receitaPorProduto : quantidadePorProduto;
+        int total = indiceProdutos.size();
+        int n = Math.min(limite, total);
+        int[] melhores = new int[n];
+        int preenchidos = 0;
+        for (int indice = 0; indice < total; indice++) {
+            if (preenchidos < n) {
+                melhores[preenchidos++] = indice;
+                subir(melhores, preenchidos - 1, metrica);
+            } else if (n > 0 && metrica[indice] > metrica[melhores[n - 1]]) {
+                melhores[n - 1] = indice;
+                subir(melhores, n - 1, metrica);
+            }
+        }
+        List<VendaProduto> resultado = new ArrayList<>(n);
+        for (int i = 0; i < preenchidos; i++) {
+            int indice = melhores[i];
+            resultado.add(new VendaProduto(produtos[indice], quantidadePorProduto[indice], reais(receitaPorProduto[indice])));
+        }
+        return resultado;
+    }
+
+    static BigDecimal reais(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    static BigDecimal ticketMedio(long centavos, long pedidos) {
+        return pedidos == 0 ? BigDecimal.ZERO.setScale(2) : BigDecimal.valueOf(centavos, 2)
+                .divide(BigDecimal.valueOf(pedidos), 2, RoundingMode.HALF_UP);
+    }
+
+    static long centavos(BigDecimal valor) {
+        return valor == null ? 0 : valor.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Inserção ordenada (decrescente) da posição indicada dentro do top N.
+     */
+    private static void subir(int[] melhores, int posicao, long[] metrica) {
+        while (posicao > 0 && metrica[melhores[posicao]] > metrica[melhores[posicao - 1]]) {
+            int troca = melhores[posicao];
+            melhores[posicao] = melhores[posicao - 1];
+            melhores[posicao - 1] = troca;
+            posicao--;
+        }
+    }
+
+    private void adicionarDia(long dia, long centavos, long pedidos) {
+        garantirDia(dia);
+        int i = (int) (dia - diaInicial);
+        receitaPorDia[i] += centavos;
+        pedidosPorDia[i] += pedidos;
+        receitaTotal += centavos;
+        totalPedidos += pedidos;
+    }
+
+    private void garantirDia(long dia) {
+        if (receitaPorDia.length == 0) {
+            diaInicial = dia;
+            receitaPorDia = new long[1];
+            pedidosPorDia = new long[1];
+            return;
+        }
+        if (dia < diaInicial) {
+            int deslocamento = (int) (diaInicial - dia);
+            receitaPorDia = deslocar(receitaPorDia, deslocamento);
+            pedidosPorDia = deslocar(pedidosPorDia, deslocamento);
+            diaInicial = dia;
+        } else if (dia - diaInicial >= receitaPorDia.length) {
+            int tamanho = (int) (dia - diaInicial + 1);
+            receitaPorDia = Arrays.copyOf(receitaPorDia, tamanho);
+            pedidosPorDia = Arrays.copyOf(pedidosPorDia, tamanho);
+        }
+    }
+
+    private static long[] deslocar(long[] valores, int deslocamento) {
+        long[] novo = new long[valores.length + deslocamento];
+        System.arraycopy(valores, 0, novo, deslocamento, valores.length);
+        return novo;
+    }
+
+    private int indiceProduto(String produtoId) {
+        Integer existente = indiceProdutos.get(produtoId);
+        if (existente != null) {
+            return existente;
+        }
+        int indice = indiceProdutos.size();
+        if (indice == produtos.length) {
+            int tamanho = indice * 2;
+            produtos = Arrays.copyOf(produtos, tamanho);
+            quantidadePorProduto = Arrays.copyOf(quantidadePorProduto, tamanho);
+            receitaPorProduto = Arrays.copyOf(receitaPorProduto, tamanho);
+        }
+        produtos[indice] = produtoId;
+        indiceProdutos.put(produtoId, indice);
+        return indice;
+    }
+}
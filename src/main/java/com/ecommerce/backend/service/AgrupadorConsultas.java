@@ -0,0 +1,164 @@
+package com.ecommerce.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Agrupa consultas individuais por id que chegam dentro de uma janela curta em uma única
+ * consulta ao Supabase (id=in.(...)). Cada chamador recebe só o seu resultado; ids repetidos
+ * na mesma janela são consultados uma vez.
+ */
+public class AgrupadorConsultas<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgrupadorConsultas.class);
+
+    private final Function<List<String>, Flux<T>> consultaEmLote;
+    private final Function<T, String> extrairId;
+    private final int tamanhoMaximo;
+    private final Duration janela;
+    private final int concorrencia;
+    private final Scheduler temporizador = Schedulers.parallel();
+    private final Set<Pendente<T>> pendentes = ConcurrentHashMap.newKeySet();
+    private final Object trava = new Object();
+    private List<Pendente<T>> loteAtual = new ArrayList<>();
+    private long geracao;
+    private Sinks.Many<List<Pendente<T>>> lotes;
+    private Disposable assinatura;
+    private boolean encerrado;
+
+    public AgrupadorConsultas(Function<List<String>, Flux<T>> consultaEmLote, Function<T, String> extrairId,
+                              int tamanhoMaximo, Duration janela, int concorrencia) {
+        this.consultaEmLote = consultaEmLote;
+        this.extrairId = extrairId;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.janela = janela;
+        this.concorrencia = concorrencia;
+        synchronized (trava) {
+            assinar();
+        }
+    }
+
+    public Mono<T> buscar(String id) {
+        return Mono.defer(() -> {
+            Pendente<T> pendente = new Pendente<>(id, Sinks.one());
+            synchronized (trava) {
+                if (encerrado) {
+                    return Mono.error(new IllegalStateException("Agrupador de consultas encerrado"));
+                }
+                pendentes.add(pendente);
+                loteAtual.add(pendente);
+                if (loteAtual.size() >= tamanhoMaximo) {
+                    fecharLote();
+                } else if (loteAtual.size() == 1) {
+                    long loteAberto = geracao;
+                    temporizador.schedule(() -> fecharPorTempo(loteAberto), janela.toNanos(), TimeUnit.NANOSECONDS);
+                }
+            }
+            return pendente.resultado().asMono();
+        });
+    }
+
+    public void encerrar() {
+        synchronized (trava) {
+            encerrado = true;
+            assinatura.dispose();
+        }
+    }
+
+    /**
+     * Os lotes fechados (por tamanho ou pela janela) entram numa fila sem limite que o flatMap consome
+     * com até {@code concorrencia} consultas em andamento: um upstream lento só acumula lotes, sem
+     * perder nenhum. Se o fluxo terminar com erro, quem estava num lote já fechado recebe o erro e
+     * uma nova fila é assinada. Chamado com a trava.
+     */
+    private void assinar() {
+        Sinks.Many<List<Pendente<T>>> novaFila = Sinks.many().unicast().onBackpressureBuffer();
+        lotes = novaFila;
+        assinatura = novaFila.asFlux()
+                .flatMap(this::resolver, concorrencia)
+                .subscribe(null, erro -> {
+                    logger.error("Agrupador de consultas terminou com erro; reassinando: {}", erro.toString());
+                    List<Pendente<T>> perdidos = new ArrayList<>();
+                    synchronized (trava) {
+                        if (lotes == novaFila && !encerrado) {
+                            assinar();
+                        }
+                        for (Pendente<T> pendente : pendentes) {
+                            if (!loteAtual.contains(pendente)) {
+                                perdidos.add(pendente);
+                            }
+                        }
+                        perdidos.forEach(pendentes::remove);
+                    }
+                    perdidos.forEach(pendente -> pendente.resultado().tryEmitError(erro));
+                });
+    }
+
+    private void fecharPorTempo(long loteAberto) {
+        synchronized (trava) {
+            if (geracao == loteAberto && !loteAtual.isEmpty()) {
+                fecharLote();
+            }
+        }
+    }
+
+    /**
+     * Chamado com a trava, o que também serializa as emissões na fila de lotes.
+     */
+    private void fecharLote() {
+        List<Pendente<T>> lote = loteAtual;
+        loteAtual = new ArrayList<>();
+        geracao++;
+        if (lotes.tryEmitNext(lote).isFailure()) {
+            lote.forEach(pendentes::remove);
+            lote.forEach(pendente -> pendente.resultado().tryEmitError(new IllegalStateException("Agrupador de consultas encerrado")));
+        }
+    }
+
+    private Mono<Void> resolver(List<Pendente<T>> lote) {
+        Map<String, List<Sinks.One<T>>> porId = new LinkedHashMap<>();
+        for (Pendente<T> pendente : lote) {
+            porId.computeIfAbsent(pendente.id(), id -> new ArrayList<>()).add(pendente.resultado());
+        }
+
+        return consultaEmLote.apply(new ArrayList<>(porId.keySet()))
+                .doOnNext(valor -> {
+                    List<Sinks.One<T>> aguardando = porId.remove(extrairId.apply(valor));
+                    if (aguardando != null) {
+                        aguardando.forEach(resultado -> resultado.tryEmitValue(valor));
+                    }
+                })
+                .doOnComplete(() -> porId.values().forEach(aguardando -> aguardando.forEach(Sinks.One::tryEmitEmpty)))
+                .then()
+                .onErrorResume(e -> {
+                    logger.error("Erro na consulta em lote de {} id(s): {}", porId.size(), e.getMessage());
+                    porId.values().forEach(aguardando -> aguardando.forEach(resultado -> resultado.tryEmitError(e)));
+                    return Mono.empty();
+                })
+                .doFinally(sinal -> {
+                    lote.forEach(pendentes::remove);
+                    if (sinal == SignalType.CANCEL) {
+                        lote.forEach(pendente -> pendente.resultado().tryEmitError(new IllegalStateException("Consulta em lote cancelada")));
+                    }
+                });
+    }
+
+    private record Pendente<T>(String id, Sinks.One<T> resultado) {}
+}
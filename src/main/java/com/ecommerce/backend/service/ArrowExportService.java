@@ -0,0 +1,336 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Cliente;
+import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.model.PedidoItem;
+import com.ecommerce.backend.model.Produto;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.dictionary.Dictionary;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.DictionaryEncoding;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Exportação colunar no formato Arrow IPC stream, com colunas tipadas conforme os modelos:
+ * valores monetários como decimal(18,4), datas como timestamp em microssegundos e o status
+ * do pedido codificado em dicionário.
+ *
+ * Cada página da paginação keyset vira um record batch escrito assim que chega, então a memória
+ * fica limitada a uma página. Quando aparece um valor novo de dicionário o writer reenvia o
+ * dicionário antes do batch seguinte (dicionário de substituição, permitido no formato stream).
+ */
+@Service
+public class ArrowExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArrowExportService.class);
+
+    private static final int PRECISAO_DECIMAL = 18;
+    private static final int ESCALA_DECIMAL = 4;
+
+    private static final Map<String, Tabela<?>> TABELAS = Map.of(
+            "produtos", new Tabela<>(Produto.class, Produto::getId, List.of(
+                    texto("id", Produto::getId),
+                    texto("nome", Produto::getNome),
+                    texto("descricao", Produto::getDescricao),
+                    decimal("preco", Produto::getPreco),
+                    inteiro("estoque", Produto::getEstoque),
+                    texto("imagem_url", Produto::getImagemUrl),
+                    timestamp("created_at", Produto::getCreatedAt))),
+            "clientes", new Tabela<>(Cliente.class, Cliente::getId, List.of(
+                    texto("id", Cliente::getId),
+                    texto("nome", Cliente::getNome),
+                    texto("email", Cliente::getEmail),
+                    texto("endereco", Cliente::getEndereco),
+                    texto("telefone", Cliente::getTelefone),
+                    timestamp("created_at", Cliente::getCreatedAt))),
+            "pedidos", new Tabela<>(Pedido.class, Pedido::getId, List.of(
+                    texto("id", Pedido::getId),
+                    texto("cliente_id", Pedido::getClienteId),
+                    timestamp("data_pedido", Pedido::getDataPedido),
+                    categoria("status", 0L, Pedido::getStatus),
+                    decimal("total", Pedido::getTotal),
+                    timestamp("created_at", Pedido::getCreatedAt))),
+            "pedido_itens", new Tabela<>(PedidoItem.class, PedidoItem::getId, List.of(
+                    texto("id", PedidoItem::getId),
+                    texto("pedido_id", PedidoItem::getPedidoId),
+                    texto("produto_id", PedidoItem::getProdutoId),
+                    inteiro("quantidade", PedidoItem::getQuantidade),
+                    decimal("preco_unitario", PedidoItem::getPrecoUnitario),
+                    decimal("subtotal", PedidoItem::getSubtotal),
+                    timestamp("created_at", PedidoItem::getCreatedAt))));
+
+    @Autowired
+    private CsvExportService csvExportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("schedulerComputacao")
+    private Scheduler schedulerComputacao;
+
+    private BufferAllocator alocador;
+
+    @PostConstruct
+    public void inicializar() {
+        alocador = new RootAllocator();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        alocador.close();
+    }
+
+    public boolean suporta(String tabela) {
+        return TABELAS.containsKey(tabela);
+    }
+
+    public Flux<DataBuffer> exportarParaArrow(String tabela, LocalDateTime inicio, LocalDateTime fim) {
+        Tabela<?> definicao = TABELAS.get(tabela);
+        if (definicao == null) {
+            return Flux.error(new IllegalArgumentException("Tabela não exportável: " + tabela));
+        }
+        return exportar(tabela, definicao, inicio, fim)
+                .doOnError(e -> logger.error("Erro ao exportar {} para Arrow: {}", tabela, e.getMessage()));
+    }
+
+    private <T> Flux<DataBuffer> exportar(String tabela, Tabela<T> definicao, LocalDateTime inicio, LocalDateTime fim) {
+        ParameterizedTypeReference<T> tipo = ParameterizedTypeReference.forType(definicao.tipo());
+        return Flux.using(
+                () -> new Escrita<>(tabela, definicao, alocador.newChildAllocator("arrow-" + tabela, 0, Long.MAX_VALUE)),
+                (Escrita<T> escrita) -> csvExportService.buscarPaginas("/" + tabela, tipo, definicao.id(), inicio, fim)
+                        .publishOn(schedulerComputacao, 1)
+                        .concatMap(pagina -> Mono.fromCallable(() -> escrita.escreverPagina(pagina)))
+                        .concatWith(Mono.fromCallable(escrita::finalizar))
+                        .filter(bytes -> bytes.length > 0)
+                        .map(DefaultDataBufferFactory.sharedInstance::wrap),
+                Escrita::close);
+    }
+
+    /**
+     * Estado de uma exportação: vetores reaproveitados entre páginas, dicionários e o writer.
+     * Os métodos são sincronizados porque o cancelamento pode fechar os buffers em outra thread.
+     */
+    private final class Escrita<T> implements AutoCloseable {
+
+        private final String tabela;
+        private final Tabela<T> definicao;
+        private final BufferAllocator alocadorExportacao;
+        private final VectorSchemaRoot raiz;
+        private final List<Dicionario> dicionarios = new ArrayList<>();
+        private final ByteArrayOutputStream saida = new ByteArrayOutputStream(64 * 1024);
+        private final ArrowStreamWriter writer;
+        private boolean fechada;
+
+        private Escrita(String tabela, Tabela<T> definicao, BufferAllocator alocadorExportacao) {
+            this.tabela = tabela;
+            this.definicao = definicao;
+            this.alocadorExportacao = alocadorExportacao;
+            DictionaryProvider.MapDictionaryProvider provedor = new DictionaryProvider.MapDictionaryProvider();
+            List<Field> campos = new ArrayList<>();
+            for (Coluna<T> coluna : definicao.colunas()) {
+                campos.add(coluna.campo());
+                if (coluna.campo().getDictionary() != null) {
+                    VarCharVector valores = new VarCharVector(coluna.campo().getName() + "_dicionario", alocadorExportacao);
+                    valores.allocateNew();
+                    Dictionary dicionario = new Dictionary(valores, coluna.campo().getDictionary());
+                    provedor.put(dicionario);
+                    dicionarios.add(new Dicionario(coluna.campo().getName(), valores));
+                }
+            }
+            this.raiz = VectorSchemaRoot.create(new Schema(campos), alocadorExportacao);
+            this.writer = new ArrowStreamWriter(raiz, provedor, Channels.newChannel(saida));
+        }
+
+        synchronized byte[] escreverPagina(List<T> pagina) throws IOException {
+            if (fechada) {
+                return new byte[0];
+            }
+            raiz.allocateNew();
+            List<Coluna<T>> colunas = definicao.colunas();
+            for (int c = 0; c < colunas.size(); c++) {
+                FieldVector vetor = raiz.getVector(c);
+                Coluna<T> coluna = colunas.get(c);
+                Dicionario dicionario = coluna.campo().getDictionary() != null ? dicionario(coluna.campo().getName()) : null;
+                for (int linha = 0; linha < pagina.size(); linha++) {
+                    coluna.escritor().escrever(vetor, linha, pagina.get(linha), dicionario);
+                }
+                vetor.setValueCount(pagina.size());
+            }
+            raiz.setRowCount(pagina.size());
+            writer.writeBatch();
+            return drenar(pagina.size());
+        }
+
+        synchronized byte[] finalizar() throws IOException {
+            if (fechada) {
+                return new byte[0];
+            }
+            writer.end();
+            return drenar(0);
+        }
+
+        private byte[] drenar(int linhas) {
+            byte[] bytes = saida.toByteArray();
+            saida.reset();
+            meterRegistry.counter("arrow.export.rows", "export", tabela).increment(linhas);
+            meterRegistry.counter("arrow.export.bytes", "export", tabela).increment(bytes.length);
+            return bytes;
+        }
+
+        private Dicionario dicionario(String coluna) {
+            for (Dicionario dicionario : dicionarios) {
+                if (dicionario.coluna.equals(coluna)) {
+                    return dicionario;
+                }
+            }
+            throw new IllegalStateException("Dicionário não registrado para " + coluna);
+        }
+
+        @Override
+        public synchronized void close() {
+            if (fechada) {
+                return;
+            }
+            fechada = true;
+            writer.close();
+            raiz.close();
+            dicionarios.forEach(dicionario -> dicionario.valores.close());
+            alocadorExportacao.close();
+        }
+    }
+
+    /**
+     * Valores distintos de uma coluna codificada; o índice de cada valor é a posição no vetor.
+     */
+    private static final class Dicionario {
+        private final String coluna;
+        private final VarCharVector valores;
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        private Dicionario(String coluna, VarCharVector valores) {
+            this.coluna = coluna;
+            this.valores = valores;
+        }
+
+        int indice(String valor) {
+            return indices.computeIfAbsent(valor, novo -> {
+                int posicao = indices.size();
+                valores.setSafe(posicao, novo.getBytes(StandardCharsets.UTF_8));
+                valores.setValueCount(posicao + 1);
+                return posicao;
+            });
+        }
+    }
+
+    private record Tabela<T>(Class<T> tipo, Function<T, Object> id, List<Coluna<T>> colunas) {}
+
+    private record Coluna<T>(Field campo, Escritor<T> escritor) {}
+
+    @FunctionalInterface
+    private interface Escritor<T> {
+        void escrever(FieldVector vetor, int linha, T registro, Dicionario dicionario);
+    }
+
+    private static <T> Coluna<T> texto(String nome, Function<T, String> valor) {
+        return new Coluna<>(Field.nullable(nome, ArrowType.Utf8.INSTANCE), (vetor, linha, registro, dicionario) -> {
+            String texto = valor.apply(registro);
+            if (texto == null) {
+                ((VarCharVector) vetor).setNull(linha);
+            } else {
+                ((VarCharVector) vetor).setSafe(linha, texto.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+
+    private static <T> Coluna<T> inteiro(String nome, Function<T, Integer> valor) {
+        return new Coluna<>(Field.nullable(nome, new ArrowType.Int(32, true)), (vetor, linha, registro, dicionario) -> {
+            Integer numero = valor.apply(registro);
+            if (numero == null) {
+                ((IntVector) vetor).setNull(linha);
+            } else {
+                ((IntVector) vetor).setSafe(linha, numero);
+            }
+        });
+    }
+
+    private static <T> Coluna<T> decimal(String nome, Function<T, BigDecimal> valor) {
+        return new Coluna<>(Field.nullable(nome, new ArrowType.Decimal(PRECISAO_DECIMAL, ESCALA_DECIMAL, 128)),
+                (vetor, linha, registro, dicionario) -> {
+                    BigDecimal numero = valor.apply(registro);
+                    if (numero == null) {
+                        ((DecimalVector) vetor).setNull(linha);
+                    } else {
+                        ((DecimalVector) vetor).setSafe(linha, numero.setScale(ESCALA_DECIMAL, RoundingMode.HALF_UP));
+                    }
+                });
+    }
+
+    private static <T> Coluna<T> timestamp(String nome, Function<T, LocalDateTime> valor) {
+        return new Coluna<>(Field.nullable(nome, new ArrowType.Timestamp(TimeUnit.MICROSECOND, null)),
+                (vetor, linha, registro, dicionario) -> {
+                    LocalDateTime data = valor.apply(registro);
+                    if (data == null) {
+                        ((TimeStampMicroVector) vetor).setNull(linha);
+                    } else {
+                        long micros = data.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + data.getNano() / 1_000;
+                        ((TimeStampMicroVector) vetor).setSafe(linha, micros);
+                    }
+                });
+    }
+
+    private static <T> Coluna<T> categoria(String nome, long idDicionario, Function<T, String> valor) {
+        // no Arrow Java o vetor da coluna guarda os índices; o tipo dos valores vem do dicionário
+        ArrowType.Int tipoIndice = new ArrowType.Int(32, true);
+        DictionaryEncoding codificacao = new DictionaryEncoding(idDicionario, false, tipoIndice);
+        Field campo = new Field(nome, new FieldType(true, tipoIndice, codificacao), null);
+        return new Coluna<>(campo, (vetor, linha, registro, dicionario) -> {
+            String texto = valor.apply(registro);
+            if (texto == null) {
+                ((IntVector) vetor).setNull(linha);
+            } else {
+                ((IntVector) vetor).setSafe(linha, dicionario.indice(texto));
+            }
+        });
+    }
+}
@@ -0,0 +1,110 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.filter.PrazoRequisicaoFilter;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Cache de leitura para as consultas por id feitas ao Supabase.
+ * O Caffeine usa despejo W-TinyLFU limitado por tamanho e expira as entradas após o TTL.
+ * Como o cache guarda o futuro da consulta e não só o valor, misses concorrentes para a mesma
+ * chave compartilham uma única chamada ao Supabase. Ids inexistentes (Mono vazio) não são guardados.
+ */
+@Service
+public class CacheService {
+
+    public static final String PEDIDOS = "pedidos";
+    public static final String CLIENTES = "clientes";
+    public static final String PRODUTOS = "produtos";
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheService.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${cache.lookup.ttl:60s}")
+    private Duration ttl;
+
+    @Value("${cache.lookup.maximum-size:10000}")
+    private long tamanhoMaximo;
+
+    private final Map<String, AsyncCache<String, Object>> caches = new LinkedHashMap<>();
+
+    @PostConstruct
+    public void inicializar() {
+        for (String nome : new String[]{PEDIDOS, CLIENTES, PRODUTOS}) {
+            AsyncCache<String, Object> cache = Caffeine.newBuilder()
+                    .maximumSize(tamanhoMaximo)
+                    .expireAfterWrite(ttl)
+                    .recordStats()
+                    .buildAsync();
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, nome);
+            caches.put(nome, cache);
+        }
+        logger.info("Cache de consultas inicializado (ttl={}, tamanho máximo={})", ttl, tamanhoMaximo);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> buscar(String nomeCache, String id, Supplier<Mono<T>> carregador) {
+        AsyncCache<String, Object> cache = obterCache(nomeCache);
+        // suppressCancel: o cancelamento de um assinante não pode cancelar o futuro compartilhado com os demais
+        // a carga roda fora do contexto da requisição, então o prazo dela é aplicado aqui, na espera de cada assinante
+        Mono<Object> carga = Mono.fromFuture(() -> cache.get(id, (chave, executor) -> carregador.get().<Object>map(valor -> valor).toFuture()), true);
+        return PrazoRequisicaoFilter.limitarAoPrazo(carga, nomeCache)
+                .map(valor -> (T) valor);
+    }
+
+    public <T> void registrar(String nomeCache, String id, T valor) {
+        obterCache(nomeCache).put(id, CompletableFuture.completedFuture(valor));
+    }
+
+    public void invalidar(String nomeCache, String id) {
+        obterCache(nomeCache).synchronous().invalidate(id);
+        logger.debug("Chave {} removida do cache {}", id, nomeCache);
+    }
+
+    public void invalidarTudo(String nomeCache) {
+        obterCache(nomeCache).synchronous().invalidateAll();
+        logger.info("Cache {} esvaziado", nomeCache);
+    }
+
+    public Map<String, Map<String, Object>> estatisticas() {
+        Map<String, Map<String, Object>> resultado = new LinkedHashMap<>();
+        caches.forEach((nome, cache) -> {
+            CacheStats stats = cache.synchronous().stats();
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("tamanho", cache.synchronous().estimatedSize());
+            dados.put("hits", stats.hitCount());
+            dados.put("misses", stats.missCount());
+            dados.put("hitRate", stats.hitRate());
+            dados.put("evictions", stats.evictionCount());
+            dados.put("falhasDeCarga", stats.loadFailureCount());
+            resultado.put(nome, dados);
+        });
+        return resultado;
+    }
+
+    private AsyncCache<String, Object> obterCache(String nomeCache) {
+        AsyncCache<String, Object> cache = caches.get(nomeCache);
+        if (cache == null) {
+            throw new IllegalArgumentException("Cache desconhecido: " + nomeCache);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Produto;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Snapshot imutável do catálogo de produtos. Os produtos ficam ordenados por preço, então a
+ * posição de cada um (ordinal) já é a ordem de listagem e uma faixa de preço vira um intervalo de
+ * ordinais achado por busca binária. A busca textual usa um índice invertido de termos de nome e
+ * descrição (minúsculos, sem acento) com listas de ordinais; o prefixo de cada termo da consulta
+ * é uma faixa contígua no vetor ordenado de termos.
+ */
+final class CatalogoProdutos {
+
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern ACENTOS = Pattern.compile("\\p{M}+");
+
+    // Limites de preço em centavos; Long.MAX_VALUE fica para produto sem preço
+    private static final BigDecimal PRECO_MAXIMO = BigDecimal.valueOf(Long.MAX_VALUE - 1, 2);
+    private static final BigDecimal PRECO_MINIMO = BigDecimal.valueOf(Long.MIN_VALUE, 2);
+    private static final BigDecimal MEIO_CENTAVO = new BigDecimal("0.005");
+
+    private static final Comparator<Produto> ORDEM_PRECO = Comparator
+            .comparing(Produto::getPreco, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Produto::getId);
+
+    private final Produto[] produtos;
+    private final long[] precos;
+    private final BitSet emEstoque;
+    private final String[] termos;
+    private final int[][] ocorrencias;
+    private final Map<String, Produto> porId;
+    private final LocalDateTime atualizadoEm;
+
+    CatalogoProdutos(List<Produto> lista, LocalDateTime atualizadoEm) {
+        this.atualizadoEm = atualizadoEm;
+        produtos = lista.toArray(new Produto[0]);
+        Arrays.sort(produtos, ORDEM_PRECO);
+        precos = new long[produtos.length];
+        emEstoque = new BitSet(produtos.length);
+        porId = new HashMap<>(produtos.length * 2);
+
+        Map<String, List<Integer>> indice = new TreeMap<>();
+        for (int i = 0; i < produtos.length; i++) {
+            Produto produto = produtos[i];
+            precos[i] = produto.getPreco() == null ? Long.MAX_VALUE : centavos(produto.getPreco());
+            if (produto.getEstoque() != null && produto.getEstoque() > 0) {
+                emEstoque.set(i);
+            }
+            porId.put(produto.getId(), produto);
+            indexar(indice, produto.getNome(), i);
+            indexar(indice, produto.getDescricao(), i);
+        }
+        termos = indice.keySet().toArray(new String[0]);
+        ocorrencias = new int[termos.length][];
+        int t = 0;
+        for (List<Integer> ordinais : indice.values()) {
+            ocorrencias[t++] = ordinais.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static void indexar(Map<String, List<Integer>> indice, String texto, int ordinal) {
+        for (String termo : termos(texto)) {
+            List<Integer> ordinais = indice.computeIfAbsent(termo, t -> new ArrayList<>());
+            // Produtos são indexados em ordem, então um termo repetido no mesmo produto só pode ser o último
+            if (ordinais.isEmpty() || ordinais.get(ordinais.size() - 1) != ordinal) {
+                ordinais.add(ordinal);
+            }
+        }
+    }
+
+    int getTamanho() {
+        return produtos.length;
+    }
+
+    int getTotalTermos() {
+        return termos.length;
+    }
+
+    LocalDateTime getAtualizadoEm() {
+        return atualizadoEm;
+    }
+
+    Produto buscarPorId(String id) {
+        return porId.get(id);
+    }
+
+    /**
+     * Produtos que contêm todos os termos da consulta (cada um como prefixo), dentro da faixa de
+     * preço e opcionalmente só com estoque, na ordem de preço. Retorna a página pedida e o total.
+     */
+    Resultado pesquisar(String consulta, BigDecimal precoMinimo, BigDecimal precoMaximo, boolean apenasEmEstoque,
+                        boolean decrescente, int offset, int limite) {
+        int inicio = precoMinimo == null ? 0 : primeiroComPrecoAPartirDe(centavos(precoMinimo));
+        int fim = precoMaximo == null ? produtos.length : primeiroComPrecoAPartirDe(centavos(precoMaximo) + 1);
+        if (inicio >= fim) {
+            return new Resultado(List.of(), 0);
+        }
+
+        BitSet selecionados = null;
+        for (String prefixo : termos(consulta)) {
+            BitSet comTermo = comPrefixo(prefixo);
+            if (selecionados == null) {
+                selecionados = comTermo;
+            } else {
+                selecionados.and(comTermo);
+            }
+        }
+        if (apenasEmEstoque) {
+            if (selecionados == null) {
+                selecionados = (BitSet) emEstoque.clone();
+            } else {
+                selecionados.and(emEstoque);
+            }
+        }
+
+        if (selecionados == null) {
+            // Sem texto nem filtro de estoque: a faixa já é o resultado, basta recortar a página
+            int total = fim - inicio;
+            if (offset >= total) {
+                return new Resultado(List.of(), total);
+            }
+            List<Produto> pagina = new ArrayList<>(Math.max(0, Math.min(limite, total - offset)));
+            for (int i = offset; i < total && pagina.size() < limite; i++) {
+                pagina.add(produtos[decrescente ? fim - 1 - i : inicio + i]);
+            }
+            return new Resultado(pagina, total);
+        }
+
+        selecionados.clear(0, inicio);
+        selecionados.clear(fim, Math.max(fim, selecionados.length()));
+        int total = selecionados.cardinality();
+        if (offset >= total) {
+            return new Resultado(List.of(), total);
+        }
+        List<Produto> pagina = new ArrayList<>(Math.max(0, Math.min(limite, total - offset)));
+        int pulados = 0;
+        int i = decrescente ? selecionados.previousSetBit(fim - 1) : selecionados.nextSetBit(inicio);
+        while (i >= 0 && pagina.size() < limite) {
+            if (pulados++ >= offset) {
+                pagina.add(produtos[i]);
+            }
+            i = decrescente ? selecionados.previousSetBit(i - 1) : selecionados.nextSetBit(i + 1);
+        }
+        return new Resultado(pagina, total);
+    }
+
+    private BitSet comPrefixo(String prefixo) {
+        BitSet resultado = new BitSet(produtos.length);
+        int posicao = Arrays.binarySearch(termos, prefixo);
+        for (int t = posicao >= 0 ? posicao : -posicao - 1; t < termos.length && termos[t].startsWith(prefixo); t++) {
+            for (int ordinal : ocorrencias[t]) {
+                resultado.set(ordinal);
+            }
+        }
+        return resultado;
+    }
+
+    private int primeiroComPrecoAPartirDe(long centavos) {
+        int baixo = 0;
+        int alto = precos.length;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (precos[meio] < centavos) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    static List<String> termos(String texto) {
+        if (texto == null || texto.isBlank()) {
+            return Collections.emptyList();
+        }
+        String normalizado = ACENTOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+        List<String> termos = new ArrayList<>();
+        for (String termo : SEPARADORES.split(normalizado)) {
+            if (!termo.isEmpty()) {
+                termos.add(termo);
+            }
+        }
+        return termos;
+    }
+
+    /**
+     * Preço em centavos, saturado nos limites: um filtro como precoMax=1e20 vira "sem teto" em vez
+     * de estourar, e valores com expoente enorme não chegam ao setScale.
+     */
+    static long centavos(BigDecimal valor) {
+        if (valor.compareTo(PRECO_MAXIMO) >= 0) {
+            return Long.MAX_VALUE - 1;
+        }
+        if (valor.compareTo(PRECO_MINIMO) <= 0) {
+            return Long.MIN_VALUE;
+        }
+        if (valor.abs().compareTo(MEIO_CENTAVO) < 0) {
+            return 0;
+        }
+        return valor.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    record Resultado(List<Produto> produtos, long total) {}
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.PaginaProdutos;
+import com.ecommerce.backend.model.Produto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Catálogo de produtos em memória para navegação e busca, recarregado por inteiro a cada
+ * catalogo.refresh-interval. As consultas leem um {@link CatalogoProdutos} imutável publicado
+ * numa referência volatile: a recarga monta o próximo snapshot ao lado e troca de uma vez, sem
+ * travar quem está lendo. Até a primeira carga terminar as buscas usam os produtos do snapshot local,
+ * quando houver, ou retornam vazio. O catálogo vindo do snapshot não responde consultas por id
+ * (GET /api/produtos/{id}), que podem estar muito atrasadas: elas vão ao Supabase até a primeira
+ * recarga.
+ */
+@Service
+public class CatalogoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CatalogoService.class);
+
+    private static final ParameterizedTypeReference<Produto> TIPO_PRODUTO = new ParameterizedTypeReference<>() {};
+
+    @Autowired
+    private CsvExportService csvExportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SnapshotService snapshotService;
+
+    @Autowired
+    @Qualifier("schedulerComputacao")
+    private Scheduler schedulerComputacao;
+
+    @Value("${catalogo.enabled:true}")
+    private boolean ativo;
+
+    @Value("${catalogo.refresh-interval:60s}")
+    private Duration intervaloRecarga;
+
+    private volatile CatalogoProdutos catalogo;
+    private volatile boolean doSnapshot;
+    private Disposable recarga;
+
+    @PostConstruct
+    public void iniciar() {
+        Gauge.builder("catalogo.products", this, servico -> servico.catalogo == null ? 0 : servico.catalogo.getTamanho())
+                .register(meterRegistry);
+        Gauge.builder("catalogo.terms", this, servico -> servico.catalogo == null ? 0 : servico.catalogo.getTotalTermos())
+                .register(meterRegistry);
+        if (!ativo) {
+            logger.info("Catálogo em memória desativado");
+            return;
+        }
+        carregarDoSnapshot();
+        recarga = Mono.defer(this::recarregar)
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao recarregar catálogo de produtos: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .repeatWhen(ciclos -> ciclos.delayElements(intervaloRecarga))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (recarga != null) {
+            recarga.dispose();
+        }
+    }
+
+    public boolean isCarregado() {
+        return catalogo != null;
+    }
+
+    public Optional<Produto> buscarPorId(String id) {
+        CatalogoProdutos atual = catalogo;
+        return atual == null || doSnapshot ? Optional.empty() : Optional.ofNullable(atual.buscarPorId(id));
+    }
+
+    /**
+     * Página de produtos que casam com a consulta (todos os termos, por prefixo, em nome ou
+     * descrição), dentro da faixa de preço, ordenada por preço. Páginas depois do fim voltam
+     * vazias, com o total.
+     */
+    public Optional<PaginaProdutos> pesquisar(String consulta, BigDecimal precoMinimo, BigDecimal precoMaximo,
+                                              boolean apenasEmEstoque, boolean decrescente, int pagina, int tamanho) {
+        CatalogoProdutos atual = catalogo;
+        if (atual == null) {
+            return Optional.empty();
+        }
+        // pagina * tamanho estoura int em páginas altas; nenhum catálogo passa de Integer.MAX_VALUE produtos
+        int deslocamento = (int) Math.min((long) pagina * tamanho, Integer.MAX_VALUE);
+        CatalogoProdutos.Resultado resultado = atual.pesquisar(consulta, precoMinimo, precoMaximo, apenasEmEstoque,
+                decrescente, deslocamento, tamanho);
+        return Optional.of(new PaginaProdutos(resultado.produtos(), resultado.total(), pagina, tamanho, atual.getAtualizadoEm()));
+    }
+
+    private void carregarDoSnapshot() {
+        List<Produto> produtos = snapshotService.listarProdutos();
+        if (produtos.isEmpty()) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        doSnapshot = true;
+        catalogo = new CatalogoProdutos(produtos, LocalDateTime.ofInstant(snapshotService.getGravadoEm().orElseThrow(), ZoneId.systemDefault()));
+        logger.info("Catálogo iniciado do snapshot local: {} produto(s) em {} ms",
+                produtos.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    private Mono<Void> recarregar() {
+        long inicio = System.nanoTime();
+        return csvExportService.buscarPaginas("/produtos", TIPO_PRODUTO, Produto::getId, null, null)
+                .reduce(new ArrayList<Produto>(), (todos, pagina) -> {
+                    todos.addAll(pagina);
+                    return todos;
+                })
+                .publishOn(schedulerComputacao)
+                .map(produtos -> new CatalogoProdutos(produtos, LocalDateTime.now()))
+                .doOnNext(novo -> {
+                    boolean primeiraCarga = catalogo == null || doSnapshot;
+                    catalogo = novo;
+                    doSnapshot = false;
+                    long duracao = System.nanoTime() - inicio;
+                    Timer.builder("catalogo.refresh").register(meterRegistry).record(Duration.ofNanos(duracao));
+                    if (primeiraCarga) {
+                        logger.info("Catálogo carregado: {} produto(s), {} termo(s) em {} ms",
+                                novo.getTamanho(), novo.getTotalTermos(), duracao / 1_000_000);
+                    }
+                })
+                .then();
+    }
+}
@@ -0,0 +1,177 @@
+package com.ecommerce.backend.service;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compressão em stream das exportações: cada bloco recebido é comprimido e liberado na hora
+ * (flush de sincronização), então o download começa antes da exportação terminar e nunca
+ * existe uma cópia inteira do arquivo em memória.
+ */
+@Service
+public class CompressaoService {
+
+    public enum Codificacao {
+        ZSTD("zstd"), GZIP("gzip"), IDENTITY("identity");
+
+        private final String valor;
+
+        Codificacao(String valor) {
+            this.valor = valor;
+        }
+
+        public String getValor() {
+            return valor;
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${export.compression.gzip-level:6}")
+    private int nivelGzip;
+
+    @Value("${export.compression.zstd-level:3}")
+    private int nivelZstd;
+
+    /**
+     * Escolhe a codificação a partir do Accept-Encoding, respeitando q=0. Com empate de preferência,
+     * zstd vence gzip por comprimir melhor e mais rápido.
+     */
+    public Codificacao negociar(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return Codificacao.IDENTITY;
+        }
+        Codificacao escolhida = Codificacao.IDENTITY;
+        double melhorQ = 0;
+        for (String parte : acceptEncoding.split(",")) {
+            String[] tokens = parte.trim().split(";");
+            String nome = tokens[0].trim().toLowerCase();
+            double q = 1.0;
+            for (int i = 1; i < tokens.length; i++) {
+                String parametro = tokens[i].trim();
+                if (parametro.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(parametro.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            Codificacao candidata = switch (nome) {
+                case "zstd" -> Codificacao.ZSTD;
+                case "gzip", "x-gzip" -> Codificacao.GZIP;
+                default -> null;
+            };
+            if (candidata == null || q <= 0) {
+                continue;
+            }
+            if (q > melhorQ || (q == melhorQ && candidata.ordinal() < escolhida.ordinal())) {
+                escolhida = candidata;
+                melhorQ = q;
+            }
+        }
+        return escolhida;
+    }
+
+    public Flux<DataBuffer> comprimir(Flux<DataBuffer> entrada, Codificacao codificacao, String exportacao) {
+        if (codificacao == Codificacao.IDENTITY) {
+            return entrada;
+        }
+        return Flux.defer(() -> {
+            ByteArrayOutputStream saida = new ByteArrayOutputStream(64 * 1024);
+            OutputStream compressor = criarCompressor(codificacao, saida);
+            AtomicLong bytesOriginais = new AtomicLong();
+            AtomicLong bytesComprimidos = new AtomicLong();
+
+            Flux<DataBuffer> blocos = entrada.concatMap(buffer -> {
+                try {
+                    bytesOriginais.addAndGet(buffer.readableByteCount());
+                    try (var leitura = buffer.readableByteBuffers()) {
+                        while (leitura.hasNext()) {
+                            var byteBuffer = leitura.next();
+                            byte[] bytes = new byte[byteBuffer.remaining()];
+                            byteBuffer.get(bytes);
+                            compressor.write(bytes);
+                        }
+                    }
+                    compressor.flush();
+                    return drenar(saida, bytesComprimidos);
+                } catch (IOException e) {
+                    return Mono.error(new RuntimeException("Erro ao comprimir exportação " + exportacao, e));
+                } finally {
+                    DataBufferUtils.release(buffer);
+                }
+            });
+
+            Mono<DataBuffer> finalizacao = Mono.defer(() -> {
+                try {
+                    compressor.close();
+                    return drenar(saida, bytesComprimidos);
+                } catch (IOException e) {
+                    return Mono.error(new RuntimeException("Erro ao finalizar compressão de " + exportacao, e));
+                }
+            });
+
+            return blocos.concatWith(finalizacao)
+                    .doOnComplete(() -> registrarMetricas(codificacao, exportacao, bytesOriginais.get(), bytesComprimidos.get()))
+                    .doFinally(sinal -> fecharSilenciosamente(compressor));
+        });
+    }
+
+    private OutputStream criarCompressor(Codificacao codificacao, ByteArrayOutputStream saida) {
+        try {
+            if (codificacao == Codificacao.ZSTD) {
+                return new ZstdOutputStream(saida, nivelZstd);
+            }
+            return new GZIPOutputStream(saida, 64 * 1024, true) {
+                {
+                    def.setLevel(nivelGzip);
+                }
+            };
+        } catch (IOException e) {
+            throw new RuntimeException("Erro ao iniciar compressão " + codificacao.getValor(), e);
+        }
+    }
+
+    private static Mono<DataBuffer> drenar(ByteArrayOutputStream saida, AtomicLong bytesComprimidos) {
+        if (saida.size() == 0) {
+            return Mono.empty();
+        }
+        byte[] comprimido = saida.toByteArray();
+        saida.reset();
+        bytesComprimidos.addAndGet(comprimido.length);
+        return Mono.just(DefaultDataBufferFactory.sharedInstance.wrap(comprimido));
+    }
+
+    private void registrarMetricas(Codificacao codificacao, String exportacao, long originais, long comprimidos) {
+        String encoding = codificacao.getValor();
+        meterRegistry.counter("csv.export.compressed.bytes", "export", exportacao, "encoding", encoding).increment(comprimidos);
+        if (comprimidos > 0) {
+            meterRegistry.summary("csv.export.compression.ratio", "export", exportacao, "encoding", encoding)
+                    .record((double) originais / comprimidos);
+        }
+    }
+
+    private static void fecharSilenciosamente(OutputStream compressor) {
+        try {
+            compressor.close();
+        } catch (IOException | RuntimeException ignorada) {
+            // já fechado ou a exportação foi cancelada; não há o que recuperar
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.NovoItemPedido;
+import com.ecommerce.backend.model.NovoPedido;
+import com.ecommerce.backend.model.PedidoCompleto;
+import com.ecommerce.backend.model.Produto;
+import com.ecommerce.backend.model.ResultadoImportacao;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Criação de pedidos pelo backend. O id do pedido é gerado aqui, então pedidos e itens seguem numa
+ * única chamada à função criar_pedidos do Supabase (supabase/migrations), que grava tudo numa
+ * transação: a latência não cresce com o número de itens e uma falha não deixa pedido sem itens.
+ * Os preços são lidos direto do Supabase a cada criação (id=in.(...), sem catálogo nem
+ * cache, que podem estar até um minuto atrasados) e subtotal e total são calculados aqui. Cliente
+ * inexistente chega como violação de chave estrangeira e vira IllegalArgumentException (422).
+ */
+@Service
+public class CriacaoPedidoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CriacaoPedidoService.class);
+
+    private static final String FUNCAO_CRIACAO = "criar_pedidos";
+
+    @Autowired
+    @Qualifier("supabaseServiceWebClient")
+    private WebClient supabaseServiceWebClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pedidos.confirmacao.status-pendente:pendente}")
+    private String statusPendente;
+
+    @Value("${pedidos.import.batch-size:100}")
+    private int tamanhoLote;
+
+    @Value("${pedidos.import.concurrency:4}")
+    private int concorrencia;
+
+    @Value("${pedidos.batch.concurrency:4}")
+    private int concorrenciaProdutos;
+
+    @Value("${pedidos.batch.ids-per-request:100}")
+    private int idsPorRequisicao;
+
+    public Mono<PedidoCompleto> criarPedido(NovoPedido novo) {
+        return buscarPrecos(produtos(List.of(novo)))
+                .flatMap(precos -> {
+                    LinhasPedido linhas = montarLinhas(novo, precos, LocalDateTime.now());
+                    return supabaseServiceWebClient
+                            .post()
+                            .uri("/rpc/{funcao}", FUNCAO_CRIACAO)
+                            .bodyValue(Map.of("pedidos", List.of(linhas.pedido()), "devolver", true))
+                            .retrieve()
+                            .bodyToFlux(PedidoCompleto.class)
+                            .next()
+                            .onErrorMap(CriacaoPedidoService::violaReferencia, CriacaoPedidoService::referenciaInexistente);
+                })
+                .doOnNext(pedido -> {
+                    meterRegistry.counter("pedidos.created", "mode", "single").increment();
+                    logger.info("Pedido {} criado com {} item(ns), total {}", pedido.getId(), pedido.getItens().size(), pedido.getTotal());
+                })
+                .doOnError(e -> logger.error("Erro ao criar pedido para cliente {}: {}", novo.clienteId(), e.getMessage()));
+    }
+
+    /**
+     * Importação em massa: os preços de todos os produtos são resolvidos uma vez, os pedidos são
+     * gravados em lotes de pedidos.import.batch-size (uma chamada a criar_pedidos por lote, sem
+     * devolver as linhas) e até pedidos.import.concurrency lotes ficam em voo ao mesmo tempo.
+     * Um lote que falha não grava nada e é reportado; os demais seguem.
+     */
+    public Mono<ResultadoImportacao> importarPedidos(List<NovoPedido> pedidos) {
+        LocalDateTime agora = LocalDateTime.now();
+        return buscarPrecos(produtos(pedidos))
+                .flatMap(precos -> Flux.fromIterable(pedidos)
+                        .buffer(tamanhoLote)
+                        .flatMapSequential(lote -> gravarLote(lote, precos, agora), concorrencia)
+                        .collectList())
+                .map(resultados -> {
+                    int criados = 0;
+                    int itens = 0;
+                    int falhas = 0;
+                    List<String> erros = new ArrayList<>();
+                    for (ResultadoLote resultado : resultados) {
+                        if (resultado.erro() == null) {
+                            criados += resultado.pedidos();
+                            itens += resultado.itens();
+                        } else {
+                            falhas += resultado.pedidos();
+                            erros.add(resultado.erro());
+                        }
+                    }
+                    meterRegistry.counter("pedidos.created", "mode", "import").increment(criados);
+                    logger.info("Importação de pedidos: {} criado(s), {} com falha", criados, falhas);
+                    return new ResultadoImportacao(criados, itens, falhas, erros);
+                });
+    }
+
+    private Mono<ResultadoLote> gravarLote(List<NovoPedido> lote, Map<String, BigDecimal> precos, LocalDateTime agora) {
+        List<LinhasPedido> linhas = lote.stream().map(novo -> montarLinhas(novo, precos, agora)).toList();
+        List<String> ids = linhas.stream().map(LinhasPedido::id).toList();
+        int itens = linhas.stream().mapToInt(l -> l.itens().size()).sum();
+        return supabaseServiceWebClient
+                .post()
+                .uri("/rpc/{funcao}", FUNCAO_CRIACAO)
+                .bodyValue(Map.of("pedidos", linhas.stream().map(LinhasPedido::pedido).toList()))
+                .retrieve()
+                .toBodilessEntity()
+                .onErrorMap(CriacaoPedidoService::violaReferencia, CriacaoPedidoService::referenciaInexistente)
+                .thenReturn(new ResultadoLote(lote.size(), itens, null))
+                .onErrorResume(e -> {
+                    logger.error("Erro ao importar lote de {} pedido(s): {}", lote.size(), e.getMessage());
+                    return Mono.just(new ResultadoLote(lote.size(), 0, "Lote a partir do pedido " + ids.get(0) + ": " + e.getMessage()));
+                });
+    }
+
+    /**
+     * Preço atual de cada produto citado, em blocos de até pedidos.batch.ids-per-request ids;
+     * produto inexistente ou sem preço recusa a criação inteira.
+     */
+    private Mono<Map<String, BigDecimal>> buscarPrecos(Collection<String> produtoIds) {
+        return Flux.fromIterable(produtoIds)
+                .buffer(idsPorRequisicao)
+                .flatMap(this::consultarPrecos, concorrenciaProdutos)
+                .filter(produto -> produto.getPreco() != null)
+                .collectMap(Produto::getId, Produto::getPreco)
+                .flatMap(precos -> produtoIds.stream()
+                        .filter(produtoId -> !precos.containsKey(produtoId))
+                        .findFirst()
+                        .<Mono<Map<String, BigDecimal>>>map(produtoId -> Mono.error(
+                                new IllegalArgumentException("Produto não encontrado ou sem preço: " + produtoId)))
+                        .orElseGet(() -> Mono.just(precos)));
+    }
+
+    private Flux<Produto> consultarPrecos(List<String> produtoIds) {
+        String ids = FiltrosPostgrest.lista(produtoIds);
+        return supabaseServiceWebClient
+                .get()
+                .uri("/produtos?select=id,preco&id=in.({ids})", ids)
+                .retrieve()
+                .bodyToFlux(Produto.class)
+                .doOnError(e -> logger.error("Erro ao buscar preços de {} produto(s): {}", produtoIds.size(), e.getMessage()));
+    }
+
+    /**
+     * Chave estrangeira violada (PostgREST responde 409 com o código 23503 do Postgres): cliente
+     * inexistente, ou produto removido depois da leitura dos preços.
+     */
+    private static boolean violaReferencia(Throwable erro) {
+        return erro instanceof WebClientResponseException resposta
+                && resposta.getStatusCode().value() == 409
+                && resposta.getResponseBodyAsString().contains("23503");
+    }
+
+    private static Throwable referenciaInexistente(Throwable erro) {
+        return new IllegalArgumentException("Cliente ou produto não encontrado");
+    }
+
+    private static Set<String> produtos(List<NovoPedido> pedidos) {
+        Set<String> ids = new LinkedHashSet<>();
+        pedidos.forEach(pedido -> pedido.itens().forEach(item -> ids.add(item.produtoId())));
+        return ids;
+    }
+
+    private LinhasPedido montarLinhas(NovoPedido novo, Map<String, BigDecimal> precos, LocalDateTime agora) {
+        String pedidoId = UUID.randomUUID().toString();
+        BigDecimal total = BigDecimal.ZERO;
+        List<Map<String, Object>> itens = new ArrayList<>(novo.itens().size());
+        for (NovoItemPedido item : novo.itens()) {
+            BigDecimal preco = precos.get(item.produtoId());
+            BigDecimal subtotal = preco.multiply(BigDecimal.valueOf(item.quantidade())).setScale(2, RoundingMode.HALF_UP);
+            total = total.add(subtotal);
+            Map<String, Object> linha = new LinkedHashMap<>();
+            linha.put("pedido_id", pedidoId);
+            linha.put("produto_id", item.produtoId());
+            linha.put("quantidade", item.quantidade());
+            linha.put("preco_unitario", preco);
+            linha.put("subtotal", subtotal);
+            itens.add(linha);
+        }
+        Map<String, Object> pedido = new LinkedHashMap<>();
+        pedido.put("id", pedidoId);
+        pedido.put("cliente_id", novo.clienteId());
+        pedido.put("data_pedido", agora);
+        pedido.put("status", statusPendente);
+        pedido.put("total", total);
+        pedido.put("itens", itens);
+        return new LinhasPedido(pedidoId, pedido, itens);
+    }
+
+    private record LinhasPedido(String id, Map<String, Object> pedido, List<Map<String, Object>> itens) {}
+
+    private record ResultadoLote(int pedidos, int itens, String erro) {}
+}
@@ -1,48 +1,82 @@
 package com.ecommerce.backend.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.csv.CSVFormat;
 import org.apache.commons.csv.CSVPrinter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.io.IOException;
 import java.io.StringWriter;
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 @Service
 public class CsvExportService {
 
     private static final Logger logger = LoggerFactory.getLogger(CsvExportService.class);
 
+    private static final ParameterizedTypeReference<Map<String, Object>> TIPO_REGISTRO = new ParameterizedTypeReference<>() {};
+
+    private static final String[] COLUNAS_PRODUTOS = {"id", "nome", "descricao", "preco", "estoque", "imagem_url"};
+    private static final String[] COLUNAS_CLIENTES = {"id", "nome", "email", "endereco", "telefone", "created_at"};
+    private static final String[] COLUNAS_PEDIDOS = {"id", "cliente_id", "data_pedido", "status", "total", "created_at"};
+    private static final String[] COLUNAS_PEDIDO_ITENS = {"id", "pedido_id", "produto_id", "quantidade", "preco_unitario", "subtotal", "created_at"};
+
+    /**
+     * Tabelas que podem entrar na exportação completa e suas colunas.
+     */
+    public static final Map<String, String[]> TABELAS_EXPORTACAO_COMPLETA = Map.of(
+            "produtos", COLUNAS_PRODUTOS,
+            "clientes", COLUNAS_CLIENTES,
+            "pedidos", COLUNAS_PEDIDOS,
+            "pedido_itens", COLUNAS_PEDIDO_ITENS);
+
     @Autowired
     @Qualifier("supabaseWebClient")
     private WebClient supabaseWebClient;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("schedulerComputacao")
+    private Scheduler schedulerComputacao;
+
+    @Value("${export.csv.page-size:1000}")
+    private int tamanhoPagina;
 
     public Mono<String> exportarPedidoParaCSV(String pedidoId) {
         return supabaseWebClient
                 .get()
                 .uri("/pedidos_detalhados?pedido_id=eq.{pedidoId}", pedidoId)
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
+                .bodyToFlux(TIPO_REGISTRO)
+                .collectList()
+                .publishOn(schedulerComputacao)
+                .map(pedidoDetalhado -> {
                     try {
-                        List<Map<String, Object>> pedidoDetalhado = objectMapper.readValue(response, new TypeReference<List<Map<String, Object>>>() {});
-                        
                         if (pedidoDetalhado.isEmpty()) {
                             throw new RuntimeException("Pedido não encontrado: " + pedidoId);
                         }
 
-                        return gerarCSVDoPedido(pedidoDetalhado);
+                        String csv = gerarCSVDoPedido(pedidoDetalhado);
+                        registrarMetricas("pedido", pedidoDetalhado.size(), csv.getBytes(StandardCharsets.UTF_8).length);
+                        return csv;
                     } catch (Exception e) {
                         logger.error("Erro ao exportar pedido para CSV: {}", e.getMessage());
                         throw new RuntimeException("Erro ao gerar CSV do pedido", e);
@@ -50,7 +84,7 @@ public class CsvExportService {
                 });
     }
 
-    private String gerarCSVDoPedido(List<Map<String, Object>> pedidoDetalhado) throws Exception {
+    String gerarCSVDoPedido(List<Map<String, Object>> pedidoDetalhado) throws Exception {
         StringWriter stringWriter = new StringWriter();
         CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
                 .setHeader("produto_nome", "quantidade", "preco_unitario", "subtotal")
@@ -70,81 +104,143 @@ public class CsvExportService {
         return stringWriter.toString();
     }
 
-    public Mono<String> exportarProdutosParaCSV() {
+    String gerarCSVDosProdutos(List<Map<String, Object>> produtos) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        escreverRegistros(stringWriter, produtos, COLUNAS_PRODUTOS, true);
+        return stringWriter.toString();
+    }
+
+    String gerarCSVDosClientes(List<Map<String, Object>> clientes) throws Exception {
+        StringWriter stringWriter = new StringWriter();
+        escreverRegistros(stringWriter, clientes, COLUNAS_CLIENTES, true);
+        return stringWriter.toString();
+    }
+
+    public Flux<DataBuffer> exportarProdutosParaCSVStream() {
+        return exportarTabelaEmStream("/produtos", COLUNAS_PRODUTOS, null, null)
+                .doOnError(e -> logger.error("Erro ao exportar produtos para CSV: {}", e.getMessage()));
+    }
+
+    public Flux<DataBuffer> exportarClientesParaCSVStream() {
+        return exportarTabelaEmStream("/clientes", COLUNAS_CLIENTES, null, null)
+                .doOnError(e -> logger.error("Erro ao exportar clientes para CSV: {}", e.getMessage()));
+    }
+
+    /**
+     * Versão de uma tabela exportável para os validadores HTTP, sem reexportá-la: maior updated_at
+     * e total de linhas (Prefer: count=exact, lido do Content-Range) numa consulta de uma linha. O
+     * total pega exclusões, que não mudam o maior updated_at.
+     */
+    public Mono<String> versaoTabela(String tabela) {
         return supabaseWebClient
                 .get()
-                .uri("/produtos")
+                .uri("/{tabela}?select=updated_at&order=updated_at.desc.nullslast&limit=1", tabela)
+                .header("Prefer", "count=exact")
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
+                .toEntityList(TIPO_REGISTRO)
+                .map(resposta -> {
+                    String intervalo = resposta.getHeaders().getFirst("Content-Range");
+                    String total = intervalo != null ? intervalo.substring(intervalo.indexOf('/') + 1) : "?";
+                    List<Map<String, Object>> registros = resposta.getBody();
+                    Object atualizadoEm = registros == null || registros.isEmpty() ? null : registros.get(0).get("updated_at");
+                    return atualizadoEm + "/" + total;
+                });
+    }
+
+    /**
+     * Exporta uma tabela da exportação completa, opcionalmente só os registros com created_at
+     * em [inicio, fim).
+     */
+    public Flux<DataBuffer> exportarTabelaParaCSVStream(String tabela, LocalDateTime inicio, LocalDateTime fim) {
+        String[] colunas = TABELAS_EXPORTACAO_COMPLETA.get(tabela);
+        if (colunas == null) {
+            return Flux.error(new IllegalArgumentException("Tabela não exportável: " + tabela));
+        }
+        return exportarTabelaEmStream("/" + tabela, colunas, inicio, fim)
+                .doOnError(e -> logger.error("Erro ao exportar {} para CSV: {}", tabela, e.getMessage()));
+    }
+
+    /**
+     * Percorre a tabela em páginas ordenadas por id (keyset) e converte cada página em um bloco CSV.
+     * A próxima página só é buscada quando o consumidor pede mais dados, então a memória
+     * fica limitada a uma página independente do tamanho da tabela.
+     * O cabeçalho sai junto com a primeira página para que falhas iniciais ainda virem um erro HTTP.
+     */
+    private Flux<DataBuffer> exportarTabelaEmStream(String recurso, String[] colunas, LocalDateTime inicio, LocalDateTime fim) {
+        return buscarPaginas(recurso, inicio, fim)
+                .publishOn(schedulerComputacao, 1)
+                .index()
+                .map(pagina -> {
+                    StringBuilder bloco = new StringBuilder();
                     try {
-                        List<Map<String, Object>> produtos = objectMapper.readValue(response, new TypeReference<List<Map<String, Object>>>() {});
-                        return gerarCSVDosProdutos(produtos);
-                    } catch (Exception e) {
-                        logger.error("Erro ao exportar produtos para CSV: {}", e.getMessage());
-                        throw new RuntimeException("Erro ao gerar CSV dos produtos", e);
+                        escreverRegistros(bloco, pagina.getT2(), colunas, pagina.getT1() == 0);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Erro ao gerar CSV de " + recurso, e);
                     }
+                    byte[] bytes = bloco.toString().getBytes(StandardCharsets.UTF_8);
+                    registrarMetricas(recurso.substring(1), pagina.getT2().size(), bytes.length);
+                    return DefaultDataBufferFactory.sharedInstance.wrap(bytes);
                 });
     }
 
-    private String gerarCSVDosProdutos(List<Map<String, Object>> produtos) throws Exception {
-        StringWriter stringWriter = new StringWriter();
-        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
-                .setHeader("id", "nome", "descricao", "preco", "estoque", "imagem_url")
-                .build();
-
-        try (CSVPrinter csvPrinter = new CSVPrinter(stringWriter, csvFormat)) {
-            for (Map<String, Object> produto : produtos) {
-                csvPrinter.printRecord(
-                        produto.get("id"),
-                        produto.get("nome"),
-                        produto.get("descricao"),
-                        produto.get("preco"),
-                        produto.get("estoque"),
-                        produto.get("imagem_url")
-                );
-            }
-        }
+    private Flux<List<Map<String, Object>>> buscarPaginas(String recurso, LocalDateTime inicio, LocalDateTime fim) {
+        return buscarPaginas(recurso, TIPO_REGISTRO, registro -> registro.get("id"), inicio, fim);
+    }
 
-        return stringWriter.toString();
+    /**
+     * Paginação keyset genérica (order=id.asc, id=gt.último), também usada pela exportação em Arrow
+     * com os registros já decodificados nos modelos.
+     */
+    <T> Flux<List<T>> buscarPaginas(String recurso, ParameterizedTypeReference<T> tipo, Function<T, Object> extrairId,
+                                    LocalDateTime inicio, LocalDateTime fim) {
+        return buscarPagina(recurso, tipo, null, inicio, fim)
+                .expand(pagina -> pagina.size() < tamanhoPagina
+                        ? Mono.empty()
+                        : buscarPagina(recurso, tipo, String.valueOf(extrairId.apply(pagina.get(pagina.size() - 1))), inicio, fim));
     }
 
-    public Mono<String> exportarClientesParaCSV() {
+    private <T> Mono<List<T>> buscarPagina(String recurso, ParameterizedTypeReference<T> tipo, String ultimoId,
+                                           LocalDateTime inicio, LocalDateTime fim) {
         return supabaseWebClient
                 .get()
-                .uri("/clientes")
-                .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
-                    try {
-                        List<Map<String, Object>> clientes = objectMapper.readValue(response, new TypeReference<List<Map<String, Object>>>() {});
-                        return gerarCSVDosClientes(clientes);
-                    } catch (Exception e) {
-                        logger.error("Erro ao exportar clientes para CSV: {}", e.getMessage());
-                        throw new RuntimeException("Erro ao gerar CSV dos clientes", e);
+                .uri(uriBuilder -> {
+                    uriBuilder.path(recurso)
+                            .queryParam("order", "id.asc")
+                            .queryParam("limit", tamanhoPagina);
+                    if (ultimoId != null) {
+                        uriBuilder.queryParam("id", "gt." + ultimoId);
                     }
-                });
+                    if (inicio != null) {
+                        uriBuilder.queryParam("created_at", "gte." + inicio);
+                    }
+                    if (fim != null) {
+                        uriBuilder.queryParam("created_at", "lt." + fim);
+                    }
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .bodyToFlux(tipo)
+                .collectList();
     }
 
-    private String gerarCSVDosClientes(List<Map<String, Object>> clientes) throws Exception {
-        StringWriter stringWriter = new StringWriter();
-        CSVFormat csvFormat = CSVFormat.DEFAULT.builder()
-                .setHeader("id", "nome", "email", "endereco", "telefone", "created_at")
-                .build();
+    private void registrarMetricas(String exportacao, long linhas, long bytes) {
+        meterRegistry.counter("csv.export.rows", "export", exportacao).increment(linhas);
+        meterRegistry.counter("csv.export.bytes", "export", exportacao).increment(bytes);
+    }
 
-        try (CSVPrinter csvPrinter = new CSVPrinter(stringWriter, csvFormat)) {
-            for (Map<String, Object> cliente : clientes) {
-                csvPrinter.printRecord(
-                        cliente.get("id"),
-                        cliente.get("nome"),
-                        cliente.get("email"),
-                        cliente.get("endereco"),
-                        cliente.get("telefone"),
-                        cliente.get("created_at")
-                );
-            }
+    private void escreverRegistros(Appendable destino, List<Map<String, Object>> registros, String[] colunas, boolean comCabecalho) throws IOException {
+        CSVFormat.Builder formato = CSVFormat.DEFAULT.builder();
+        if (comCabecalho) {
+            formato.setHeader(colunas);
         }
 
-        return stringWriter.toString();
+        try (CSVPrinter csvPrinter = new CSVPrinter(destino, formato.build())) {
+            for (Map<String, Object> registro : registros) {
+                for (String coluna : colunas) {
+                    csvPrinter.print(registro.get(coluna));
+                }
+                csvPrinter.println();
+            }
+        }
     }
 }
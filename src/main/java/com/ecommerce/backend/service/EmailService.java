@@ -2,38 +2,44 @@ package com.ecommerce.backend.service;
 
 import com.ecommerce.backend.model.Cliente;
 import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.model.PedidoItem;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class EmailService {
 
     private static final Logger logger = LoggerFactory.getLogger(EmailService.class);
 
     @Autowired
-    private JavaMailSender mailSender;
+    private FilaEmailService filaEmailService;
 
     public void enviarEmailConfirmacaoPedido(Cliente cliente, Pedido pedido) {
+        enviarEmailConfirmacaoPedido(cliente, pedido, List.of());
+    }
+
+    public void enviarEmailConfirmacaoPedido(Cliente cliente, Pedido pedido, List<PedidoItem> itens) {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(cliente.getEmail());
             message.setSubject("Confirmação do Pedido #" + pedido.getId());
-            message.setText(construirMensagemConfirmacao(cliente, pedido));
+            message.setText(construirMensagemConfirmacao(cliente, pedido, itens));
             message.setFrom("no-reply@seuecommerce.com");
 
-            mailSender.send(message);
-            logger.info("E-mail de confirmação enviado para: {}", cliente.getEmail());
+            filaEmailService.enfileirar(message);
+            logger.info("E-mail de confirmação enfileirado para: {}", cliente.getEmail());
         } catch (Exception e) {
-            logger.error("Erro ao enviar e-mail de confirmação para: {}", cliente.getEmail(), e);
-            throw new RuntimeException("Falha ao enviar e-mail de confirmação", e);
+            logger.error("Erro ao enfileirar e-mail de confirmação para: {}", cliente.getEmail(), e);
+            throw new RuntimeException("Falha ao enfileirar e-mail de confirmação", e);
         }
     }
 
-    private String construirMensagemConfirmacao(Cliente cliente, Pedido pedido) {
+    private String construirMensagemConfirmacao(Cliente cliente, Pedido pedido, List<PedidoItem> itens) {
         StringBuilder mensagem = new StringBuilder();
         mensagem.append("Olá ").append(cliente.getNome()).append(",\n\n");
         mensagem.append("Seu pedido #").append(pedido.getId()).append(" foi confirmado com sucesso!\n\n");
@@ -42,6 +48,16 @@ public class EmailService {
         mensagem.append("- Data do Pedido: ").append(pedido.getDataPedido()).append("\n");
         mensagem.append("- Status: ").append(pedido.getStatus()).append("\n");
         mensagem.append("- Total: R$ ").append(pedido.getTotal()).append("\n\n");
+        if (!itens.isEmpty()) {
+            mensagem.append("Itens:\n");
+            for (PedidoItem item : itens) {
+                String nomeProduto = item.getProduto() != null ? item.getProduto().getNome() : item.getProdutoId();
+                mensagem.append("- ").append(item.getQuantidade()).append("x ").append(nomeProduto)
+                        .append(" (R$ ").append(item.getPrecoUnitario()).append(" cada) = R$ ")
+                        .append(item.getSubtotal()).append("\n");
+            }
+            mensagem.append("\n");
+        }
         mensagem.append("Agradecemos a sua compra!\n\n");
         mensagem.append("Atenciosamente,\n");
         mensagem.append("Sua Loja E-commerce");
@@ -57,11 +73,11 @@ public class EmailService {
             message.setText(texto);
             message.setFrom("no-reply@seuecommerce.com");
 
-            mailSender.send(message);
-            logger.info("E-mail enviado para: {}", destinatario);
+            filaEmailService.enfileirar(message);
+            logger.info("E-mail enfileirado para: {}", destinatario);
         } catch (Exception e) {
-            logger.error("Erro ao enviar e-mail para: {}", destinatario, e);
-            throw new RuntimeException("Falha ao enviar e-mail", e);
+            logger.error("Erro ao enfileirar e-mail para: {}", destinatario, e);
+            throw new RuntimeException("Falha ao enfileirar e-mail", e);
         }
     }
 }
@@ -0,0 +1,398 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.estoque.ContadorEstoque;
+import com.ecommerce.backend.estoque.EstoqueInsuficienteException;
+import com.ecommerce.backend.estoque.EstoqueNaoCarregadoException;
+import com.ecommerce.backend.model.PedidoCompleto;
+import com.ecommerce.backend.model.PedidoItem;
+import com.ecommerce.backend.model.Produto;
+import com.ecommerce.backend.model.ReservaEstoque;
+import com.ecommerce.backend.model.SaldoEstoque;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Reservas de estoque em memória. Cada produto tem um {@link ContadorEstoque} lock-free; reservar
+ * ou liberar não faz round trip ao banco. Reservas expiram depois do TTL e devolvem a quantidade.
+ * Ao confirmar, a quantidade vira baixa pendente, gravada em lotes pela função
+ * estoque.flush-function do Supabase (supabaseServiceWebClient) a cada estoque.flush-interval.
+ *
+ * A função recebe {"baixas": [{referencia, produto_id, quantidade}]} e deve ser idempotente por
+ * (referencia, produto_id), com referencia sendo o id do pedido (ou da reserva, sem pedido):
+ * reenviar um lote já aplicado não baixa de novo (definição em
+ * supabase/migrations/20240301000000_baixar_estoque.sql). Isso permite, na subida, reenviar as
+ * baixas dos pedidos confirmados recentemente, cobrindo baixas que ficaram só na memória de uma
+ * instância que caiu. O reenvio não bloqueia a carga: se falhar, os saldos são carregados assim
+ * mesmo e ele é tentado de novo a cada estoque.replay-retry-interval, seguido de uma reconciliação.
+ * Os saldos são reconciliados com o banco a cada estoque.reconcile-interval, sempre logo após
+ * gravar as baixas.
+ */
+@Service
+public class EstoqueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(EstoqueService.class);
+
+    private static final ParameterizedTypeReference<Produto> TIPO_PRODUTO = new ParameterizedTypeReference<>() {};
+
+    @Autowired
+    @Qualifier("supabaseServiceWebClient")
+    private WebClient supabaseServiceWebClient;
+
+    @Autowired
+    private CsvExportService csvExportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${estoque.enabled:true}")
+    private boolean ativo;
+
+    @Value("${estoque.reservation-ttl:15m}")
+    private Duration ttlPadrao;
+
+    @Value("${estoque.reservation-max-ttl:1h}")
+    private Duration ttlMaximo;
+
+    @Value("${estoque.flush-interval:1s}")
+    private Duration intervaloGravacao;
+
+    @Value("${estoque.flush-batch-size:500}")
+    private int tamanhoLote;
+
+    @Value("${estoque.flush-function:baixar_estoque}")
+    private String funcaoBaixa;
+
+    @Value("${estoque.reconcile-interval:5m}")
+    private Duration intervaloReconciliacao;
+
+    @Value("${estoque.replay-lookback:24h}")
+    private Duration janelaReenvio;
+
+    @Value("${estoque.replay-statuses:confirmado,enviado,entregue}")
+    private Set<String> statusReenvio;
+
+    @Value("${estoque.replay-page-size:500}")
+    private int tamanhoPaginaReenvio;
+
+    @Value("${estoque.replay-retry-interval:1m}")
+    private Duration intervaloReenvio;
+
+    private final Map<String, ContadorEstoque> contadores = new ConcurrentHashMap<>();
+    private final Map<String, ReservaEstoque> reservas = new ConcurrentHashMap<>();
+    private final Map<String, String> reservaPorPedido = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Baixa> baixasPendentes = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean carregado;
+    private boolean reenvioPendente = true;
+    private long ultimaTentativaReenvio;
+    private long ultimaReconciliacao;
+    private Disposable sincronizacao;
+
+    @PostConstruct
+    public void iniciar() {
+        Gauge.builder("estoque.reservations.active", reservas, Map::size).register(meterRegistry);
+        Gauge.builder("estoque.flush.pending", baixasPendentes, ConcurrentLinkedQueue::size).register(meterRegistry);
+        if (!ativo) {
+            logger.info("Reservas de estoque desativadas");
+            return;
+        }
+        sincronizacao = Mono.defer(this::sincronizar)
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao sincronizar estoque: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .repeatWhen(ciclos -> ciclos.delayElements(intervaloGravacao))
+                .subscribe();
+    }
+
+    /**
+     * Grava o que ficou pendente antes de desligar; o que não der tempo é reenviado na próxima subida.
+     */
+    @PreDestroy
+    public void encerrar() {
+        if (sincronizacao == null) {
+            return;
+        }
+        sincronizacao.dispose();
+        try {
+            gravarBaixas().block(Duration.ofSeconds(10));
+        } catch (RuntimeException e) {
+            logger.warn("Baixas de estoque não gravadas ao encerrar ({}); serão reenviadas na subida", e.getMessage());
+        }
+    }
+
+    public boolean isAtivo() {
+        return ativo;
+    }
+
+    public Optional<SaldoEstoque> saldo(String produtoId) {
+        ContadorEstoque contador = contadores.get(produtoId);
+        return contador == null
+                ? Optional.empty()
+                : Optional.of(new SaldoEstoque(produtoId, contador.getDisponivel(), contador.getReservado(), contador.getPendente()));
+    }
+
+    /**
+     * Reserva todos os itens ou nenhum. Com pedidoId, uma reserva já existente para o pedido é
+     * devolvida em vez de reservar de novo.
+     */
+    public ReservaEstoque reservar(String pedidoId, Map<String, Integer> itens, Duration ttl) {
+        if (!carregado) {
+            throw new EstoqueNaoCarregadoException();
+        }
+        if (pedidoId != null) {
+            ReservaEstoque existente = Optional.ofNullable(reservaPorPedido.get(pedidoId)).map(reservas::get).orElse(null);
+            if (existente != null) {
+                return existente;
+            }
+        }
+        Map<String, Integer> reservados = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> item : new TreeMap<>(itens).entrySet()) {
+            ContadorEstoque contador = contadores.get(item.getKey());
+            if (contador == null || !contador.reservar(item.getValue())) {
+                reservados.forEach((produtoId, quantidade) -> contadores.get(produtoId).liberar(quantidade));
+                meterRegistry.counter("estoque.reservations", "result", "rejected").increment();
+                throw new EstoqueInsuficienteException(item.getKey(), item.getValue(), contador == null ? 0 : contador.getDisponivel());
+            }
+            reservados.put(item.getKey(), item.getValue());
+        }
+        Duration prazo = ttl == null ? ttlPadrao : (ttl.compareTo(ttlMaximo) > 0 ? ttlMaximo : ttl);
+        ReservaEstoque reserva = new ReservaEstoque(UUID.randomUUID().toString(), pedidoId, reservados, LocalDateTime.now().plus(prazo));
+        reservas.put(reserva.id(), reserva);
+        if (pedidoId != null) {
+            reservaPorPedido.put(pedidoId, reserva.id());
+        }
+        meterRegistry.counter("estoque.reservations", "result", "reserved").increment();
+        return reserva;
+    }
+
+    /**
+     * Reserva os itens de um pedido na confirmação. Retorna null com as reservas desativadas;
+     * {@link #liberar} e {@link #confirmar} aceitam null sem fazer nada.
+     */
+    public String reservarParaPedido(String pedidoId, Collection<PedidoItem> itens) {
+        if (!ativo) {
+            return null;
+        }
+        Map<String, Integer> quantidades = new TreeMap<>();
+        for (PedidoItem item : itens) {
+            if (item.getProdutoId() != null && item.getQuantidade() != null && item.getQuantidade() > 0) {
+                quantidades.merge(item.getProdutoId(), item.getQuantidade(), Integer::sum);
+            }
+        }
+        return reservar(pedidoId, quantidades, null).id();
+    }
+
+    public boolean liberar(String reservaId) {
+        ReservaEstoque reserva = reservaId == null ? null : removerReserva(reservaId);
+        if (reserva == null) {
+            return false;
+        }
+        reserva.itens().forEach((produtoId, quantidade) -> contadores.get(produtoId).liberar(quantidade));
+        return true;
+    }
+
+    /**
+     * A reserva vira baixa pendente; quem remover a reserva primeiro (confirmação, liberação ou
+     * expiração) é quem decide o destino da quantidade.
+     */
+    public boolean confirmar(String reservaId) {
+        ReservaEstoque reserva = reservaId == null ? null : removerReserva(reservaId);
+        if (reserva == null) {
+            return false;
+        }
+        String referencia = reserva.pedidoId() != null ? reserva.pedidoId() : reserva.id();
+        reserva.itens().forEach((produtoId, quantidade) -> {
+            contadores.get(produtoId).confirmar(quantidade);
+            baixasPendentes.add(new Baixa(referencia, produtoId, quantidade));
+        });
+        meterRegistry.counter("estoque.reservations", "result", "confirmed").increment();
+        return true;
+    }
+
+    private ReservaEstoque removerReserva(String reservaId) {
+        ReservaEstoque reserva = reservas.remove(reservaId);
+        if (reserva != null && reserva.pedidoId() != null) {
+            reservaPorPedido.remove(reserva.pedidoId(), reservaId);
+        }
+        return reserva;
+    }
+
+    /**
+     * Ciclo único (expiração, gravação e reconciliação), então gravação e leitura dos saldos nunca
+     * se sobrepõem.
+     */
+    private Mono<Void> sincronizar() {
+        if (!carregado) {
+            return tentarReenvio().then(carregarSaldos());
+        }
+        expirarReservas();
+        Mono<Void> gravacao = gravarBaixas();
+        if (reenvioPendente && System.nanoTime() - ultimaTentativaReenvio > intervaloReenvio.toNanos()) {
+            // Baixas reenviadas agora mudam os saldos do banco: reconcilia em seguida
+            gravacao = gravacao.then(tentarReenvio()).doOnSuccess(v -> {
+                if (!reenvioPendente) {
+                    ultimaReconciliacao = 0;
+                }
+            });
+        }
+        if (System.nanoTime() - ultimaReconciliacao > intervaloReconciliacao.toNanos()) {
+            return gravacao.then(carregarSaldos());
+        }
+        return gravacao;
+    }
+
+    private Mono<Void> tentarReenvio() {
+        if (!reenvioPendente) {
+            return Mono.empty();
+        }
+        ultimaTentativaReenvio = System.nanoTime();
+        return reenviarBaixasConfirmadas()
+                .doOnSuccess(v -> reenvioPendente = false)
+                .onErrorResume(e -> {
+                    meterRegistry.counter("estoque.replay.failures").increment();
+                    logger.warn("Falha ao reenviar baixas dos pedidos confirmados; nova tentativa em {}: {}",
+                            intervaloReenvio, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private void expirarReservas() {
+        LocalDateTime agora = LocalDateTime.now();
+        for (ReservaEstoque reserva : reservas.values()) {
+            if (reserva.expiraEm().isBefore(agora) && liberar(reserva.id())) {
+                meterRegistry.counter("estoque.reservations", "result", "expired").increment();
+            }
+        }
+    }
+
+    private Mono<Void> gravarBaixas() {
+        return Mono.defer(() -> {
+            Map<String, Baixa> lote = new LinkedHashMap<>();
+            for (Baixa baixa; lote.size() < tamanhoLote && (baixa = baixasPendentes.poll()) != null; ) {
+                lote.merge(baixa.referencia() + "|" + baixa.produtoId(), baixa,
+                        (a, b) -> new Baixa(a.referencia(), a.produtoId(), a.quantidade() + b.quantidade()));
+            }
+            if (lote.isEmpty()) {
+                return Mono.empty();
+            }
+            List<Map<String, Object>> corpo = new ArrayList<>(lote.size());
+            lote.values().forEach(baixa -> corpo.add(Map.of("referencia", baixa.referencia(),
+                    "produto_id", baixa.produtoId(), "quantidade", baixa.quantidade())));
+            return supabaseServiceWebClient
+                    .post()
+                    .uri("/rpc/{funcao}", funcaoBaixa)
+                    .bodyValue(Map.of("baixas", corpo))
+                    .retrieve()
+                    .toBodilessEntity()
+                    .doOnSuccess(resposta -> lote.values().forEach(baixa -> {
+                        ContadorEstoque contador = contadores.get(baixa.produtoId());
+                        if (contador != null) {
+                            contador.baixaGravada(baixa.quantidade());
+                        }
+                        meterRegistry.counter("estoque.flushed.units").increment(baixa.quantidade());
+                    }))
+                    .doOnError(e -> baixasPendentes.addAll(lote.values()))
+                    .then(gravarBaixas());
+        });
+    }
+
+    /**
+     * Reenvia as baixas dos pedidos confirmados na janela estoque.replay-lookback, em páginas keyset
+     * (order=id.asc, id=gt.último) abaixo do max-rows do PostgREST, direto para a função: não passa
+     * pela fila, que já pode ter baixas vivas do mesmo pedido. A função ignora as já aplicadas.
+     */
+    private Mono<Void> reenviarBaixasConfirmadas() {
+        LocalDateTime desde = LocalDateTime.now().minus(janelaReenvio);
+        return buscarPaginaReenvio(desde, null)
+                .expand(pagina -> pagina.size() < tamanhoPaginaReenvio
+                        ? Mono.empty()
+                        : buscarPaginaReenvio(desde, pagina.get(pagina.size() - 1).getId()))
+                .concatMap(pagina -> {
+                    List<Map<String, Object>> corpo = new ArrayList<>();
+                    for (PedidoCompleto pedido : pagina) {
+                        if (pedido.getItens() == null) {
+                            continue;
+                        }
+                        for (PedidoItem item : pedido.getItens()) {
+                            if (item.getProdutoId() != null && item.getQuantidade() != null && item.getQuantidade() > 0) {
+                                corpo.add(Map.of("referencia", pedido.getId(),
+                                        "produto_id", item.getProdutoId(), "quantidade", item.getQuantidade()));
+                            }
+                        }
+                    }
+                    if (corpo.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    return supabaseServiceWebClient
+                            .post()
+                            .uri("/rpc/{funcao}", funcaoBaixa)
+                            .bodyValue(Map.of("baixas", corpo))
+                            .retrieve()
+                            .toBodilessEntity();
+                })
+                .then();
+    }
+
+    private Mono<List<PedidoCompleto>> buscarPaginaReenvio(LocalDateTime desde, String ultimoId) {
+        return supabaseServiceWebClient
+                .get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path("/pedidos")
+                            .queryParam("select", "id,status,pedido_itens(produto_id,quantidade)")
+                            .queryParam("status", "in.(" + String.join(",", statusReenvio) + ")")
+                            .queryParam("created_at", "gte." + desde)
+                            .queryParam("order", "id.asc")
+                            .queryParam("limit", tamanhoPaginaReenvio);
+                    if (ultimoId != null) {
+                        uriBuilder.queryParam("id", "gt." + ultimoId);
+                    }
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .bodyToFlux(PedidoCompleto.class)
+                .collectList();
+    }
+
+    private Mono<Void> carregarSaldos() {
+        return csvExportService.buscarPaginas("/produtos", TIPO_PRODUTO, Produto::getId, null, null)
+                .doOnNext(pagina -> pagina.forEach(produto -> contadores
+                        .computeIfAbsent(produto.getId(), id -> new ContadorEstoque(0))
+                        .reconciliar(produto.getEstoque() == null ? 0 : produto.getEstoque())))
+                .then(Mono.fromRunnable(() -> {
+                    if (!carregado) {
+                        logger.info("Estoque carregado: {} produto(s)", contadores.size());
+                    }
+                    carregado = true;
+                    ultimaReconciliacao = System.nanoTime();
+                }));
+    }
+
+    private record Baixa(String referencia, String produtoId, int quantidade) {}
+}
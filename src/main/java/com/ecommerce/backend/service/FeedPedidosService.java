@@ -0,0 +1,261 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.AlteracaoPedido;
+import com.ecommerce.backend.model.Pedido;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Feed de alterações de pedidos com um índice local por cliente.
+ *
+ * Um poller incremental lê do Supabase só os pedidos com updated_at depois da última marca
+ * (keyset em updated_at + id), aplica no índice e publica cada alteração de status para os
+ * assinantes do SSE. Com o índice carregado, a lista de pedidos de um cliente sai da memória e
+ * a carga no Supabase passa a depender do volume de alterações, não da frequência de polling
+ * dos clientes. Pressupõe updated_at preenchido por trigger no banco (ver supabase/migrations);
+ * exclusões não aparecem no feed (o PostgREST não as expõe por updated_at).
+ *
+ * O índice guarda a tabela inteira no heap, então tem teto (pedidos.feed.max-indexed): se a
+ * tabela passar dele, o índice é descartado, as listas voltam a ser consultadas no Supabase e o
+ * feed segue só com as alterações (sem o status anterior). A carga inicial não passa pelo cache de
+ * pedidos, para não expulsar as entradas quentes com a tabela inteira.
+ */
+@Service
+public class FeedPedidosService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedPedidosService.class);
+
+    private static final Comparator<Pedido> ORDEM_LISTA = Comparator
+            .comparing(Pedido::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(Pedido::getId);
+
+    @Autowired
+    @Qualifier("supabaseWebClient")
+    private WebClient supabaseWebClient;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ValidadorService validadorService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pedidos.feed.enabled:true}")
+    private boolean ativo;
+
+    @Value("${pedidos.feed.poll-interval:2s}")
+    private Duration intervaloPolling;
+
+    @Value("${pedidos.feed.page-size:1000}")
+    private int tamanhoPagina;
+
+    @Value("${pedidos.feed.subscriber-buffer:256}")
+    private int bufferAssinante;
+
+    @Value("${pedidos.feed.max-indexed:500000}")
+    private int maxIndexados;
+
+    private final Map<String, Map<String, Pedido>> pedidosPorCliente = new ConcurrentHashMap<>();
+    private final Map<String, Pedido> pedidosPorId = new ConcurrentHashMap<>();
+    private final Sinks.Many<AlteracaoPedido> alteracoes = Sinks.many().multicast().directBestEffort();
+    private final AtomicInteger assinantes = new AtomicInteger();
+
+    private volatile boolean carregado;
+    private volatile boolean indiceDescartado;
+    private LocalDateTime ultimaAtualizacao;
+    private String ultimoId;
+    private Disposable polling;
+
+    @PostConstruct
+    public void iniciar() {
+        Gauge.builder("pedidos.feed.indexed", pedidosPorId, Map::size).register(meterRegistry);
+        Gauge.builder("pedidos.feed.subscribers", assinantes, AtomicInteger::get).register(meterRegistry);
+        if (!ativo) {
+            logger.info("Feed de pedidos desativado; listas de pedidos consultadas no Supabase");
+            return;
+        }
+        polling = Mono.defer(this::sincronizar)
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao sincronizar feed de pedidos: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .repeatWhen(ciclos -> ciclos.delayElements(intervaloPolling))
+                .subscribe();
+        logger.info("Feed de pedidos iniciado (intervalo={}, página={})", intervaloPolling, tamanhoPagina);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (polling != null) {
+            polling.dispose();
+        }
+        alteracoes.tryEmitComplete();
+    }
+
+    public boolean isCarregado() {
+        return carregado;
+    }
+
+    /**
+     * Pedidos do cliente a partir do índice local; vazio enquanto a carga inicial não termina,
+     * para o chamador decidir consultar o Supabase.
+     */
+    public Optional<List<Pedido>> listarPedidosDoCliente(String clienteId) {
+        if (!carregado || indiceDescartado) {
+            return Optional.empty();
+        }
+        Map<String, Pedido> pedidos = pedidosPorCliente.getOrDefault(clienteId, Map.of());
+        return Optional.of(pedidos.values().stream().sorted(ORDEM_LISTA).toList());
+    }
+
+    /**
+     * Alterações dos pedidos de um cliente a partir de agora. Assinante lento perde as mais antigas
+     * em vez de segurar o feed dos demais.
+     */
+    public Flux<AlteracaoPedido> alteracoesDoCliente(String clienteId) {
+        return alteracoes.asFlux()
+                .filter(alteracao -> clienteId.equals(alteracao.getPedido().getClienteId()))
+                .onBackpressureBuffer(bufferAssinante, descartada -> meterRegistry.counter("pedidos.feed.dropped").increment(),
+                        BufferOverflowStrategy.DROP_OLDEST)
+                .doOnSubscribe(s -> assinantes.incrementAndGet())
+                .doFinally(sinal -> assinantes.decrementAndGet());
+    }
+
+    /**
+     * Lê as páginas alteradas desde a última marca até alcançar o fim. A primeira rodada é a
+     * carga completa do índice. Página cheia que não move a marca (updated_at nulo) encerra a
+     * rodada, em vez de pedir a mesma página de novo.
+     */
+    private Mono<Void> sincronizar() {
+        return buscarAlterados()
+                .expand(continuar -> continuar ? buscarAlterados() : Mono.empty())
+                .then(Mono.fromRunnable(() -> {
+                    if (!carregado) {
+                        carregado = true;
+                        if (!indiceDescartado) {
+                            logger.info("Índice de pedidos carregado: {} pedido(s) de {} cliente(s)",
+                                    pedidosPorId.size(), pedidosPorCliente.size());
+                        }
+                    }
+                }));
+    }
+
+    /**
+     * Busca e aplica a próxima página; true se ela veio cheia e moveu a marca, ou seja, se vale
+     * buscar a seguinte.
+     */
+    private Mono<Boolean> buscarAlterados() {
+        return Mono.defer(() -> {
+            LocalDateTime marcaAnterior = ultimaAtualizacao;
+            String idAnterior = ultimoId;
+            return buscarPagina().map(pagina -> {
+                aplicar(pagina);
+                boolean avancou = !Objects.equals(marcaAnterior, ultimaAtualizacao) || !Objects.equals(idAnterior, ultimoId);
+                if (pagina.size() >= tamanhoPagina && !avancou) {
+                    logger.warn("Página do feed de pedidos sem updated_at; marca parada em {} (a coluna tem trigger?)",
+                            marcaAnterior);
+                }
+                return pagina.size() >= tamanhoPagina && avancou;
+            });
+        });
+    }
+
+    private Mono<List<Pedido>> buscarPagina() {
+        return supabaseWebClient
+                .get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path("/pedidos")
+                            .queryParam("order", "updated_at.asc,id.asc")
+                            .queryParam("limit", tamanhoPagina);
+                    if (ultimaAtualizacao != null) {
+                        uriBuilder.queryParam("or", "(updated_at.gt.{marca},and(updated_at.eq.{marca},id.gt.{ultimoId}))");
+                        String marca = ultimaAtualizacao.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                        return uriBuilder.build(marca, marca, ultimoId);
+                    }
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .bodyToFlux(Pedido.class)
+                .collectList();
+    }
+
+    /**
+     * Roda só no poller (uma página por vez), então a marca e a emissão no sink não disputam threads.
+     */
+    private void aplicar(List<Pedido> pagina) {
+        for (Pedido pedido : pagina) {
+            if (pedido.getUpdatedAt() != null) {
+                ultimaAtualizacao = pedido.getUpdatedAt();
+                ultimoId = pedido.getId();
+            }
+            if (!indiceDescartado && pedidosPorId.size() >= maxIndexados && !pedidosPorId.containsKey(pedido.getId())) {
+                descartarIndice();
+            }
+            if (indiceDescartado) {
+                if (carregado) {
+                    validadorService.invalidarPedido(pedido.getId());
+                    cacheService.registrar(CacheService.PEDIDOS, pedido.getId(), pedido);
+                    alteracoes.tryEmitNext(new AlteracaoPedido("alterado", null, pedido));
+                    meterRegistry.counter("pedidos.feed.changes", "type", "alterado").increment();
+                }
+                continue;
+            }
+            Pedido anterior = pedidosPorId.get(pedido.getId());
+            if (anterior != null && pedido.getUpdatedAt() != null && anterior.getUpdatedAt() != null
+                    && !pedido.getUpdatedAt().isAfter(anterior.getUpdatedAt())) {
+                continue;
+            }
+            pedidosPorId.put(pedido.getId(), pedido);
+            if (anterior != null && !Objects.equals(anterior.getClienteId(), pedido.getClienteId())) {
+                Map<String, Pedido> doClienteAnterior = pedidosPorCliente.get(anterior.getClienteId());
+                if (doClienteAnterior != null) {
+                    doClienteAnterior.remove(pedido.getId());
+                }
+            }
+            pedidosPorCliente.computeIfAbsent(pedido.getClienteId(), id -> new ConcurrentHashMap<>())
+                    .put(pedido.getId(), pedido);
+            validadorService.invalidarPedido(pedido.getId());
+            if (carregado) {
+                cacheService.registrar(CacheService.PEDIDOS, pedido.getId(), pedido);
+                String tipo = anterior == null ? "criado" : "alterado";
+                alteracoes.tryEmitNext(new AlteracaoPedido(tipo, anterior != null ? anterior.getStatus() : null, pedido));
+                meterRegistry.counter("pedidos.feed.changes", "type", tipo).increment();
+            }
+        }
+    }
+
+    private void descartarIndice() {
+        indiceDescartado = true;
+        pedidosPorId.clear();
+        pedidosPorCliente.clear();
+        logger.warn("Índice de pedidos passou de pedidos.feed.max-indexed ({}); descartado, listas voltam ao Supabase",
+                maxIndexados);
+    }
+}
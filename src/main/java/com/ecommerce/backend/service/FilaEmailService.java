@@ -0,0 +1,271 @@
+package com.ecommerce.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fila de saída de e-mails. Quem chama só enfileira a mensagem; o envio SMTP bloqueante fica com
+ * um pool próprio de workers, fora das threads de I/O do servidor. Cada worker drena um lote da fila
+ * e o envia por uma única conexão SMTP, com novas tentativas e backoff exponencial para as mensagens
+ * que falharem. Se email.queue.spool-dir estiver definido, cada mensagem também fica gravada em disco
+ * até ser enviada e é reenfileirada na próxima inicialização.
+ */
+@Service
+public class FilaEmailService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FilaEmailService.class);
+
+    @Autowired
+    private JavaMailSender mailSender;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${email.queue.capacity:1000}")
+    private int capacidade;
+
+    @Value("${email.queue.workers:2}")
+    private int quantidadeWorkers;
+
+    @Value("${email.queue.batch-size:20}")
+    private int tamanhoLote;
+
+    @Value("${email.queue.max-attempts:5}")
+    private int maxTentativas;
+
+    @Value("${email.queue.initial-backoff:1s}")
+    private Duration backoffInicial;
+
+    @Value("${email.queue.spool-dir:}")
+    private String diretorioSpool;
+
+    private BlockingQueue<EmailPendente> fila;
+    private ExecutorService workers;
+    private Path spool;
+    private volatile boolean ativo;
+
+    private Counter enfileirados;
+    private Counter rejeitados;
+    private Counter enviados;
+    private Counter descartados;
+    private Timer latenciaEnvio;
+    private Timer latenciaEntrega;
+
+    @PostConstruct
+    public void iniciar() throws IOException {
+        fila = new ArrayBlockingQueue<>(capacidade);
+        meterRegistry.gauge("email.queue.size", fila, BlockingQueue::size);
+        enfileirados = meterRegistry.counter("email.queue.enqueued");
+        rejeitados = meterRegistry.counter("email.queue.rejected");
+        enviados = meterRegistry.counter("email.sent");
+        descartados = meterRegistry.counter("email.failed");
+        latenciaEnvio = Timer.builder("email.send.latency")
+                .description("Tempo de envio de um lote pelo servidor SMTP")
+                .register(meterRegistry);
+        latenciaEntrega = Timer.builder("email.delivery.latency")
+                .description("Tempo entre o enfileiramento e o envio da mensagem")
+                .register(meterRegistry);
+
+        if (!diretorioSpool.isBlank()) {
+            spool = Files.createDirectories(Path.of(diretorioSpool));
+            recuperarSpool();
+        }
+
+        ativo = true;
+        AtomicInteger contador = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(quantidadeWorkers, tarefa -> {
+            Thread thread = new Thread(tarefa, "email-worker-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < quantidadeWorkers; i++) {
+            workers.submit(this::processarFila);
+        }
+        logger.info("Fila de e-mails iniciada (capacidade={}, workers={}, lote={})", capacidade, quantidadeWorkers, tamanhoLote);
+    }
+
+    @PreDestroy
+    public void parar() throws InterruptedException {
+        ativo = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        if (!fila.isEmpty()) {
+            logger.warn("{} e-mail(s) não enviados no desligamento{}", fila.size(),
+                    spool != null ? "; permanecem no spool" : "");
+        }
+    }
+
+    public void enfileirar(SimpleMailMessage message) {
+        EmailPendente pendente = new EmailPendente(UUID.randomUUID().toString(), message.getTo(), message.getSubject(),
+                message.getText(), message.getFrom(), System.nanoTime());
+        gravarNoSpool(pendente);
+        if (!fila.offer(pendente)) {
+            removerDoSpool(pendente);
+            rejeitados.increment();
+            throw new IllegalStateException("Fila de e-mails cheia");
+        }
+        enfileirados.increment();
+    }
+
+    public int tamanhoFila() {
+        return fila.size();
+    }
+
+    private void processarFila() {
+        while (ativo) {
+            try {
+                EmailPendente primeiro = fila.poll(1, TimeUnit.SECONDS);
+                if (primeiro == null) {
+                    continue;
+                }
+                List<EmailPendente> lote = new ArrayList<>(tamanhoLote);
+                lote.add(primeiro);
+                fila.drainTo(lote, tamanhoLote - 1);
+                enviarLote(lote);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Erro inesperado no worker de e-mail", e);
+            }
+        }
+    }
+
+    private void enviarLote(List<EmailPendente> lote) throws InterruptedException {
+        List<EmailPendente> pendentes = lote;
+        for (int tentativa = 1; tentativa <= maxTentativas && !pendentes.isEmpty(); tentativa++) {
+            List<SimpleMailMessage> mensagens = pendentes.stream().map(EmailPendente::paraMensagem).toList();
+            List<EmailPendente> falhas = new ArrayList<>();
+            long inicio = System.nanoTime();
+            try {
+                // Um único send com várias mensagens reaproveita a mesma conexão SMTP para o lote todo
+                mailSender.send(mensagens.toArray(new SimpleMailMessage[0]));
+            } catch (MailSendException e) {
+                for (int i = 0; i < mensagens.size(); i++) {
+                    if (e.getFailedMessages().containsKey(mensagens.get(i))) {
+                        falhas.add(pendentes.get(i));
+                    }
+                }
+                if (falhas.isEmpty()) {
+                    falhas = pendentes;
+                }
+                logger.warn("Falha ao enviar {} de {} e-mail(s) (tentativa {}): {}", falhas.size(), pendentes.size(), tentativa, e.getMessage());
+            } catch (MailException e) {
+                falhas = pendentes;
+                logger.warn("Falha ao enviar lote de {} e-mail(s) (tentativa {}): {}", pendentes.size(), tentativa, e.getMessage());
+            }
+            latenciaEnvio.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+
+            for (EmailPendente pendente : pendentes) {
+                if (!falhas.contains(pendente)) {
+                    concluir(pendente);
+                }
+            }
+            pendentes = falhas;
+            if (!pendentes.isEmpty() && tentativa < maxTentativas) {
+                Thread.sleep(backoffInicial.toMillis() << (tentativa - 1));
+            }
+        }
+
+        for (EmailPendente pendente : pendentes) {
+            logger.error("E-mail para {} descartado após {} tentativas", String.join(",", pendente.para()), maxTentativas);
+            descartados.increment();
+            removerDoSpool(pendente);
+        }
+    }
+
+    private void concluir(EmailPendente pendente) {
+        enviados.increment();
+        latenciaEntrega.record(System.nanoTime() - pendente.enfileiradoEm(), TimeUnit.NANOSECONDS);
+        removerDoSpool(pendente);
+        logger.info("E-mail enviado para: {}", String.join(",", pendente.para()));
+    }
+
+    private void gravarNoSpool(EmailPendente pendente) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            objectMapper.writeValue(spool.resolve(pendente.id() + ".json").toFile(), pendente);
+        } catch (IOException e) {
+            throw new RuntimeException("Falha ao gravar e-mail no spool", e);
+        }
+    }
+
+    private void removerDoSpool(EmailPendente pendente) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool.resolve(pendente.id() + ".json"));
+        } catch (IOException e) {
+            logger.warn("Não foi possível remover {} do spool: {}", pendente.id(), e.getMessage());
+        }
+    }
+
+    private void recuperarSpool() throws IOException {
+        int recuperados = 0;
+        try (DirectoryStream<Path> arquivos = Files.newDirectoryStream(spool, "*.json")) {
+            for (Path arquivo : arquivos) {
+                EmailPendente pendente = objectMapper.readValue(arquivo.toFile(), EmailPendente.class);
+                if (!fila.offer(pendente.reenfileirado())) {
+                    logger.warn("Spool maior que a capacidade da fila; {} fica para a próxima inicialização", arquivo.getFileName());
+                    break;
+                }
+                recuperados++;
+            }
+        }
+        if (recuperados > 0) {
+            logger.info("{} e-mail(s) recuperados do spool {}", recuperados, spool);
+        }
+    }
+
+    record EmailPendente(String id, String[] para, String assunto, String texto, String remetente, long enfileiradoEm) {
+
+        EmailPendente reenfileirado() {
+            return new EmailPendente(id, para, assunto, texto, remetente, System.nanoTime());
+        }
+
+        SimpleMailMessage paraMensagem() {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setTo(para);
+            message.setSubject(assunto);
+            message.setText(texto);
+            message.setFrom(remetente);
+            return message;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.ecommerce.backend.service;
+
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Valores de filtros do PostgREST montados a partir de entrada do cliente.
+ */
+final class FiltrosPostgrest {
+
+    private FiltrosPostgrest() {}
+
+    /**
+     * Lista para id=in.(...): cada valor entre aspas duplas, com " e \ escapados por barra
+     * invertida (regra de aspas do PostgREST), para que vírgulas, parênteses e aspas no id não
+     * quebrem o filtro.
+     */
+    static String lista(Collection<String> valores) {
+        return valores.stream()
+                .map(valor -> "\"" + valor.replace("\\", "\\\\").replace("\"", "\\\"") + "\"")
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,91 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.filter.PrazoRequisicaoFilter;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Execução idempotente de operações com efeito colateral (confirmação de pedido).
+ *
+ * Mesma ideia do CacheService: o store guarda o futuro da execução, então chamadas concorrentes
+ * para a mesma operação compartilham uma única execução e as que chegam depois recebem o
+ * resultado guardado até a janela expirar. Execuções que falham saem do store e podem ser
+ * repetidas. O store é limitado por tamanho; quem garante a idempotência depois da janela
+ * (ou de um restart) é o estado gravado no Supabase por cada operação.
+ */
+@Service
+public class IdempotenciaService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotenciaService.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${idempotency.window:10m}")
+    private Duration janela;
+
+    @Value("${idempotency.maximum-size:10000}")
+    private long tamanhoMaximo;
+
+    private AsyncCache<String, Object> resultados;
+    private Cache<String, String> chaves;
+
+    @PostConstruct
+    public void inicializar() {
+        resultados = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(janela)
+                .recordStats()
+                .buildAsync();
+        chaves = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(janela)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, resultados, "idempotencia");
+        logger.info("Store de idempotência inicializado (janela={}, tamanho máximo={})", janela, tamanhoMaximo);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> executar(String operacao, String id, Supplier<Mono<T>> execucao) {
+        String chave = operacao + ":" + id;
+        return Mono.defer(() -> {
+            AtomicBoolean executou = new AtomicBoolean();
+            // suppressCancel: quem desiste de esperar não cancela a execução compartilhada
+            Mono<Object> compartilhada = Mono.fromFuture(() -> {
+                CompletableFuture<Object> futuro = resultados.get(chave, (k, executor) -> {
+                    executou.set(true);
+                    return execucao.get().<Object>map(valor -> valor).toFuture();
+                });
+                String resultado = executou.get() ? "executed" : futuro.isDone() ? "replayed" : "joined";
+                meterRegistry.counter("idempotency.requests", "operation", operacao, "result", resultado).increment();
+                return futuro;
+            }, true);
+            return PrazoRequisicaoFilter.limitarAoPrazo(compartilhada, operacao)
+                    .map(valor -> (T) valor);
+        });
+    }
+
+    /**
+     * Associa uma Idempotency-Key do cliente a uma operação. Devolve false se a chave já foi usada,
+     * dentro da janela, para outra operação.
+     */
+    public boolean vincularChave(String chaveIdempotencia, String operacao, String id) {
+        String alvo = operacao + ":" + id;
+        return alvo.equals(chaves.get(chaveIdempotencia, chave -> alvo));
+    }
+}
@@ -2,98 +2,228 @@ package com.ecommerce.backend.service;
 
 import com.ecommerce.backend.model.Cliente;
 import com.ecommerce.backend.model.Pedido;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ecommerce.backend.model.PedidoCompleto;
+import com.ecommerce.backend.model.ResultadoConfirmacao;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    private static final String SELECT_PEDIDO_COMPLETO = "*,clientes(*),pedido_itens(*,produtos(nome))";
+
     @Autowired
     @Qualifier("supabaseWebClient")
     private WebClient supabaseWebClient;
 
+    @Autowired
+    @Qualifier("supabaseServiceWebClient")
+    private WebClient supabaseServiceWebClient;
+
     @Autowired
     private EmailService emailService;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    @Autowired
+    private IdempotenciaService idempotenciaService;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private ValidadorService validadorService;
+
+    @Autowired
+    private FeedPedidosService feedPedidosService;
+
+    @Autowired
+    private EstoqueService estoqueService;
+
+    @Autowired
+    @Qualifier("schedulerBloqueante")
+    private Scheduler schedulerBloqueante;
+
+    @Value("${pedidos.batch.ids-per-request:100}")
+    private int idsPorRequisicao;
+
+    @Value("${pedidos.batch.concurrency:4}")
+    private int concorrenciaLote;
+
+    @Value("${pedidos.batch.coalescing-window:5ms}")
+    private Duration janelaAgrupamento;
+
+    @Value("${pedidos.confirmacao.status-pendente:pendente}")
+    private String statusPendente;
+
+    @Value("${pedidos.confirmacao.status-confirmado:confirmado}")
+    private String statusConfirmado;
+
+    private AgrupadorConsultas<Pedido> agrupadorPedidos;
 
+    @PostConstruct
+    public void inicializar() {
+        agrupadorPedidos = new AgrupadorConsultas<>(this::consultarPedidos, Pedido::getId,
+                idsPorRequisicao, janelaAgrupamento, concorrenciaLote);
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        agrupadorPedidos.encerrar();
+    }
+
+    /**
+     * Misses de cache concorrentes dentro da janela de agrupamento viram uma única consulta id=in.(...).
+     */
     public Mono<Pedido> buscarPedidoPorId(String pedidoId) {
+        return cacheService.buscar(CacheService.PEDIDOS, pedidoId, () -> agrupadorPedidos.buscar(pedidoId));
+    }
+
+    /**
+     * Resolve vários pedidos com consultas id=in.(...), em blocos de até pedidos.batch.ids-per-request
+     * ids para não estourar o limite de tamanho de URL. Ids repetidos são consultados uma vez.
+     */
+    public Flux<Pedido> buscarPedidosPorIds(Collection<String> pedidoIds) {
+        return Flux.fromIterable(new LinkedHashSet<>(pedidoIds))
+                .buffer(idsPorRequisicao)
+                .flatMap(this::consultarPedidos, concorrenciaLote)
+                .doOnNext(pedido -> cacheService.registrar(CacheService.PEDIDOS, pedido.getId(), pedido));
+    }
+
+    public Mono<Cliente> buscarClientePorId(String clienteId) {
+        return cacheService.buscar(CacheService.CLIENTES, clienteId, () -> consultarCliente(clienteId));
+    }
+
+    private Flux<Pedido> consultarPedidos(List<String> pedidoIds) {
+        String ids = FiltrosPostgrest.lista(pedidoIds);
         return supabaseWebClient
                 .get()
-                .uri("/pedidos?id=eq.{id}", pedidoId)
+                .uri("/pedidos?id=in.({ids})", ids)
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
-                    try {
-                        List<Pedido> pedidos = objectMapper.readValue(response, new TypeReference<List<Pedido>>() {});
-                        return pedidos.isEmpty() ? null : pedidos.get(0);
-                    } catch (Exception e) {
-                        logger.error("Erro ao deserializar pedido: {}", e.getMessage());
-                        throw new RuntimeException("Erro ao processar dados do pedido", e);
-                    }
-                });
+                .bodyToFlux(Pedido.class)
+                .doOnError(e -> logger.error("Erro ao buscar {} pedido(s): {}", pedidoIds.size(), e.getMessage()));
     }
 
-    public Mono<Cliente> buscarClientePorId(String clienteId) {
+    private Mono<Cliente> consultarCliente(String clienteId) {
         return supabaseWebClient
                 .get()
                 .uri("/clientes?id=eq.{id}", clienteId)
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
-                    try {
-                        List<Cliente> clientes = objectMapper.readValue(response, new TypeReference<List<Cliente>>() {});
-                        return clientes.isEmpty() ? null : clientes.get(0);
-                    } catch (Exception e) {
-                        logger.error("Erro ao deserializar cliente: {}", e.getMessage());
-                        throw new RuntimeException("Erro ao processar dados do cliente", e);
-                    }
-                });
+                .bodyToFlux(Cliente.class)
+                .next()
+                .doOnError(e -> logger.error("Erro ao buscar cliente {}: {}", clienteId, e.getMessage()));
+    }
+
+    /**
+     * Carrega o pedido com o cliente e os itens embutidos pelo PostgREST, em um único round trip.
+     */
+    public Mono<PedidoCompleto> buscarPedidoCompleto(String pedidoId) {
+        return supabaseWebClient
+                .get()
+                .uri("/pedidos?id=eq.{id}&select={select}", pedidoId, SELECT_PEDIDO_COMPLETO)
+                .retrieve()
+                .bodyToFlux(PedidoCompleto.class)
+                .next()
+                .doOnError(e -> logger.error("Erro ao buscar pedido completo {}: {}", pedidoId, e.getMessage()));
+    }
+
+    /**
+     * Confirmações do mesmo pedido são colapsadas em uma única execução e o resultado é reaproveitado
+     * durante a janela de idempotência. Depois disso, o status gravado no Supabase impede o reenvio.
+     */
+    public Mono<ResultadoConfirmacao> processarConfirmacaoPedido(String pedidoId) {
+        return idempotenciaService.executar("confirmar", pedidoId, () -> executarConfirmacao(pedidoId));
     }
 
-    public Mono<Void> processarConfirmacaoPedido(String pedidoId) {
-        return buscarPedidoPorId(pedidoId)
+    /**
+     * Só pedidos no status pendente são confirmados. A troca de status é um compare-and-set no
+     * PostgREST (PATCH com status=eq.pendente): se outra instância confirmou antes, nada é alterado e
+     * o e-mail não é enfileirado de novo. Se o enfileiramento falhar, o status volta a pendente.
+     * Os itens são reservados no estoque antes da troca de status e a reserva só vira baixa depois
+     * do e-mail enfileirado; em qualquer desistência ela é liberada.
+     */
+    private Mono<ResultadoConfirmacao> executarConfirmacao(String pedidoId) {
+        return buscarPedidoCompleto(pedidoId)
+                .switchIfEmpty(Mono.error(new RuntimeException("Pedido não encontrado: " + pedidoId)))
                 .flatMap(pedido -> {
-                    if (pedido == null) {
-                        return Mono.error(new RuntimeException("Pedido não encontrado: " + pedidoId));
+                    if (pedido.getCliente() == null) {
+                        return Mono.error(new RuntimeException("Cliente não encontrado: " + pedido.getClienteId()));
                     }
-                    return buscarClientePorId(pedido.getClienteId())
-                            .map(cliente -> {
-                                if (cliente == null) {
-                                    throw new RuntimeException("Cliente não encontrado: " + pedido.getClienteId());
+                    if (!statusPendente.equals(pedido.getStatus())) {
+                        logger.info("Pedido {} já está em {}; confirmação não reenviada", pedidoId, pedido.getStatus());
+                        return Mono.just(new ResultadoConfirmacao(pedidoId, pedido.getStatus(), false, LocalDateTime.now()));
+                    }
+                    String reservaId = estoqueService.reservarParaPedido(pedidoId, pedido.getItens());
+                    return alterarStatus(pedidoId, statusPendente, statusConfirmado)
+                            .doOnError(e -> estoqueService.liberar(reservaId))
+                            .flatMap(alterado -> {
+                                if (!alterado) {
+                                    estoqueService.liberar(reservaId);
+                                    logger.info("Pedido {} confirmado por outra execução; e-mail não reenviado", pedidoId);
+                                    return Mono.just(new ResultadoConfirmacao(pedidoId, statusConfirmado, false, LocalDateTime.now()));
                                 }
-                                emailService.enviarEmailConfirmacaoPedido(cliente, pedido);
-                                logger.info("Confirmação de pedido processada para pedido: {}", pedidoId);
-                                return cliente;
+                                cacheService.invalidar(CacheService.PEDIDOS, pedidoId);
+                                validadorService.invalidarPedido(pedidoId);
+                                // Enfileirar pode gravar o spool em disco: fora da thread de I/O
+                                return Mono.fromRunnable(() -> emailService.enviarEmailConfirmacaoPedido(pedido.getCliente(), pedido, pedido.getItens()))
+                                        .subscribeOn(schedulerBloqueante)
+                                        .onErrorResume(e -> {
+                                            estoqueService.liberar(reservaId);
+                                            return alterarStatus(pedidoId, statusConfirmado, statusPendente).then(Mono.error(e));
+                                        })
+                                        .then(Mono.fromCallable(() -> {
+                                            estoqueService.confirmar(reservaId);
+                                            logger.info("Confirmação de pedido processada para pedido: {}", pedidoId);
+                                            return new ResultadoConfirmacao(pedidoId, statusConfirmado, true, LocalDateTime.now());
+                                        }));
                             });
-                })
-                .then();
+                });
     }
 
-    public Mono<List<Pedido>> listarPedidosPorCliente(String clienteId) {
+    private Mono<Boolean> alterarStatus(String pedidoId, String statusAtual, String novoStatus) {
+        return supabaseServiceWebClient
+                .patch()
+                .uri("/pedidos?id=eq.{id}&status=eq.{status}", pedidoId, statusAtual)
+                .bodyValue(Map.of("status", novoStatus))
+                .retrieve()
+                .bodyToFlux(Pedido.class)
+                .hasElements()
+                .doOnError(e -> logger.error("Erro ao alterar status do pedido {} para {}: {}", pedidoId, novoStatus, e.getMessage()));
+    }
+
+    /**
+     * Com o feed de pedidos carregado a lista sai do índice local; antes disso (ou com o feed
+     * desativado) é consultada no Supabase.
+     */
+    public Flux<Pedido> listarPedidosPorCliente(String clienteId) {
+        return Flux.defer(() -> feedPedidosService.listarPedidosDoCliente(clienteId)
+                .map(Flux::fromIterable)
+                .orElseGet(() -> consultarPedidosDoCliente(clienteId)));
+    }
+
+    private Flux<Pedido> consultarPedidosDoCliente(String clienteId) {
         return supabaseWebClient
                 .get()
                 .uri("/pedidos?cliente_id=eq.{clienteId}", clienteId)
                 .retrieve()
-                .bodyToMono(String.class)
-                .map(response -> {
-                    try {
-                        return objectMapper.readValue(response, new TypeReference<List<Pedido>>() {});
-                    } catch (Exception e) {
-                        logger.error("Erro ao deserializar lista de pedidos: {}", e.getMessage());
-                        throw new RuntimeException("Erro ao processar lista de pedidos", e);
-                    }
-                });
+                .bodyToFlux(Pedido.class)
+                .doOnError(e -> logger.error("Erro ao listar pedidos do cliente {}: {}", clienteId, e.getMessage()));
     }
 }
@@ -0,0 +1,46 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Produto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+@Service
+public class ProdutoService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProdutoService.class);
+
+    @Autowired
+    @Qualifier("supabaseWebClient")
+    private WebClient supabaseWebClient;
+
+    @Autowired
+    private CacheService cacheService;
+
+    @Autowired
+    private CatalogoService catalogoService;
+
+    public Mono<Produto> buscarProdutoPorId(String produtoId) {
+        Optional<Produto> doCatalogo = catalogoService.buscarPorId(produtoId);
+        if (doCatalogo.isPresent()) {
+            return Mono.just(doCatalogo.get());
+        }
+        return cacheService.buscar(CacheService.PRODUTOS, produtoId, () -> consultarProduto(produtoId));
+    }
+
+    private Mono<Produto> consultarProduto(String produtoId) {
+        return supabaseWebClient
+                .get()
+                .uri("/produtos?id=eq.{id}", produtoId)
+                .retrieve()
+                .bodyToFlux(Produto.class)
+                .next()
+                .doOnError(e -> logger.error("Erro ao buscar produto {}: {}", produtoId, e.getMessage()));
+    }
+}
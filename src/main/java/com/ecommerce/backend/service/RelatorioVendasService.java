@@ -0,0 +1,368 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.model.PedidoItem;
+import com.ecommerce.backend.model.ResumoVendas;
+import com.ecommerce.backend.model.VendaDiaria;
+import com.ecommerce.backend.model.VendaProduto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Relatórios de vendas (receita por dia, produtos mais vendidos, ticket médio) respondidos de
+ * agregados em memória, sem varrer as tabelas a cada consulta.
+ *
+ * Um ciclo periódico lê do Supabase só os pedidos e itens criados depois da última marca de
+ * created_at (keyset em created_at + id) e soma numa cópia dos agregados, que substitui a atual.
+ * Alterações em registros antigos (cancelamentos, correções de total) só entram na reconstrução
+ * completa, feita na subida, a cada relatorios.rebuild-interval ou sob demanda. Na reconstrução as
+ * tabelas são lidas em colunas primitivas e agregadas em paralelo no ForkJoinPool.
+ */
+@Service
+public class RelatorioVendasService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RelatorioVendasService.class);
+
+    private static final String SELECT_PEDIDOS = "id,status,total,created_at";
+    private static final String SELECT_ITENS = "id,pedido_id,produto_id,quantidade,subtotal,created_at";
+
+    @Autowired
+    @Qualifier("supabaseWebClient")
+    private WebClient supabaseWebClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("schedulerBloqueante")
+    private Scheduler schedulerBloqueante;
+
+    @Value("${relatorios.enabled:true}")
+    private boolean ativo;
+
+    @Value("${relatorios.refresh-interval:30s}")
+    private Duration intervaloAtualizacao;
+
+    @Value("${relatorios.rebuild-interval:6h}")
+    private Duration intervaloReconstrucao;
+
+    @Value("${relatorios.page-size:1000}")
+    private int tamanhoPagina;
+
+    @Value("${relatorios.excluded-statuses:cancelado}")
+    private Set<String> statusExcluidos;
+
+    @Value("${relatorios.parallel-threshold:16384}")
+    private int limiarParalelo;
+
+    private volatile AgregadosVendas agregados;
+    private volatile LocalDateTime atualizadoEm;
+    private volatile boolean reconstrucaoSolicitada;
+    private long ultimaReconstrucao;
+    private Marca marcaPedidos;
+    private Marca marcaItens;
+    private Set<String> pedidosExcluidos = new HashSet<>();
+    private Disposable ciclo;
+
+    @PostConstruct
+    public void iniciar() {
+        if (!ativo) {
+            logger.info("Relatórios de vendas desativados");
+            return;
+        }
+        ciclo = Mono.defer(this::atualizar)
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao atualizar relatórios de vendas: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .repeatWhen(ciclos -> ciclos.delayElements(intervaloAtualizacao))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (ciclo != null) {
+            ciclo.dispose();
+        }
+    }
+
+    public void solicitarReconstrucao() {
+        reconstrucaoSolicitada = true;
+    }
+
+    public Optional<ResumoVendas> resumo() {
+        AgregadosVendas atual = agregados;
+        if (atual == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ResumoVendas(AgregadosVendas.reais(atual.getReceitaTotal()), atual.getTotalPedidos(),
+                AgregadosVendas.ticketMedio(atual.getReceitaTotal(), atual.getTotalPedidos()),
+                atual.getItensVendidos(), atualizadoEm));
+    }
+
+    public Optional<List<VendaDiaria>> vendasPorDia(LocalDate inicio, LocalDate fim) {
+        AgregadosVendas atual = agregados;
+        return atual == null ? Optional.empty() : Optional.of(atual.vendasPorDia(inicio, fim));
+    }
+
+    public Optional<List<VendaProduto>> produtosMaisVendidos(int limite, boolean porReceita) {
+        AgregadosVendas atual = agregados;
+        return atual == null ? Optional.empty() : Optional.of(atual.produtosMaisVendidos(limite, porReceita));
+    }
+
+    /**
+     * Roda só no ciclo periódico (um por vez), então marcas e agregados não têm escrita concorrente.
+     */
+    private Mono<Void> atualizar() {
+        boolean reconstruir = agregados == null || reconstrucaoSolicitada
+                || System.nanoTime() - ultimaReconstrucao > intervaloReconstrucao.toNanos();
+        return reconstruir ? reconstruir() : incrementar();
+    }
+
+    /**
+     * Marcas e exclusões novas ficam locais até o fim do ciclo e são publicadas junto com a cópia
+     * dos agregados; se o ciclo falhar no meio, o próximo relê do mesmo ponto.
+     */
+    private Mono<Void> incrementar() {
+        AgregadosVendas copia = agregados.copia();
+        Marca[] marcas = {marcaPedidos, marcaItens};
+        Set<String> excluidos = new HashSet<>();
+        int[] linhas = new int[1];
+        return buscarDesde("/pedidos", SELECT_PEDIDOS, Pedido.class, marcas[0],
+                        pedido -> new Marca(pedido.getCreatedAt(), pedido.getId()),
+                        marca -> marcas[0] = marca)
+                .doOnNext(pagina -> pagina.forEach(pedido -> {
+                    linhas[0]++;
+                    if (excluido(pedido)) {
+                        excluidos.add(pedido.getId());
+                    } else if (pedido.getCreatedAt() != null) {
+                        copia.adicionarPedido(pedido.getCreatedAt().toLocalDate().toEpochDay(), AgregadosVendas.centavos(pedido.getTotal()));
+                    }
+                }))
+                .thenMany(buscarDesde("/pedido_itens", SELECT_ITENS, PedidoItem.class, marcas[1],
+                        item -> new Marca(item.getCreatedAt(), item.getId()),
+                        marca -> marcas[1] = marca))
+                .doOnNext(pagina -> pagina.forEach(item -> {
+                    linhas[0]++;
+                    if (!pedidosExcluidos.contains(item.getPedidoId()) && !excluidos.contains(item.getPedidoId())
+                            && item.getProdutoId() != null) {
+                        copia.adicionarItem(item.getProdutoId(), valor(item.getQuantidade()), AgregadosVendas.centavos(item.getSubtotal()));
+                    }
+                }))
+                .then(Mono.fromRunnable(() -> {
+                    if (linhas[0] > 0) {
+                        pedidosExcluidos.addAll(excluidos);
+                        agregados = copia;
+                        marcaPedidos = marcas[0];
+                        marcaItens = marcas[1];
+                        meterRegistry.counter("relatorios.incremental.rows").increment(linhas[0]);
+                    }
+                    atualizadoEm = LocalDateTime.now();
+                }));
+    }
+
+    private Mono<Void> reconstruir() {
+        reconstrucaoSolicitada = false;
+        long inicio = System.nanoTime();
+        ColunasVendas colunas = new ColunasVendas();
+        Set<String> excluidos = new HashSet<>();
+        Marca[] marcas = new Marca[2];
+
+        return buscarDesde("/pedidos", SELECT_PEDIDOS, Pedido.class, null,
+                        pedido -> new Marca(pedido.getCreatedAt(), pedido.getId()),
+                        marca -> marcas[0] = marca)
+                .doOnNext(pagina -> pagina.forEach(pedido -> {
+                    if (excluido(pedido)) {
+                        excluidos.add(pedido.getId());
+                    } else if (pedido.getCreatedAt() != null) {
+                        colunas.adicionarPedido(pedido.getCreatedAt().toLocalDate().toEpochDay(), AgregadosVendas.centavos(pedido.getTotal()));
+                    }
+                }))
+                .thenMany(buscarDesde("/pedido_itens", SELECT_ITENS, PedidoItem.class, null,
+                        item -> new Marca(item.getCreatedAt(), item.getId()),
+                        marca -> marcas[1] = marca))
+                .doOnNext(pagina -> pagina.forEach(item -> {
+                    if (!excluidos.contains(item.getPedidoId()) && item.getProdutoId() != null) {
+                        colunas.adicionarItem(item.getProdutoId(), valor(item.getQuantidade()), AgregadosVendas.centavos(item.getSubtotal()));
+                    }
+                }))
+                .then(Mono.fromCallable(() -> ForkJoinPool.commonPool().invoke(new Agregacao(colunas, 0, colunas.pedidos, 0, colunas.itens)))
+                        .subscribeOn(schedulerBloqueante))
+                .doOnNext(resultado -> {
+                    agregados = resultado;
+                    marcaPedidos = marcas[0];
+                    marcaItens = marcas[1];
+                    pedidosExcluidos = excluidos;
+                    atualizadoEm = LocalDateTime.now();
+                    ultimaReconstrucao = System.nanoTime();
+                    long duracao = System.nanoTime() - inicio;
+                    Timer.builder("relatorios.rebuild").register(meterRegistry).record(Duration.ofNanos(duracao));
+                    logger.info("Relatórios de vendas reconstruídos: {} pedido(s), {} item(ns) em {} ms",
+                            colunas.pedidos, colunas.itens, duracao / 1_000_000);
+                })
+                .then();
+    }
+
+    /**
+     * Páginas de registros criados depois da marca, em ordem de created_at e id. A marca avança a
+     * cada página, então a próxima rodada continua de onde esta parou.
+     */
+    private <T> Flux<List<T>> buscarDesde(String recurso, String select, Class<T> tipo, Marca marcaInicial,
+                                          Function<T, Marca> extrairMarca, Consumer<Marca> registrarMarca) {
+        Marca[] marca = {marcaInicial};
+        return buscarPagina(recurso, select, tipo, marca[0])
+                .expand(pagina -> pagina.size() < tamanhoPagina ? Mono.empty() : buscarPagina(recurso, select, tipo, marca[0]))
+                .doOnNext(pagina -> {
+                    for (int i = pagina.size() - 1; i >= 0; i--) {
+                        Marca ultima = extrairMarca.apply(pagina.get(i));
+                        if (ultima.criadoEm() != null) {
+                            marca[0] = ultima;
+                            registrarMarca.accept(ultima);
+                            break;
+                        }
+                    }
+                });
+    }
+
+    private <T> Mono<List<T>> buscarPagina(String recurso, String select, Class<T> tipo, Marca marca) {
+        return supabaseWebClient
+                .get()
+                .uri(uriBuilder -> {
+                    uriBuilder.path(recurso)
+                            .queryParam("select", select)
+                            .queryParam("order", "created_at.asc,id.asc")
+                            .queryParam("limit", tamanhoPagina);
+                    if (marca != null) {
+                        String criadoEm = marca.criadoEm().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+                        uriBuilder.queryParam("or", "(created_at.gt.{marca},and(created_at.eq.{marca},id.gt.{ultimoId}))");
+                        return uriBuilder.build(criadoEm, criadoEm, marca.id());
+                    }
+                    return uriBuilder.build();
+                })
+                .retrieve()
+                .bodyToFlux(tipo)
+                .collectList();
+    }
+
+    private boolean excluido(Pedido pedido) {
+        return pedido.getStatus() != null && statusExcluidos.contains(pedido.getStatus());
+    }
+
+    private static long valor(Integer quantidade) {
+        return quantidade == null ? 0 : quantidade;
+    }
+
+    private record Marca(LocalDateTime criadoEm, String id) {}
+
+    /**
+     * Pedidos e itens lidos na reconstrução, em colunas primitivas. Os ids de produto são
+     * internados em índices para a agregação não precisar de strings por linha.
+     */
+    private static final class ColunasVendas {
+        private long[] diasPedidos = new long[1024];
+        private long[] valoresPedidos = new long[1024];
+        private int pedidos;
+
+        private int[] produtosItens = new int[1024];
+        private long[] quantidadesItens = new long[1024];
+        private long[] valoresItens = new long[1024];
+        private int itens;
+
+        private final Map<String, Integer> indiceProdutos = new HashMap<>();
+        private final List<String> produtos = new ArrayList<>();
+
+        void adicionarPedido(long dia, long centavos) {
+            if (pedidos == diasPedidos.length) {
+                diasPedidos = Arrays.copyOf(diasPedidos, pedidos * 2);
+                valoresPedidos = Arrays.copyOf(valoresPedidos, pedidos * 2);
+            }
+            diasPedidos[pedidos] = dia;
+            valoresPedidos[pedidos++] = centavos;
+        }
+
+        void adicionarItem(String produtoId, long quantidade, long centavos) {
+            if (itens == produtosItens.length) {
+                produtosItens = Arrays.copyOf(produtosItens, itens * 2);
+                quantidadesItens = Arrays.copyOf(quantidadesItens, itens * 2);
+                valoresItens = Arrays.copyOf(valoresItens, itens * 2);
+            }
+            produtosItens[itens] = indiceProdutos.computeIfAbsent(produtoId, id -> {
+                produtos.add(id);
+                return produtos.size() - 1;
+            });
+            quantidadesItens[itens] = quantidade;
+            valoresItens[itens++] = centavos;
+        }
+    }
+
+    /**
+     * Divide pedidos e itens ao meio até ficarem abaixo do limiar, agrega cada parte e junta os resultados.
+     */
+    private final class Agregacao extends RecursiveTask<AgregadosVendas> {
+        private final ColunasVendas colunas;
+        private final int inicioPedidos;
+        private final int fimPedidos;
+        private final int inicioItens;
+        private final int fimItens;
+
+        private Agregacao(ColunasVendas colunas, int inicioPedidos, int fimPedidos, int inicioItens, int fimItens) {
+            this.colunas = colunas;
+            this.inicioPedidos = inicioPedidos;
+            this.fimPedidos = fimPedidos;
+            this.inicioItens = inicioItens;
+            this.fimItens = fimItens;
+        }
+
+        @Override
+        protected AgregadosVendas compute() {
+            if ((fimPedidos - inicioPedidos) + (fimItens - inicioItens) <= limiarParalelo) {
+                AgregadosVendas parcial = new AgregadosVendas();
+                for (int i = inicioPedidos; i < fimPedidos; i++) {
+                    parcial.adicionarPedido(colunas.diasPedidos[i], colunas.valoresPedidos[i]);
+                }
+                for (int i = inicioItens; i < fimItens; i++) {
+                    parcial.adicionarItem(colunas.produtos.get(colunas.produtosItens[i]), colunas.quantidadesItens[i], colunas.valoresItens[i]);
+                }
+                return parcial;
+            }
+            int meioPedidos = (inicioPedidos + fimPedidos) >>> 1;
+            int meioItens = (inicioItens + fimItens) >>> 1;
+            Agregacao esquerda = new Agregacao(colunas, inicioPedidos, meioPedidos, inicioItens, meioItens);
+            Agregacao direita = new Agregacao(colunas, meioPedidos, fimPedidos, meioItens, fimItens);
+            esquerda.fork();
+            AgregadosVendas resultado = direita.compute();
+            resultado.combinar(esquerda.join());
+            return resultado;
+        }
+    }
+}
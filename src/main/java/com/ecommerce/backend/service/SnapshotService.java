@@ -0,0 +1,214 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.model.Produto;
+import com.ecommerce.backend.resiliencia.SupabaseIndisponivelException;
+import com.ecommerce.backend.snapshot.ArquivoSnapshot;
+import com.ecommerce.backend.snapshot.SecaoSnapshot;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Snapshot local de produtos e pedidos recentes (criados dentro de snapshot.pedidos-window),
+ * regravado a cada snapshot.interval em snapshot.path e mapeado em memória. Na subida o arquivo
+ * anterior é aberto em milissegundos: o catálogo começa a responder buscas a partir dele e, enquanto
+ * o Supabase estiver inacessível, consultas por id podem ser respondidas com a cópia do snapshot,
+ * marcada como desatualizada. Nada que decida uma escrita (preço de pedido novo, confirmação) lê
+ * daqui. Clientes não entram: são dados pessoais e nenhuma leitura degradada precisa deles, então
+ * não vão para o disco do pod. Com snapshot.path vazio fica desativado.
+ */
+@Service
+public class SnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotService.class);
+
+    /**
+     * Cabeçalho Warning das respostas servidas do snapshot (RFC 7234, 5.5.1).
+     */
+    public static final String AVISO_DESATUALIZADO = "110 - \"Response is Stale\"";
+
+    private static final ParameterizedTypeReference<Produto> TIPO_PRODUTO = new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<Pedido> TIPO_PEDIDO = new ParameterizedTypeReference<>() {};
+
+    @Autowired
+    private CsvExportService csvExportService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("schedulerBloqueante")
+    private Scheduler schedulerBloqueante;
+
+    @Value("${snapshot.path:}")
+    private String caminho;
+
+    @Value("${snapshot.interval:5m}")
+    private Duration intervalo;
+
+    @Value("${snapshot.pedidos-window:7d}")
+    private Duration janelaPedidos;
+
+    @Value("${snapshot.max-age:7d}")
+    private Duration idadeMaxima;
+
+    private Path arquivo;
+    private volatile ArquivoSnapshot atual;
+    private Disposable gravacao;
+
+    @PostConstruct
+    public void iniciar() {
+        if (caminho.isBlank()) {
+            logger.info("Snapshot local desativado (snapshot.path vazio)");
+            return;
+        }
+        arquivo = Path.of(caminho);
+        Gauge.builder("snapshot.age.seconds", this, servico -> {
+                    ArquivoSnapshot snapshot = servico.atual;
+                    return snapshot == null ? Double.NaN : Duration.between(snapshot.getGravadoEm(), Instant.now()).toSeconds();
+                })
+                .register(meterRegistry);
+        carregar();
+        gravacao = Mono.defer(this::gravar)
+                .delaySubscription(intervalo)
+                .onErrorResume(e -> {
+                    logger.warn("Falha ao gravar snapshot local: {}", e.getMessage());
+                    return Mono.empty();
+                })
+                .repeat()
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        if (gravacao != null) {
+            gravacao.dispose();
+        }
+    }
+
+    /**
+     * Falha de acesso ao Supabase (rejeição da camada de resiliência, conexão recusada ou 5xx), em que
+     * faz sentido responder do snapshot.
+     */
+    public static boolean upstreamIndisponivel(Throwable erro) {
+        return erro instanceof SupabaseIndisponivelException
+                || erro instanceof WebClientRequestException
+                || (erro instanceof WebClientResponseException resposta && resposta.getStatusCode().is5xxServerError());
+    }
+
+    public Optional<Instant> getGravadoEm() {
+        ArquivoSnapshot snapshot = atual;
+        return snapshot == null ? Optional.empty() : Optional.of(snapshot.getGravadoEm());
+    }
+
+    /**
+     * Idade do snapshot em segundos, para o cabeçalho Age das respostas servidas dele.
+     */
+    public long getIdadeSegundos() {
+        return getGravadoEm().map(gravadoEm -> Math.max(0, Duration.between(gravadoEm, Instant.now()).toSeconds())).orElse(0L);
+    }
+
+    public List<Produto> listarProdutos() {
+        ArquivoSnapshot snapshot = atual;
+        return snapshot == null ? List.of() : snapshot.listar(SecaoSnapshot.PRODUTOS);
+    }
+
+    public Optional<Produto> buscarProduto(String id) {
+        return buscar(SecaoSnapshot.PRODUTOS, id);
+    }
+
+    public Optional<Pedido> buscarPedido(String id) {
+        return buscar(SecaoSnapshot.PEDIDOS, id);
+    }
+
+    private <T> Optional<T> buscar(SecaoSnapshot<T> secao, String id) {
+        ArquivoSnapshot snapshot = atual;
+        if (snapshot == null) {
+            return Optional.empty();
+        }
+        Optional<T> registro = snapshot.buscar(secao, id);
+        meterRegistry.counter("snapshot.fallback.reads", "type", secao.getNome(), "result", registro.isPresent() ? "hit" : "miss")
+                .increment();
+        return registro;
+    }
+
+    private void carregar() {
+        if (!Files.exists(arquivo)) {
+            logger.info("Nenhum snapshot local em {}; o primeiro será gravado em {}", arquivo, intervalo);
+            return;
+        }
+        long inicio = System.nanoTime();
+        try {
+            ArquivoSnapshot snapshot = ArquivoSnapshot.abrir(arquivo);
+            Duration idade = Duration.between(snapshot.getGravadoEm(), Instant.now());
+            if (idade.compareTo(idadeMaxima) > 0) {
+                logger.warn("Snapshot local ignorado: gravado há {} (máximo {})", idade, idadeMaxima);
+                return;
+            }
+            atual = snapshot;
+            logger.info("Snapshot local carregado em {} ms: {} produto(s), {} pedido(s), gravado em {}",
+                    (System.nanoTime() - inicio) / 1_000_000, snapshot.quantidade(SecaoSnapshot.PRODUTOS),
+                    snapshot.quantidade(SecaoSnapshot.PEDIDOS), snapshot.getGravadoEm());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Snapshot local em {} não pôde ser lido e será regravado: {}", arquivo, e.getMessage());
+        }
+    }
+
+    private Mono<Void> gravar() {
+        long inicio = System.nanoTime();
+        Instant gravadoEm = Instant.now();
+        return Mono.zip(
+                        todos("/produtos", TIPO_PRODUTO, Produto::getId, null),
+                        todos("/pedidos", TIPO_PEDIDO, Pedido::getId, LocalDateTime.now().minus(janelaPedidos)))
+                .publishOn(schedulerBloqueante)
+                .map(dados -> {
+                    try {
+                        Files.createDirectories(arquivo.toAbsolutePath().getParent());
+                        ArquivoSnapshot.gravar(arquivo, gravadoEm, List.of(
+                                new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS, dados.getT1()),
+                                new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PEDIDOS, dados.getT2())));
+                        return ArquivoSnapshot.abrir(arquivo);
+                    } catch (IOException e) {
+                        throw new RuntimeException("Erro ao gravar snapshot em " + arquivo, e);
+                    }
+                })
+                .doOnNext(novo -> {
+                    atual = novo;
+                    Timer.builder("snapshot.write").register(meterRegistry).record(Duration.ofNanos(System.nanoTime() - inicio));
+                    logger.debug("Snapshot local gravado: {} bytes", novo.getTamanhoBytes());
+                })
+                .then();
+    }
+
+    private <T> Mono<List<T>> todos(String recurso, ParameterizedTypeReference<T> tipo,
+                                    Function<T, Object> extrairId, LocalDateTime desde) {
+        return csvExportService.buscarPaginas(recurso, tipo, extrairId, desde, null)
+                .flatMapIterable(pagina -> pagina)
+                .collectList();
+    }
+}
@@ -0,0 +1,150 @@
+package com.ecommerce.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * Validadores HTTP (ETag e Last-Modified) das respostas de pedidos e exportações, guardados por
+ * chave de recurso. Enquanto um validador foi conferido há menos de http.validators.max-age, um
+ * If-None-Match igual a ele é respondido com 304 sem ir ao Supabase; depois disso o recurso é
+ * relido (nas exportações, só a versão da tabela) antes de responder. O Last-Modified é o
+ * instante em que o hash mudou pela última vez, não o da última conferência.
+ */
+@Service
+public class ValidadorService {
+
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${http.validators.max-age:60s}")
+    private Duration idadeMaxima;
+
+    @Value("${http.validators.retention:24h}")
+    private Duration retencao;
+
+    @Value("${http.validators.maximum-size:10000}")
+    private long tamanhoMaximo;
+
+    private Cache<String, Validador> validadores;
+
+    @PostConstruct
+    public void inicializar() {
+        validadores = Caffeine.newBuilder()
+                .maximumSize(tamanhoMaximo)
+                .expireAfterWrite(retencao)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validadores, "validadores_http");
+    }
+
+    public Optional<Validador> buscar(String chave) {
+        return Optional.ofNullable(validadores.getIfPresent(chave));
+    }
+
+    public boolean fresco(Validador validador) {
+        return System.nanoTime() - validador.conferidoEm() < idadeMaxima.toNanos();
+    }
+
+    /**
+     * Registra o valor atual do recurso. Se for igual ao anterior, só renova a conferência e mantém
+     * o Last-Modified; senão usa ultimaModificacao (ou agora, quando nula).
+     */
+    public Validador registrar(String chave, String valor, boolean fraco, Instant ultimaModificacao) {
+        return validadores.asMap().compute(chave, (k, anterior) -> {
+            Instant modificacao = anterior != null && anterior.valor().equals(valor)
+                    ? anterior.ultimaModificacao()
+                    : (ultimaModificacao != null ? ultimaModificacao : Instant.now()).truncatedTo(ChronoUnit.SECONDS);
+            return new Validador(valor, fraco, modificacao, System.nanoTime());
+        });
+    }
+
+    /**
+     * Chamado quando o pedido muda por este serviço ou pelo feed, para que o próximo If-None-Match
+     * consulte o Supabase em vez de responder 304 com a versão antiga.
+     */
+    public void invalidarPedido(String pedidoId) {
+        validadores.invalidate(chavePedido(pedidoId));
+        validadores.invalidate(chavePedidoCsv(pedidoId));
+    }
+
+    public static String chavePedido(String pedidoId) {
+        return "pedido:" + pedidoId;
+    }
+
+    public static String chavePedidoCsv(String pedidoId) {
+        return "pedido_csv:" + pedidoId;
+    }
+
+    public static String chaveExportacao(String tabela) {
+        return "export:" + tabela;
+    }
+
+    public void registrarResultado(String recurso, String resultado) {
+        meterRegistry.counter("http.conditional.requests", "resource", recurso, "result", resultado).increment();
+    }
+
+    public static String hash(byte[] conteudo) {
+        MessageDigest digest = novoDigest();
+        digest.update(conteudo);
+        return codificar(digest);
+    }
+
+    /**
+     * If-None-Match com comparação fraca (RFC 9110): W/"x" e "x" correspondem; * corresponde a qualquer valor.
+     */
+    public static boolean corresponde(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaco = etag.startsWith("W/") ? etag.substring(2) : etag;
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .anyMatch(candidato -> candidato.equals("*")
+                        || (candidato.startsWith("W/") ? candidato.substring(2) : candidato).equals(opaco));
+    }
+
+    private static MessageDigest novoDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+
+    private static String codificar(MessageDigest digest) {
+        return BASE64.encodeToString(Arrays.copyOf(digest.digest(), 16));
+    }
+
+    /**
+     * Valor do ETag (hash do conteúdo ou versão do registro), se é fraco, Last-Modified e instante
+     * (System.nanoTime) da última conferência com o Supabase.
+     */
+    public record Validador(String valor, boolean fraco, Instant ultimaModificacao, long conferidoEm) {
+
+        /**
+         * Representações comprimidas têm ETag próprio, como pede a RFC 9110.
+         */
+        public String etag(CompressaoService.Codificacao codificacao) {
+            String sufixo = codificacao == null || codificacao == CompressaoService.Codificacao.IDENTITY
+                    ? "" : "-" + codificacao.getValor();
+            return (fraco ? "W/" : "") + "\"" + valor + sufixo + "\"";
+        }
+    }
+}
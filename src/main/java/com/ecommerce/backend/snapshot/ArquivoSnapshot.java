@@ -0,0 +1,226 @@
+package com.ecommerce.backend.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+/**
+ * Arquivo de snapshot mapeado em memória. Layout (inteiros big-endian):
+ * <pre>
+ * cabeçalho  magia, versão, gravadoEm (epoch ms)
+ * registros  de cada seção, em sequência (ver {@link SecaoSnapshot})
+ * índices    por seção, entradas (hash64 do id, offset do registro) ordenadas pelo hash
+ * rodapé     nº de seções; por seção: código, quantidade, início dos registros, início do índice;
+ *            início do rodapé, magia
+ * </pre>
+ * Abrir só valida o cabeçalho e lê o rodapé; as buscas fazem busca binária no índice e decodificam
+ * um registro direto do mapeamento, sem carregar o arquivo no heap. A gravação vai para um arquivo
+ * temporário que substitui o anterior com um move atômico, então quem abrir nunca vê um arquivo
+ * pela metade. Offsets são int: o arquivo é limitado a 2 GB.
+ */
+public final class ArquivoSnapshot {
+
+    private static final int MAGIA = 0x45435350;
+    private static final int VERSAO = 1;
+    private static final int TAMANHO_ENTRADA = 12;
+
+    private final ByteBuffer mapa;
+    private final Instant gravadoEm;
+    private final long tamanhoBytes;
+    private final Map<Integer, Secao> secoes;
+
+    private record Secao(int quantidade, int inicioRegistros, int inicioIndice) {
+    }
+
+    /**
+     * Registros de uma seção a gravar.
+     */
+    public record Conteudo<T>(SecaoSnapshot<T> secao, Collection<T> registros) {
+    }
+
+    private ArquivoSnapshot(ByteBuffer mapa, Instant gravadoEm, long tamanhoBytes, Map<Integer, Secao> secoes) {
+        this.mapa = mapa;
+        this.gravadoEm = gravadoEm;
+        this.tamanhoBytes = tamanhoBytes;
+        this.secoes = secoes;
+    }
+
+    public static ArquivoSnapshot abrir(Path arquivo) throws IOException {
+        ByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot maior que 2 GB: " + arquivo);
+            }
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+        int tamanho = mapa.capacity();
+        if (tamanho < 24 || mapa.getInt(0) != MAGIA || mapa.getInt(tamanho - 4) != MAGIA) {
+            throw new IOException("Arquivo de snapshot inválido ou incompleto: " + arquivo);
+        }
+        if (mapa.getInt(4) != VERSAO) {
+            throw new IOException("Versão de snapshot não suportada (" + mapa.getInt(4) + "): " + arquivo);
+        }
+        Map<Integer, Secao> secoes = new HashMap<>();
+        int posicao = mapa.getInt(tamanho - 8);
+        int quantidadeSecoes = mapa.getInt(posicao);
+        posicao += 4;
+        for (int i = 0; i < quantidadeSecoes; i++, posicao += 16) {
+            secoes.put(mapa.getInt(posicao), new Secao(mapa.getInt(posicao + 4), mapa.getInt(posicao + 8), mapa.getInt(posicao + 12)));
+        }
+        return new ArquivoSnapshot(mapa, Instant.ofEpochMilli(mapa.getLong(8)), tamanho, secoes);
+    }
+
+    public static void gravar(Path destino, Instant gravadoEm, List<Conteudo<?>> conteudos) throws IOException {
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        try (DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporario), 1 << 16))) {
+            saida.writeInt(MAGIA);
+            saida.writeInt(VERSAO);
+            saida.writeLong(gravadoEm.toEpochMilli());
+            List<long[]> hashes = new ArrayList<>();
+            List<int[]> offsets = new ArrayList<>();
+            int[] iniciosRegistros = new int[conteudos.size()];
+            for (int s = 0; s < conteudos.size(); s++) {
+                iniciosRegistros[s] = saida.size();
+                int[] offsetsSecao = new int[conteudos.get(s).registros().size()];
+                hashes.add(escreverRegistros(saida, conteudos.get(s), offsetsSecao));
+                offsets.add(offsetsSecao);
+            }
+            int[] iniciosIndice = new int[conteudos.size()];
+            for (int s = 0; s < conteudos.size(); s++) {
+                iniciosIndice[s] = saida.size();
+                long[] hashesSecao = hashes.get(s);
+                int[] offsetsSecao = offsets.get(s);
+                int[] ordem = IntStream.range(0, hashesSecao.length).boxed()
+                        .sorted(Comparator.comparingLong(i -> hashesSecao[i]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+                for (int i : ordem) {
+                    saida.writeLong(hashesSecao[i]);
+                    saida.writeInt(offsetsSecao[i]);
+                }
+            }
+            int inicioRodape = verificarTamanho(saida);
+            saida.writeInt(conteudos.size());
+            for (int s = 0; s < conteudos.size(); s++) {
+                saida.writeInt(conteudos.get(s).secao().getCodigo());
+                saida.writeInt(conteudos.get(s).registros().size());
+                saida.writeInt(iniciosRegistros[s]);
+                saida.writeInt(iniciosIndice[s]);
+            }
+            saida.writeInt(inicioRodape);
+            saida.writeInt(MAGIA);
+        }
+        try (FileChannel canal = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static <T> long[] escreverRegistros(DataOutputStream saida, Conteudo<T> conteudo, int[] offsets) throws IOException {
+        long[] hashes = new long[offsets.length];
+        int i = 0;
+        for (T registro : conteudo.registros()) {
+            hashes[i] = hash(conteudo.secao().id(registro));
+            offsets[i++] = verificarTamanho(saida);
+            conteudo.secao().escrever(saida, registro);
+        }
+        return hashes;
+    }
+
+    private static int verificarTamanho(DataOutputStream saida) throws IOException {
+        // DataOutputStream.size() satura em Integer.MAX_VALUE
+        if (saida.size() == Integer.MAX_VALUE) {
+            throw new IOException("Snapshot maior que 2 GB");
+        }
+        return saida.size();
+    }
+
+    public Instant getGravadoEm() {
+        return gravadoEm;
+    }
+
+    public long getTamanhoBytes() {
+        return tamanhoBytes;
+    }
+
+    public int quantidade(SecaoSnapshot<?> secao) {
+        Secao dados = secoes.get(secao.getCodigo());
+        return dados == null ? 0 : dados.quantidade();
+    }
+
+    public <T> Optional<T> buscar(SecaoSnapshot<T> secao, String id) {
+        Secao dados = secoes.get(secao.getCodigo());
+        if (dados == null || id == null) {
+            return Optional.empty();
+        }
+        long hash = hash(id);
+        ByteBuffer leitura = mapa.duplicate();
+        int baixo = 0;
+        int alto = dados.quantidade();
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (leitura.getLong(dados.inicioIndice() + meio * TAMANHO_ENTRADA) < hash) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        for (int i = baixo; i < dados.quantidade(); i++) {
+            int entrada = dados.inicioIndice() + i * TAMANHO_ENTRADA;
+            if (leitura.getLong(entrada) != hash) {
+                break;
+            }
+            int offset = leitura.getInt(entrada + 8);
+            leitura.position(offset);
+            if (id.equals(SecaoSnapshot.lerTexto(leitura))) {
+                leitura.position(offset);
+                return Optional.of(secao.ler(leitura));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Todos os registros da seção, na ordem em que foram gravados.
+     */
+    public <T> List<T> listar(SecaoSnapshot<T> secao) {
+        Secao dados = secoes.get(secao.getCodigo());
+        if (dados == null) {
+            return List.of();
+        }
+        ByteBuffer leitura = mapa.duplicate();
+        leitura.position(dados.inicioRegistros());
+        List<T> registros = new ArrayList<>(dados.quantidade());
+        for (int i = 0; i < dados.quantidade(); i++) {
+            registros.add(secao.ler(leitura));
+        }
+        return registros;
+    }
+
+    /**
+     * FNV-1a de 64 bits sobre os caracteres do id.
+     */
+    static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.backend.snapshot;
+
+import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.model.Produto;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Tipo de registro guardado no snapshot e sua codificação binária: campos na ordem da declaração,
+ * strings como tamanho + UTF-8 (-1 para null), decimais como texto e datas como segundos e nanos
+ * em UTC. O id é sempre o primeiro campo, para o índice conferir a chave sem decodificar o resto.
+ */
+public abstract class SecaoSnapshot<T> {
+
+    private static final long DATA_NULA = Long.MIN_VALUE;
+
+    public static final SecaoSnapshot<Produto> PRODUTOS = new SecaoSnapshot<>(1, "produtos") {
+        @Override
+        String id(Produto produto) {
+            return produto.getId();
+        }
+
+        @Override
+        void escrever(DataOutputStream saida, Produto produto) throws IOException {
+            escreverTexto(saida, produto.getId());
+            escreverTexto(saida, produto.getNome());
+            escreverTexto(saida, produto.getDescricao());
+            escreverDecimal(saida, produto.getPreco());
+            saida.writeInt(produto.getEstoque() == null ? Integer.MIN_VALUE : produto.getEstoque());
+            escreverTexto(saida, produto.getImagemUrl());
+            escreverData(saida, produto.getCreatedAt());
+        }
+
+        @Override
+        Produto ler(ByteBuffer entrada) {
+            String id = lerTexto(entrada);
+            String nome = lerTexto(entrada);
+            String descricao = lerTexto(entrada);
+            BigDecimal preco = lerDecimal(entrada);
+            int estoque = entrada.getInt();
+            return new Produto(id, nome, descricao, preco, estoque == Integer.MIN_VALUE ? null : estoque,
+                    lerTexto(entrada), lerData(entrada));
+        }
+    };
+
+    // O código 2 foi da seção de clientes, removida para não gravar dados pessoais no disco; um
+    // arquivo antigo com ela continua legível e a seção é descartada na próxima gravação
+    public static final SecaoSnapshot<Pedido> PEDIDOS = new SecaoSnapshot<>(3, "pedidos") {
+        @Override
+        String id(Pedido pedido) {
+            return pedido.getId();
+        }
+
+        @Override
+        void escrever(DataOutputStream saida, Pedido pedido) throws IOException {
+            escreverTexto(saida, pedido.getId());
+            escreverTexto(saida, pedido.getClienteId());
+            escreverData(saida, pedido.getDataPedido());
+            escreverTexto(saida, pedido.getStatus());
+            escreverDecimal(saida, pedido.getTotal());
+            escreverData(saida, pedido.getCreatedAt());
+            escreverData(saida, pedido.getUpdatedAt());
+        }
+
+        @Override
+        Pedido ler(ByteBuffer entrada) {
+            Pedido pedido = new Pedido(lerTexto(entrada), lerTexto(entrada), lerData(entrada), lerTexto(entrada),
+                    lerDecimal(entrada), lerData(entrada));
+            pedido.setUpdatedAt(lerData(entrada));
+            return pedido;
+        }
+    };
+
+    private final int codigo;
+    private final String nome;
+
+    private SecaoSnapshot(int codigo, String nome) {
+        this.codigo = codigo;
+        this.nome = nome;
+    }
+
+    public int getCodigo() {
+        return codigo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    abstract String id(T registro);
+
+    abstract void escrever(DataOutputStream saida, T registro) throws IOException;
+
+    abstract T ler(ByteBuffer entrada);
+
+    static void escreverTexto(DataOutputStream saida, String texto) throws IOException {
+        if (texto == null) {
+            saida.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        saida.writeInt(bytes.length);
+        saida.write(bytes);
+    }
+
+    static String lerTexto(ByteBuffer entrada) {
+        int tamanho = entrada.getInt();
+        if (tamanho < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[tamanho];
+        entrada.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escreverDecimal(DataOutputStream saida, BigDecimal valor) throws IOException {
+        escreverTexto(saida, valor == null ? null : valor.toPlainString());
+    }
+
+    private static BigDecimal lerDecimal(ByteBuffer entrada) {
+        String texto = lerTexto(entrada);
+        return texto == null ? null : new BigDecimal(texto);
+    }
+
+    private static void escreverData(DataOutputStream saida, LocalDateTime data) throws IOException {
+        if (data == null) {
+            saida.writeLong(DATA_NULA);
+            return;
+        }
+        saida.writeLong(data.toEpochSecond(ZoneOffset.UTC));
+        saida.writeInt(data.getNano());
+    }
+
+    private static LocalDateTime lerData(ByteBuffer entrada) {
+        long segundos = entrada.getLong();
+        return segundos == DATA_NULA ? null : LocalDateTime.ofEpochSecond(segundos, entrada.getInt(), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,139 @@
+package com.ecommerce.backend.estoque;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContadorEstoqueTest {
+
+    private static void assertSaldo(ContadorEstoque contador, int disponivel, int reservado, int pendente) {
+        assertThat(contador.getDisponivel()).as("disponível").isEqualTo(disponivel);
+        assertThat(contador.getReservado()).as("reservado").isEqualTo(reservado);
+        assertThat(contador.getPendente()).as("pendente").isEqualTo(pendente);
+    }
+
+    @Test
+    void reservaLiberaEConfirma() {
+        ContadorEstoque contador = new ContadorEstoque(10);
+
+        assertThat(contador.reservar(4)).isTrue();
+        assertSaldo(contador, 6, 4, 0);
+        contador.liberar(1);
+        assertSaldo(contador, 7, 3, 0);
+        contador.confirmar(3);
+        assertSaldo(contador, 7, 0, 3);
+        contador.baixaGravada(3);
+        assertSaldo(contador, 7, 0, 0);
+    }
+
+    @Test
+    void reservaSemSaldoNaoAlteraNada() {
+        ContadorEstoque contador = new ContadorEstoque(3);
+
+        assertThat(contador.reservar(4)).isFalse();
+        assertSaldo(contador, 3, 0, 0);
+        assertThat(contador.reservar(3)).isTrue();
+        assertThat(contador.reservar(1)).isFalse();
+        assertSaldo(contador, 0, 3, 0);
+    }
+
+    @Test
+    void reconciliarPreservaReservasEBaixasPendentes() {
+        ContadorEstoque contador = new ContadorEstoque(10);
+        contador.reservar(2);
+        contador.reservar(3);
+        contador.confirmar(3);
+
+        // Alguém repôs 5 unidades direto no banco; a baixa de 3 ainda não foi gravada
+        contador.reconciliar(15);
+
+        assertSaldo(contador, 10, 2, 3);
+    }
+
+    @Test
+    void reconciliarAbaixoDoReservadoDeixaDisponivelNegativoSemCorromperOReservado() {
+        ContadorEstoque contador = new ContadorEstoque(10);
+        contador.reservar(5);
+
+        contador.reconciliar(2);
+
+        assertSaldo(contador, -3, 5, 0);
+        assertThat(contador.reservar(1)).isFalse();
+        contador.liberar(5);
+        assertSaldo(contador, 2, 0, 0);
+    }
+
+    @Test
+    void reservasConcorrentesNuncaVendemAMaisQueOSaldo() throws Exception {
+        int estoque = 10_000;
+        ContadorEstoque contador = new ContadorEstoque(estoque);
+        AtomicInteger reservadas = new AtomicInteger();
+
+        executarEmParalelo(8, () -> {
+            while (contador.reservar(1)) {
+                reservadas.incrementAndGet();
+            }
+        });
+
+        assertThat(reservadas.get()).isEqualTo(estoque);
+        assertSaldo(contador, 0, estoque, 0);
+    }
+
+    @Test
+    void operacoesConcorrentesMantemOInvariante() throws Exception {
+        int estoque = 500;
+        ContadorEstoque contador = new ContadorEstoque(estoque);
+        AtomicInteger gravadas = new AtomicInteger();
+
+        executarEmParalelo(8, () -> {
+            ThreadLocalRandom aleatorio = ThreadLocalRandom.current();
+            for (int i = 0; i < 20_000; i++) {
+                int quantidade = 1 + aleatorio.nextInt(3);
+                if (!contador.reservar(quantidade)) {
+                    continue;
+                }
+                if (aleatorio.nextBoolean()) {
+                    contador.liberar(quantidade);
+                } else {
+                    contador.confirmar(quantidade);
+                    contador.baixaGravada(quantidade);
+                    gravadas.addAndGet(quantidade);
+                }
+            }
+        });
+
+        assertSaldo(contador, estoque - gravadas.get(), 0, 0);
+        assertThat(contador.getDisponivel()).isGreaterThanOrEqualTo(0);
+    }
+
+    private static void executarEmParalelo(int threads, Runnable tarefa) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    tarefa.run();
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.ecommerce.backend.resiliencia;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BaldeTokensTest {
+
+    private static final long INTERVALO = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final int RAJADA = 5;
+    private static final long TOLERANCIA = RAJADA * INTERVALO;
+    private static final long INICIO = 1_000_000_000L;
+
+    @Test
+    void admiteARajadaEDepoisInformaAEspera() {
+        BaldeTokens balde = new BaldeTokens(INICIO);
+
+        for (int i = 0; i < RAJADA; i++) {
+            assertThat(balde.consumir(1, INTERVALO, TOLERANCIA, INICIO)).isZero();
+        }
+        assertThat(balde.consumir(1, INTERVALO, TOLERANCIA, INICIO)).isEqualTo(INTERVALO);
+        // A recusa não consome: a espera continua a mesma
+        assertThat(balde.consumir(1, INTERVALO, TOLERANCIA, INICIO)).isEqualTo(INTERVALO);
+    }
+
+    @Test
+    void reabasteceATaxaConfigurada() {
+        BaldeTokens balde = new BaldeTokens(INICIO);
+        for (int i = 0; i < RAJADA; i++) {
+            balde.consumir(1, INTERVALO, TOLERANCIA, INICIO);
+        }
+
+        long depois = INICIO + 2 * INTERVALO;
+        assertThat(balde.consumir(1, INTERVALO, TOLERANCIA, depois)).isZero();
+        assertThat(balde.consumir(1, INTERVALO, TOLERANCIA, depois)).isZero();
+        assertThat(balde.consumir(1, INTERVALO, TOLERANCIA, depois)).isEqualTo(INTERVALO);
+    }
+
+    @Test
+    void ociosidadeNaoAcumulaMaisQueARajada() {
+        BaldeTokens balde = new BaldeTokens(INICIO);
+        long muitoDepois = INICIO + TimeUnit.SECONDS.toNanos(10);
+
+        int admitidas = 0;
+        while (balde.consumir(1, INTERVALO, TOLERANCIA, muitoDepois) == 0) {
+            admitidas++;
+        }
+
+        assertThat(admitidas).isEqualTo(RAJADA);
+    }
+
+    @Test
+    void custoIgualARajadaPassaEMaiorQueElaEspera() {
+        BaldeTokens balde = new BaldeTokens(INICIO);
+
+        assertThat(balde.consumir(RAJADA + 1, INTERVALO, TOLERANCIA, INICIO)).isEqualTo(INTERVALO);
+        assertThat(balde.consumir(RAJADA, INTERVALO, TOLERANCIA, INICIO)).isZero();
+        assertThat(balde.consumir(2, INTERVALO, TOLERANCIA, INICIO)).isEqualTo(2 * INTERVALO);
+    }
+
+    @Test
+    void consumoConcorrenteAdmiteExatamenteARajada() throws Exception {
+        int rajada = 1_000;
+        long tolerancia = rajada * INTERVALO;
+        BaldeTokens balde = new BaldeTokens(INICIO);
+        AtomicInteger admitidas = new AtomicInteger();
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> futuros = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futuros.add(executor.submit(() -> {
+                    largada.await();
+                    for (int j = 0; j < rajada; j++) {
+                        if (balde.consumir(1, INTERVALO, tolerancia, INICIO) == 0) {
+                            admitidas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> futuro : futuros) {
+                futuro.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(admitidas.get()).isEqualTo(rajada);
+        assertThat(balde.consumir(1, INTERVALO, tolerancia, INICIO)).isEqualTo(INTERVALO);
+    }
+}
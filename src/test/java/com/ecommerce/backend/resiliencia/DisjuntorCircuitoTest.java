@@ -0,0 +1,172 @@
+package com.ecommerce.backend.resiliencia;
+
+import com.ecommerce.backend.resiliencia.DisjuntorCircuito.Estado;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DisjuntorCircuitoTest {
+
+    private final List<String> transicoes = new CopyOnWriteArrayList<>();
+
+    private DisjuntorCircuito criar(int janela, int minimo, double limiar, Duration aberto, int testes) {
+        return new DisjuntorCircuito("pedidos", janela, minimo, limiar, aberto, testes,
+                (anterior, novo) -> transicoes.add(anterior + "->" + novo));
+    }
+
+    private static void registrar(DisjuntorCircuito disjuntor, int sucessos, int falhas) {
+        for (int i = 0; i < sucessos; i++) {
+            disjuntor.permitir();
+            disjuntor.registrarSucesso();
+        }
+        for (int i = 0; i < falhas; i++) {
+            disjuntor.permitir();
+            disjuntor.registrarFalha();
+        }
+    }
+
+    private static void esperarFimDoAberto(DisjuntorCircuito disjuntor) throws InterruptedException {
+        while (!disjuntor.tempoRestanteAberto().isZero()) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void abreQuandoATaxaDeFalhasAtingeOLimiar() {
+        DisjuntorCircuito disjuntor = criar(10, 4, 0.5, Duration.ofMinutes(1), 2);
+
+        registrar(disjuntor, 2, 1);
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.FECHADO);
+        registrar(disjuntor, 0, 1);
+
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.ABERTO);
+        assertThat(disjuntor.permitir()).isFalse();
+        assertThat(disjuntor.tempoRestanteAberto()).isPositive();
+        assertThat(transicoes).containsExactly("FECHADO->ABERTO");
+    }
+
+    @Test
+    void naoAbreAntesDoMinimoDeChamadas() {
+        DisjuntorCircuito disjuntor = criar(10, 5, 0.5, Duration.ofMinutes(1), 2);
+
+        registrar(disjuntor, 0, 4);
+
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.FECHADO);
+        assertThat(disjuntor.permitir()).isTrue();
+    }
+
+    @Test
+    void falhasAntigasSaemDaJanela() {
+        DisjuntorCircuito disjuntor = criar(4, 4, 0.75, Duration.ofMinutes(1), 2);
+
+        registrar(disjuntor, 0, 2);
+        registrar(disjuntor, 4, 0);
+        registrar(disjuntor, 0, 2);
+
+        // Janela: sucesso, sucesso, falha, falha = 50%, abaixo do limiar
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.FECHADO);
+        registrar(disjuntor, 0, 1);
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.ABERTO);
+    }
+
+    @Test
+    void meioAbertoFechaDepoisDasChamadasDeTesteComSucesso() throws InterruptedException {
+        DisjuntorCircuito disjuntor = criar(10, 2, 0.5, Duration.ofMillis(50), 2);
+        registrar(disjuntor, 0, 2);
+        esperarFimDoAberto(disjuntor);
+
+        assertThat(disjuntor.permitir()).isTrue();
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+        assertThat(disjuntor.permitir()).isTrue();
+        assertThat(disjuntor.permitir()).isFalse();
+        disjuntor.registrarSucesso();
+        disjuntor.registrarSucesso();
+
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.FECHADO);
+        assertThat(transicoes).containsExactly("FECHADO->ABERTO", "ABERTO->MEIO_ABERTO", "MEIO_ABERTO->FECHADO");
+        // A janela recomeça vazia: uma falha não reabre sem o mínimo de chamadas
+        registrar(disjuntor, 0, 1);
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.FECHADO);
+    }
+
+    @Test
+    void falhaNoMeioAbertoReabre() throws InterruptedException {
+        DisjuntorCircuito disjuntor = criar(10, 2, 0.5, Duration.ofMillis(50), 2);
+        registrar(disjuntor, 0, 2);
+        esperarFimDoAberto(disjuntor);
+
+        assertThat(disjuntor.permitir()).isTrue();
+        disjuntor.registrarFalha();
+
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.ABERTO);
+        assertThat(disjuntor.permitir()).isFalse();
+    }
+
+    @Test
+    void descartarDevolveAVagaDeTesteSemContarResultado() throws InterruptedException {
+        DisjuntorCircuito disjuntor = criar(10, 2, 0.5, Duration.ofMillis(50), 1);
+        registrar(disjuntor, 0, 2);
+        esperarFimDoAberto(disjuntor);
+
+        assertThat(disjuntor.permitir()).isTrue();
+        assertThat(disjuntor.permitir()).isFalse();
+        disjuntor.descartar();
+
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+        assertThat(disjuntor.permitir()).isTrue();
+    }
+
+    @Test
+    void descartarNoFechadoNaoContaNaJanela() {
+        DisjuntorCircuito disjuntor = criar(10, 2, 0.5, Duration.ofMinutes(1), 1);
+
+        for (int i = 0; i < 10; i++) {
+            disjuntor.permitir();
+            disjuntor.descartar();
+        }
+        registrar(disjuntor, 0, 1);
+
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.FECHADO);
+    }
+
+    @Test
+    void meioAbertoNaoLiberaMaisTestesQueOConfiguradoSobConcorrencia() throws Exception {
+        DisjuntorCircuito disjuntor = criar(10, 2, 0.5, Duration.ofMillis(20), 3);
+        registrar(disjuntor, 0, 2);
+        esperarFimDoAberto(disjuntor);
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicInteger permitidas = new AtomicInteger();
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    largada.await();
+                    for (int j = 0; j < 1000; j++) {
+                        if (disjuntor.permitir()) {
+                            permitidas.incrementAndGet();
+                        }
+                    }
+                    return null;
+                });
+            }
+            largada.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(permitidas.get()).isEqualTo(3);
+        assertThat(disjuntor.getEstado()).isEqualTo(Estado.MEIO_ABERTO);
+    }
+}
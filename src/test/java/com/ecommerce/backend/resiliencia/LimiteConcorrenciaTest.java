@@ -0,0 +1,200 @@
+package com.ecommerce.backend.resiliencia;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LimiteConcorrenciaTest {
+
+    private static final Duration ESPERA = Duration.ofSeconds(5);
+
+    private static boolean limiteConcorrencia(Throwable erro) {
+        return erro instanceof SupabaseIndisponivelException indisponivel
+                && indisponivel.getMotivo() == SupabaseIndisponivelException.Motivo.LIMITE_CONCORRENCIA;
+    }
+
+    @Test
+    void naoPassaDoMaximoDeChamadasSimultaneas() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", 2, 10);
+        AtomicInteger emAndamento = new AtomicInteger();
+        AtomicInteger maximoVisto = new AtomicInteger();
+        Mono<Integer> chamada = Mono.defer(() -> {
+            maximoVisto.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+            return Mono.delay(Duration.ofMillis(30)).map(tique -> 1).doOnTerminate(emAndamento::decrementAndGet);
+        });
+
+        StepVerifier.create(Flux.range(0, 6).flatMap(i -> limite.executar(chamada, ESPERA, "pedidos")).count())
+                .expectNext(6L)
+                .verifyComplete();
+
+        assertThat(maximoVisto.get()).isEqualTo(2);
+        assertThat(limite.getEmUso()).isZero();
+        assertThat(limite.getNaFila()).isZero();
+    }
+
+    @Test
+    void filaCheiaRejeitaNaHora() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", 1, 1);
+        Disposable ocupando = limite.executar(Mono.never(), ESPERA, "pedidos").subscribe();
+        Disposable esperando = limite.executar(Mono.never(), ESPERA, "pedidos").subscribe();
+
+        StepVerifier.create(limite.executar(Mono.just(1), ESPERA, "pedidos"))
+                .expectErrorMatches(LimiteConcorrenciaTest::limiteConcorrencia)
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(limite.getNaFila()).isEqualTo(1);
+        ocupando.dispose();
+        esperando.dispose();
+        assertThat(limite.getEmUso()).isZero();
+        assertThat(limite.getNaFila()).isZero();
+    }
+
+    @Test
+    void esperaMaximaEsgotadaSaiDaFila() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", 1, 5);
+        Disposable ocupando = limite.executar(Mono.never(), ESPERA, "pedidos").subscribe();
+
+        StepVerifier.create(limite.executar(Mono.just(1), Duration.ofMillis(50), "pedidos"))
+                .expectErrorMatches(LimiteConcorrenciaTest::limiteConcorrencia)
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(limite.getNaFila()).isZero();
+        assertThat(limite.getEmUso()).isEqualTo(1);
+        ocupando.dispose();
+        assertThat(limite.getEmUso()).isZero();
+    }
+
+    @Test
+    void vagaPassaDiretoParaQuemEspera() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", 1, 5);
+        Sinks.One<Integer> primeira = Sinks.one();
+        AtomicReference<Integer> resultado = new AtomicReference<>();
+        limite.executar(primeira.asMono(), ESPERA, "pedidos").subscribe();
+        limite.executar(Mono.just(2), ESPERA, "pedidos").subscribe(resultado::set);
+
+        assertThat(limite.getNaFila()).isEqualTo(1);
+        primeira.tryEmitValue(1);
+
+        assertThat(resultado.get()).isEqualTo(2);
+        assertThat(limite.getEmUso()).isZero();
+        assertThat(limite.getNaFila()).isZero();
+    }
+
+    @Test
+    void vagaFicaOcupadaAteQuemChamaDevolver() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("exportacao", 1, 5);
+        AtomicReference<Runnable> devolucao = new AtomicReference<>();
+
+        StepVerifier.create(limite.executar(devolver -> {
+                    devolucao.set(devolver);
+                    return Mono.just("cabeçalhos");
+                }, ESPERA, "produtos"))
+                .expectNext("cabeçalhos")
+                .verifyComplete();
+
+        assertThat(limite.getEmUso()).isEqualTo(1);
+        devolucao.get().run();
+        devolucao.get().run();
+        assertThat(limite.getEmUso()).isZero();
+    }
+
+    @Test
+    void erroOuTerminoVazioDevolvemAVagaSozinhos() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("exportacao", 1, 5);
+
+        StepVerifier.create(limite.executar(devolver -> Mono.error(new IllegalStateException("falhou")), ESPERA, "produtos"))
+                .expectError(IllegalStateException.class)
+                .verify(Duration.ofSeconds(1));
+        assertThat(limite.getEmUso()).isZero();
+
+        StepVerifier.create(limite.executar(devolver -> Mono.empty(), ESPERA, "produtos"))
+                .verifyComplete();
+        assertThat(limite.getEmUso()).isZero();
+    }
+
+    @Test
+    void vagaEntregueAQuemEsperaVoltaUmaVezSoAoCancelar() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", 1, 5);
+        Sinks.One<Integer> primeira = Sinks.one();
+        limite.executar(primeira.asMono(), ESPERA, "pedidos").subscribe();
+        Disposable segunda = limite.executar(Mono.never(), ESPERA, "pedidos").subscribe();
+
+        primeira.tryEmitValue(1);
+        assertThat(limite.getEmUso()).isEqualTo(1);
+        assertThat(limite.getNaFila()).isZero();
+        segunda.dispose();
+
+        assertThat(limite.getEmUso()).isZero();
+        StepVerifier.create(limite.executar(Mono.just(3), ESPERA, "pedidos"))
+                .expectNext(3)
+                .verifyComplete();
+        assertThat(limite.getEmUso()).isZero();
+    }
+
+    @Test
+    void cancelamentoDevolveAVaga() {
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", 1, 5);
+
+        StepVerifier.create(limite.executar(Mono.never(), ESPERA, "pedidos"))
+                .expectSubscription()
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+
+        assertThat(limite.getEmUso()).isZero();
+    }
+
+    @Test
+    void contadoresVoltamAZeroComChamadasDeVariasThreads() throws Exception {
+        int maximo = 4;
+        LimiteConcorrencia limite = new LimiteConcorrencia("consulta", maximo, 10_000);
+        AtomicInteger emAndamento = new AtomicInteger();
+        AtomicInteger maximoVisto = new AtomicInteger();
+        AtomicInteger concluidas = new AtomicInteger();
+        Mono<Integer> chamada = Mono.fromCallable(() -> {
+            maximoVisto.accumulateAndGet(emAndamento.incrementAndGet(), Math::max);
+            Thread.onSpinWait();
+            emAndamento.decrementAndGet();
+            return 1;
+        }).subscribeOn(Schedulers.boundedElastic());
+
+        int threads = 8;
+        int porThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < threads; i++) {
+                executor.submit(() -> {
+                    largada.await();
+                    for (int j = 0; j < porThread; j++) {
+                        limite.executar(chamada, Duration.ofSeconds(30), "pedidos").block();
+                        concluidas.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            largada.countDown();
+        } finally {
+            executor.shutdown();
+            assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(concluidas.get()).isEqualTo(threads * porThread);
+        assertThat(maximoVisto.get()).isLessThanOrEqualTo(maximo);
+        assertThat(limite.getEmUso()).isZero();
+        assertThat(limite.getNaFila()).isZero();
+    }
+}
@@ -0,0 +1,148 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.VendaDiaria;
+import com.ecommerce.backend.model.VendaProduto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgregadosVendasTest {
+
+    private static final LocalDate DIA = LocalDate.of(2024, 3, 10);
+
+    private static long dia(int deslocamento) {
+        return DIA.plusDays(deslocamento).toEpochDay();
+    }
+
+    private static List<LocalDate> datas(List<VendaDiaria> vendas) {
+        return vendas.stream().map(VendaDiaria::data).toList();
+    }
+
+    private static List<String> ids(List<VendaProduto> vendas) {
+        return vendas.stream().map(VendaProduto::produtoId).toList();
+    }
+
+    @Test
+    void diasAntesDoPrimeiroDeslocamOsArraysSemPerderValores() {
+        AgregadosVendas agregados = new AgregadosVendas();
+        agregados.adicionarPedido(dia(0), 1000);
+        agregados.adicionarPedido(dia(2), 500);
+        agregados.adicionarPedido(dia(-3), 250);
+        agregados.adicionarPedido(dia(0), 3000);
+
+        List<VendaDiaria> vendas = agregados.vendasPorDia(null, null);
+
+        assertThat(datas(vendas)).containsExactly(DIA.minusDays(3), DIA, DIA.plusDays(2));
+        assertThat(vendas.get(1).receita()).isEqualByComparingTo("40.00");
+        assertThat(vendas.get(1).pedidos()).isEqualTo(2);
+        assertThat(vendas.get(1).ticketMedio()).isEqualByComparingTo("20.00");
+        assertThat(agregados.getReceitaTotal()).isEqualTo(4750);
+        assertThat(agregados.getTotalPedidos()).isEqualTo(4);
+    }
+
+    @Test
+    void vendasPorDiaRespeitaAsPontasDoIntervalo() {
+        AgregadosVendas agregados = new AgregadosVendas();
+        agregados.adicionarPedido(dia(-3), 100);
+        agregados.adicionarPedido(dia(0), 200);
+        agregados.adicionarPedido(dia(2), 300);
+
+        assertThat(datas(agregados.vendasPorDia(DIA.minusDays(3), DIA.plusDays(2))))
+                .containsExactly(DIA.minusDays(3), DIA, DIA.plusDays(2));
+        assertThat(datas(agregados.vendasPorDia(DIA.minusDays(3), DIA.minusDays(3)))).containsExactly(DIA.minusDays(3));
+        assertThat(datas(agregados.vendasPorDia(DIA.plusDays(2), DIA.plusDays(2)))).containsExactly(DIA.plusDays(2));
+        assertThat(datas(agregados.vendasPorDia(DIA.minusDays(2), DIA.plusDays(1)))).containsExactly(DIA);
+        assertThat(agregados.vendasPorDia(DIA.minusDays(10), DIA.minusDays(4))).isEmpty();
+        assertThat(agregados.vendasPorDia(DIA.plusDays(3), DIA.plusDays(30))).isEmpty();
+        assertThat(agregados.vendasPorDia(DIA.plusDays(1), DIA.minusDays(1))).isEmpty();
+        assertThat(new AgregadosVendas().vendasPorDia(DIA, DIA)).isEmpty();
+    }
+
+    @Test
+    void combinarSomaDiasEProdutosDasDuasPartes() {
+        AgregadosVendas parte1 = new AgregadosVendas();
+        parte1.adicionarPedido(dia(0), 1000);
+        parte1.adicionarItem("a", 2, 600);
+        parte1.adicionarItem("b", 1, 400);
+        AgregadosVendas parte2 = new AgregadosVendas();
+        parte2.adicionarPedido(dia(-1), 700);
+        parte2.adicionarPedido(dia(0), 300);
+        parte2.adicionarPedido(dia(5), 900);
+        parte2.adicionarItem("b", 3, 1200);
+        parte2.adicionarItem("c", 1, 700);
+
+        parte1.combinar(parte2);
+        parte1.combinar(new AgregadosVendas());
+
+        List<VendaDiaria> vendas = parte1.vendasPorDia(null, null);
+        assertThat(datas(vendas)).containsExactly(DIA.minusDays(1), DIA, DIA.plusDays(5));
+        assertThat(vendas.get(1).receita()).isEqualByComparingTo("13.00");
+        assertThat(vendas.get(1).pedidos()).isEqualTo(2);
+        assertThat(parte1.getReceitaTotal()).isEqualTo(2900);
+        assertThat(parte1.getTotalPedidos()).isEqualTo(4);
+        assertThat(parte1.getItensVendidos()).isEqualTo(7);
+        assertThat(parte1.produtosMaisVendidos(10, false))
+                .containsExactly(new VendaProduto("b", 4, new BigDecimal("16.00")),
+                        new VendaProduto("a", 2, new BigDecimal("6.00")),
+                        new VendaProduto("c", 1, new BigDecimal("7.00")));
+    }
+
+    @Test
+    void copiaNaoAlteraOOriginal() {
+        AgregadosVendas original = new AgregadosVendas();
+        original.adicionarPedido(dia(0), 100);
+        original.adicionarItem("a", 1, 100);
+
+        AgregadosVendas copia = original.copia();
+        copia.adicionarPedido(dia(-1), 50);
+        copia.adicionarPedido(dia(0), 50);
+        copia.adicionarItem("a", 1, 100);
+        copia.adicionarItem("b", 1, 100);
+
+        assertThat(datas(original.vendasPorDia(null, null))).containsExactly(DIA);
+        assertThat(original.getReceitaTotal()).isEqualTo(100);
+        assertThat(original.produtosMaisVendidos(10, false)).containsExactly(new VendaProduto("a", 1, new BigDecimal("1.00")));
+    }
+
+    @Test
+    void produtosMaisVendidosOrdenaPelaMetricaEscolhida() {
+        AgregadosVendas agregados = new AgregadosVendas();
+        // Mais produtos que a capacidade inicial; quantidade cresce com o índice e receita decresce
+        for (int i = 0; i < 40; i++) {
+            agregados.adicionarItem("p" + i, i + 1, (40 - i) * 100L);
+        }
+
+        assertThat(ids(agregados.produtosMaisVendidos(3, false))).containsExactly("p39", "p38", "p37");
+        assertThat(ids(agregados.produtosMaisVendidos(3, true))).containsExactly("p0", "p1", "p2");
+        assertThat(agregados.produtosMaisVendidos(0, false)).isEmpty();
+
+        List<VendaProduto> todos = agregados.produtosMaisVendidos(100, false);
+        assertThat(todos).hasSize(40);
+        assertThat(todos).isSortedAccordingTo((a, b) -> Long.compare(b.quantidade(), a.quantidade()));
+    }
+
+    @Test
+    void produtosMaisVendidosComValoresForaDeOrdem() {
+        AgregadosVendas agregados = new AgregadosVendas();
+        long[] quantidades = {5, 1, 9, 3, 9, 7, 2};
+        for (int i = 0; i < quantidades.length; i++) {
+            agregados.adicionarItem("p" + i, quantidades[i], 0);
+        }
+
+        assertThat(agregados.produtosMaisVendidos(4, false)).extracting(VendaProduto::quantidade)
+                .containsExactly(9L, 9L, 7L, 5L);
+    }
+
+    @Test
+    void conversaoDeCentavos() {
+        assertThat(AgregadosVendas.centavos(new BigDecimal("12.345"))).isEqualTo(1235);
+        assertThat(AgregadosVendas.centavos(null)).isZero();
+        assertThat(AgregadosVendas.reais(1234)).isEqualByComparingTo("12.34");
+        assertThat(AgregadosVendas.ticketMedio(1000, 3)).isEqualByComparingTo("3.33");
+        assertThat(AgregadosVendas.ticketMedio(1000, 0)).isEqualByComparingTo("0.00");
+    }
+}
@@ -0,0 +1,117 @@
+package com.ecommerce.backend.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AgrupadorConsultasTest {
+
+    private final List<List<String>> lotes = new CopyOnWriteArrayList<>();
+    private AgrupadorConsultas<String> agrupador;
+
+    @AfterEach
+    void encerrar() {
+        if (agrupador != null) {
+            agrupador.encerrar();
+        }
+    }
+
+    private Flux<String> ecoar(List<String> ids, Duration atraso) {
+        lotes.add(ids);
+        return Flux.fromIterable(ids).filter(id -> !id.startsWith("ausente")).delaySubscription(atraso);
+    }
+
+    @Test
+    void agrupaIdsDaMesmaJanelaEmUmaConsulta() {
+        agrupador = new AgrupadorConsultas<>(ids -> ecoar(ids, Duration.ZERO), id -> id, 100, Duration.ofMillis(50), 4);
+
+        List<String> resultados = Flux.merge(agrupador.buscar("a"), agrupador.buscar("b"), agrupador.buscar("a"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(resultados).containsExactlyInAnyOrder("a", "b", "a");
+        assertThat(lotes).hasSize(1);
+        assertThat(lotes.get(0)).containsExactly("a", "b");
+    }
+
+    @Test
+    void loteCheioFechaSemEsperarAJanela() {
+        agrupador = new AgrupadorConsultas<>(ids -> ecoar(ids, Duration.ZERO), id -> id, 2, Duration.ofMinutes(1), 4);
+
+        List<String> resultados = Flux.merge(agrupador.buscar("a"), agrupador.buscar("b"))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(resultados).containsExactlyInAnyOrder("a", "b");
+    }
+
+    @Test
+    void idAusenteCompletaVazio() {
+        agrupador = new AgrupadorConsultas<>(ids -> ecoar(ids, Duration.ZERO), id -> id, 100, Duration.ofMillis(5), 4);
+
+        StepVerifier.create(agrupador.buscar("ausente-1"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void lotesSobrepostosComUpstreamLentoNaoDerrubamOAgrupador() {
+        agrupador = new AgrupadorConsultas<>(ids -> ecoar(ids, Duration.ofMillis(100)), id -> id, 100, Duration.ofMillis(5), 1);
+
+        List<String> resultados = Flux.range(0, 10)
+                .concatMap(i -> Mono.delay(Duration.ofMillis(10)).thenReturn("id-" + i))
+                .flatMap(agrupador::buscar)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(resultados).hasSize(10);
+        assertThat(lotes.size()).isGreaterThan(1);
+        StepVerifier.create(agrupador.buscar("depois"))
+                .expectNext("depois")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void erroDoLoteChegaAosChamadoresEOAgrupadorContinua() {
+        AtomicBoolean falhar = new AtomicBoolean(true);
+        agrupador = new AgrupadorConsultas<>(ids -> falhar.getAndSet(false)
+                ? Flux.error(new IllegalStateException("upstream fora"))
+                : ecoar(ids, Duration.ZERO), id -> id, 100, Duration.ofMillis(5), 2);
+
+        StepVerifier.create(agrupador.buscar("x"))
+                .expectErrorMessage("upstream fora")
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(agrupador.buscar("y"))
+                .expectNext("y")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void erroNoFluxoFalhaOsPendentesEReassina() {
+        agrupador = new AgrupadorConsultas<>(ids -> {
+            if (ids.contains("quebra")) {
+                throw new IllegalStateException("falha fora do Flux");
+            }
+            return ecoar(ids, Duration.ZERO);
+        }, id -> id, 100, Duration.ofMillis(5), 2);
+
+        StepVerifier.create(agrupador.buscar("quebra"))
+                .expectErrorMessage("falha fora do Flux")
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(agrupador.buscar("z"))
+                .expectNext("z")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+    }
+}
@@ -0,0 +1,121 @@
+package com.ecommerce.backend.service;
+
+import com.ecommerce.backend.model.Produto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CatalogoProdutosTest {
+
+    private final CatalogoProdutos catalogo = new CatalogoProdutos(List.of(
+            produto("p4", "Tênis Corrida", null, "30.00", 1),
+            produto("p2", "Camisa Social", "azul marinho", "20.00", 0),
+            produto("p5", "Boné", "Camiseta de brinde", null, 3),
+            produto("p1", "Camiseta Azul", "algodão", "10.00", 5),
+            produto("p3", "Calça Jeans", "azul", "30.00", 2)), LocalDateTime.now());
+
+    private static Produto produto(String id, String nome, String descricao, String preco, int estoque) {
+        return new Produto(id, nome, descricao, preco == null ? null : new BigDecimal(preco), estoque, null, null);
+    }
+
+    private CatalogoProdutos.Resultado pesquisar(String consulta, String minimo, String maximo, boolean decrescente,
+                                                 int offset, int limite) {
+        return catalogo.pesquisar(consulta, minimo == null ? null : new BigDecimal(minimo),
+                maximo == null ? null : new BigDecimal(maximo), false, decrescente, offset, limite);
+    }
+
+    private static List<String> ids(CatalogoProdutos.Resultado resultado) {
+        return resultado.produtos().stream().map(Produto::getId).toList();
+    }
+
+    @Test
+    void consultaVaziaListaTudoPorPrecoComSemPrecoNoFim() {
+        assertThat(ids(pesquisar(null, null, null, false, 0, 10))).containsExactly("p1", "p2", "p3", "p4", "p5");
+        assertThat(ids(pesquisar("  ", null, null, false, 0, 10))).containsExactly("p1", "p2", "p3", "p4", "p5");
+        assertThat(pesquisar("", null, null, false, 0, 10).total()).isEqualTo(5);
+    }
+
+    @Test
+    void cadaTermoCasaPorPrefixoEmNomeOuDescricao() {
+        assertThat(ids(pesquisar("cami", null, null, false, 0, 10))).containsExactly("p1", "p2", "p5");
+        assertThat(ids(pesquisar("cam azu", null, null, false, 0, 10))).containsExactly("p1", "p2");
+        assertThat(ids(pesquisar("AZUL", null, null, false, 0, 10))).containsExactly("p1", "p2", "p3");
+        assertThat(ids(pesquisar("camiseta-azul", null, null, false, 0, 10))).containsExactly("p1");
+        assertThat(pesquisar("inexistente", null, null, false, 0, 10).total()).isZero();
+    }
+
+    @Test
+    void acentosEMaiusculasSaoIgnorados() {
+        assertThat(ids(pesquisar("algodao", null, null, false, 0, 10))).containsExactly("p1");
+        assertThat(ids(pesquisar("TÊNIS", null, null, false, 0, 10))).containsExactly("p4");
+        assertThat(ids(pesquisar("calca", null, null, false, 0, 10))).containsExactly("p3");
+    }
+
+    @Test
+    void termosUsamLocaleRoot() {
+        Locale anterior = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertThat(CatalogoProdutos.termos("TITULO Inverno")).containsExactly("titulo", "inverno");
+        } finally {
+            Locale.setDefault(anterior);
+        }
+    }
+
+    @Test
+    void faixaDePrecoIncluiAsDuasPontas() {
+        assertThat(ids(pesquisar(null, "20", "30", false, 0, 10))).containsExactly("p2", "p3", "p4");
+        assertThat(ids(pesquisar(null, "20.004", "29.995", false, 0, 10))).containsExactly("p2", "p3", "p4");
+        assertThat(ids(pesquisar(null, "20.01", "29.99", false, 0, 10))).isEmpty();
+        assertThat(ids(pesquisar("azul", "10", "20", false, 0, 10))).containsExactly("p1", "p2");
+        assertThat(pesquisar(null, "30.01", "30", false, 0, 10).total()).isZero();
+    }
+
+    @Test
+    void limitesDePrecoEnormesSaturamEmVezDeEstourar() {
+        assertThat(ids(pesquisar(null, null, "1e20", false, 0, 10))).containsExactly("p1", "p2", "p3", "p4");
+        assertThat(ids(pesquisar(null, "-1e30", "1e999999999", false, 0, 10))).containsExactly("p1", "p2", "p3", "p4");
+        assertThat(pesquisar(null, "1e20", null, false, 0, 10).total()).isEqualTo(1);
+        assertThat(pesquisar(null, null, "1e-999999999", false, 0, 10).total()).isZero();
+    }
+
+    @Test
+    void ordemDecrescente() {
+        assertThat(ids(pesquisar(null, null, "30", true, 0, 10))).containsExactly("p4", "p3", "p2", "p1");
+        assertThat(ids(pesquisar("azul", null, null, true, 0, 10))).containsExactly("p3", "p2", "p1");
+        assertThat(ids(pesquisar("azul", null, null, true, 1, 1))).containsExactly("p2");
+    }
+
+    @Test
+    void apenasEmEstoque() {
+        CatalogoProdutos.Resultado resultado = catalogo.pesquisar(null, null, null, true, false, 0, 10);
+        assertThat(ids(resultado)).containsExactly("p1", "p3", "p4", "p5");
+        assertThat(ids(catalogo.pesquisar("cami", null, null, true, false, 0, 10))).containsExactly("p1", "p5");
+    }
+
+    @Test
+    void paginasRecortamEPaginaDepoisDoFimVemVaziaComOTotal() {
+        assertThat(ids(pesquisar(null, null, null, false, 3, 2))).containsExactly("p4", "p5");
+        assertThat(ids(pesquisar(null, null, null, false, 4, 2))).containsExactly("p5");
+
+        CatalogoProdutos.Resultado semTexto = pesquisar(null, null, null, false, 5, 2);
+        assertThat(semTexto.produtos()).isEmpty();
+        assertThat(semTexto.total()).isEqualTo(5);
+
+        CatalogoProdutos.Resultado comTexto = pesquisar("azul", null, null, true, Integer.MAX_VALUE, 20);
+        assertThat(comTexto.produtos()).isEmpty();
+        assertThat(comTexto.total()).isEqualTo(3);
+    }
+
+    @Test
+    void buscaPorId() {
+        assertThat(catalogo.buscarPorId("p3").getNome()).isEqualTo("Calça Jeans");
+        assertThat(catalogo.buscarPorId("nenhum")).isNull();
+        assertThat(catalogo.getTamanho()).isEqualTo(5);
+    }
+}
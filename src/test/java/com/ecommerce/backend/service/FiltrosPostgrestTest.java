@@ -0,0 +1,20 @@
+package com.ecommerce.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FiltrosPostgrestTest {
+
+    @Test
+    void colocaCadaValorEntreAspas() {
+        assertThat(FiltrosPostgrest.lista(List.of("a", "b,c", "d)"))).isEqualTo("\"a\",\"b,c\",\"d)\"");
+    }
+
+    @Test
+    void escapaAspasEBarraInvertida() {
+        assertThat(FiltrosPostgrest.lista(List.of("a\"b", "c\\d", "\\\""))).isEqualTo("\"a\\\"b\",\"c\\\\d\",\"\\\\\\\"\"");
+    }
+}
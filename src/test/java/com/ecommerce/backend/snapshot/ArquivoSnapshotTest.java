@@ -0,0 +1,140 @@
+package com.ecommerce.backend.snapshot;
+
+import com.ecommerce.backend.model.Pedido;
+import com.ecommerce.backend.model.Produto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ArquivoSnapshotTest {
+
+    // Ids distintos com o mesmo FNV-1a de 64 bits (0x93c92ddab22e452c), achados por busca de colisão
+    private static final String COLISAO_1 = "TG-qTrQ29E!";
+    private static final String COLISAO_2 = "6DrkpwNQmH5";
+
+    private static final Instant GRAVADO_EM = Instant.parse("2024-03-10T12:00:00Z");
+
+    @TempDir
+    Path diretorio;
+
+    private static Produto produto(String id, String nome, String preco) {
+        return new Produto(id, nome, "Descrição de " + nome, preco == null ? null : new BigDecimal(preco), 3,
+                null, LocalDateTime.of(2024, 1, 2, 3, 4, 5, 600_000_000));
+    }
+
+    private Path gravar(List<ArquivoSnapshot.Conteudo<?>> conteudos) throws IOException {
+        Path arquivo = diretorio.resolve("snapshot.bin");
+        ArquivoSnapshot.gravar(arquivo, GRAVADO_EM, conteudos);
+        return arquivo;
+    }
+
+    @Test
+    void gravaEReabreProdutosEPedidos() throws IOException {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            produtos.add(produto("p" + i, "Produto " + i, i % 10 == 0 ? null : i + ".99"));
+        }
+        produtos.add(new Produto("ç-ação", null, null, null, null, null, null));
+        Pedido pedido = new Pedido("o1", "c1", LocalDateTime.of(2024, 2, 1, 10, 0), "pago", new BigDecimal("10.50"), null);
+        pedido.setUpdatedAt(LocalDateTime.of(2024, 2, 2, 11, 30, 0, 1));
+
+        ArquivoSnapshot snapshot = ArquivoSnapshot.abrir(gravar(List.of(
+                new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS, produtos),
+                new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PEDIDOS, List.of(pedido)))));
+
+        assertThat(snapshot.getGravadoEm()).isEqualTo(GRAVADO_EM);
+        assertThat(snapshot.getTamanhoBytes()).isEqualTo(Files.size(diretorio.resolve("snapshot.bin")));
+        assertThat(snapshot.quantidade(SecaoSnapshot.PRODUTOS)).isEqualTo(201);
+        assertThat(snapshot.listar(SecaoSnapshot.PRODUTOS)).extracting(Produto::getId)
+                .containsExactlyElementsOf(produtos.stream().map(Produto::getId).toList());
+        for (Produto esperado : produtos) {
+            assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, esperado.getId())).get()
+                    .usingRecursiveComparison().isEqualTo(esperado);
+        }
+        assertThat(snapshot.buscar(SecaoSnapshot.PEDIDOS, "o1")).get().usingRecursiveComparison().isEqualTo(pedido);
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, "p200")).isEmpty();
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, null)).isEmpty();
+        assertThat(snapshot.buscar(SecaoSnapshot.PEDIDOS, "p1")).isEmpty();
+        assertThat(Files.exists(diretorio.resolve("snapshot.bin.tmp"))).isFalse();
+    }
+
+    @Test
+    void colisaoDeHashConfereOIdDoRegistro() throws IOException {
+        assertThat(COLISAO_1).isNotEqualTo(COLISAO_2);
+        assertThat(ArquivoSnapshot.hash(COLISAO_1)).isEqualTo(ArquivoSnapshot.hash(COLISAO_2));
+
+        ArquivoSnapshot snapshot = ArquivoSnapshot.abrir(gravar(List.of(new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS,
+                List.of(produto("a", "A", "1"), produto(COLISAO_2, "Segundo", "2"), produto("b", "B", "3"),
+                        produto(COLISAO_1, "Primeiro", "4"))))));
+
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, COLISAO_1)).get().extracting(Produto::getNome).isEqualTo("Primeiro");
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, COLISAO_2)).get().extracting(Produto::getNome).isEqualTo("Segundo");
+
+        ArquivoSnapshot soUm = ArquivoSnapshot.abrir(gravar(List.of(new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS,
+                List.of(produto(COLISAO_1, "Primeiro", "4"))))));
+        assertThat(soUm.buscar(SecaoSnapshot.PRODUTOS, COLISAO_2)).isEmpty();
+    }
+
+    @Test
+    void secaoAusenteOuVaziaNaoTemRegistros() throws IOException {
+        ArquivoSnapshot snapshot = ArquivoSnapshot.abrir(gravar(List.of(
+                new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS, List.of()))));
+
+        assertThat(snapshot.quantidade(SecaoSnapshot.PRODUTOS)).isZero();
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, "p1")).isEmpty();
+        assertThat(snapshot.quantidade(SecaoSnapshot.PEDIDOS)).isZero();
+        assertThat(snapshot.buscar(SecaoSnapshot.PEDIDOS, "o1")).isEmpty();
+        assertThat(snapshot.listar(SecaoSnapshot.PEDIDOS)).isEmpty();
+    }
+
+    @Test
+    void novaGravacaoSubstituiAAnterior() throws IOException {
+        gravar(List.of(new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS, List.of(produto("p1", "Antigo", "1")))));
+        ArquivoSnapshot snapshot = ArquivoSnapshot.abrir(gravar(List.of(
+                new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS, List.of(produto("p2", "Novo", "2"))))));
+
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, "p1")).isEmpty();
+        assertThat(snapshot.buscar(SecaoSnapshot.PRODUTOS, "p2")).isPresent();
+    }
+
+    @Test
+    void arquivoTruncadoEhRecusado() throws IOException {
+        Path arquivo = gravar(List.of(new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS,
+                List.of(produto("p1", "Um", "1"), produto("p2", "Dois", "2")))));
+        long tamanho = Files.size(arquivo);
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+            canal.truncate(tamanho - 3);
+        }
+
+        assertThatThrownBy(() -> ArquivoSnapshot.abrir(arquivo)).isInstanceOf(IOException.class);
+
+        Files.write(arquivo, new byte[10]);
+        assertThatThrownBy(() -> ArquivoSnapshot.abrir(arquivo)).isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void versaoDesconhecidaEhRecusada() throws IOException {
+        Path arquivo = gravar(List.of(new ArquivoSnapshot.Conteudo<>(SecaoSnapshot.PRODUTOS, List.of(produto("p1", "Um", "1")))));
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.WRITE)) {
+            canal.write(ByteBuffer.allocate(4).putInt(0, 99), 4);
+        }
+
+        assertThatThrownBy(() -> ArquivoSnapshot.abrir(arquivo))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Versão");
+    }
+}
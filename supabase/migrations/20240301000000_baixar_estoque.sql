@@ -0,0 +1,36 @@
+-- Baixas de estoque gravadas em lote pelo EstoqueService (estoque.flush-function).
+-- Recebe {"baixas": [{"referencia": ..., "produto_id": ..., "quantidade": ...}]} e é idempotente por
+-- (referencia, produto_id): a referencia é o id do pedido (ou da reserva sem pedido), então reenviar
+-- um lote já aplicado, como no reenvio feito na subida, não baixa o estoque de novo.
+
+create table if not exists public.estoque_baixas (
+    referencia text not null,
+    produto_id uuid not null references public.produtos (id),
+    quantidade integer not null check (quantidade > 0),
+    aplicada_em timestamptz not null default now(),
+    primary key (referencia, produto_id)
+);
+
+alter table public.estoque_baixas enable row level security;
+
+create or replace function public.baixar_estoque(baixas jsonb)
+returns void
+language sql
+security definer
+set search_path = public
+as $$
+    with novas as (
+        insert into estoque_baixas (referencia, produto_id, quantidade)
+        select b ->> 'referencia', (b ->> 'produto_id')::uuid, (b ->> 'quantidade')::integer
+        from jsonb_array_elements(baixas) as b
+        on conflict (referencia, produto_id) do nothing
+        returning produto_id, quantidade
+    )
+    update produtos p
+    set estoque = p.estoque - n.total
+    from (select produto_id, sum(quantidade) as total from novas group by produto_id) n
+    where p.id = n.produto_id;
+$$;
+
+revoke execute on function public.baixar_estoque(jsonb) from public, anon, authenticated;
+grant execute on function public.baixar_estoque(jsonb) to service_role;
@@ -0,0 +1,29 @@
+-- Versão das tabelas exportadas (/api/produtos/export/csv e /api/clientes/export/csv): o backend
+-- valida o ETag da exportação com o maior updated_at e o total de linhas, numa consulta de uma
+-- linha, em vez de reexportar a tabela. O índice deixa o order=updated_at.desc&limit=1 barato.
+
+create or replace function public.definir_updated_at()
+returns trigger
+language plpgsql
+as $$
+begin
+    new.updated_at = now();
+    return new;
+end;
+$$;
+
+alter table public.produtos add column if not exists updated_at timestamptz not null default now();
+alter table public.clientes add column if not exists updated_at timestamptz not null default now();
+
+drop trigger if exists produtos_updated_at on public.produtos;
+create trigger produtos_updated_at
+    before update on public.produtos
+    for each row execute function public.definir_updated_at();
+
+drop trigger if exists clientes_updated_at on public.clientes;
+create trigger clientes_updated_at
+    before update on public.clientes
+    for each row execute function public.definir_updated_at();
+
+create index if not exists produtos_updated_at_idx on public.produtos (updated_at desc);
+create index if not exists clientes_updated_at_idx on public.clientes (updated_at desc);
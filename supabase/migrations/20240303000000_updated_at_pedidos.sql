@@ -0,0 +1,13 @@
+-- updated_at dos pedidos, lido pelo feed de pedidos (FeedPedidosService): o poller pagina por
+-- keyset em (updated_at, id) desde a última marca, então a coluna precisa ser atualizada a cada
+-- alteração (trigger) e o índice cobre o order=updated_at.asc,id.asc com o filtro da marca.
+-- Reaproveita a função definir_updated_at() de 20240302000000_updated_at_exportacoes.sql.
+
+alter table public.pedidos add column if not exists updated_at timestamptz not null default now();
+
+drop trigger if exists pedidos_updated_at on public.pedidos;
+create trigger pedidos_updated_at
+    before update on public.pedidos
+    for each row execute function public.definir_updated_at();
+
+create index if not exists pedidos_updated_at_id_idx on public.pedidos (updated_at, id);
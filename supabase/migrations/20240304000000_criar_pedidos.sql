@@ -0,0 +1,36 @@
+-- Criação de pedidos pelo CriacaoPedidoService (POST /api/pedidos e /api/pedidos/importacao).
+-- Recebe {"pedidos": [{"id", "cliente_id", "data_pedido", "status", "total", "itens": [{"pedido_id",
+-- "produto_id", "quantidade", "preco_unitario", "subtotal"}]}]} e grava pedidos e itens numa única
+-- transação: se qualquer linha falhar (cliente ou produto inexistente, por exemplo), nada é gravado,
+-- então não sobra pedido pendente sem itens. Com devolver = true, responde os pedidos criados com
+-- os itens (no formato do select=*,pedido_itens(*) do PostgREST); senão responde null.
+
+create or replace function public.criar_pedidos(pedidos jsonb, devolver boolean default false)
+returns jsonb
+language plpgsql
+security definer
+set search_path = public
+as $$
+begin
+    insert into pedidos (id, cliente_id, data_pedido, status, total)
+    select p.id, p.cliente_id, p.data_pedido, p.status, p.total
+    from jsonb_populate_recordset(null::pedidos, criar_pedidos.pedidos) as p;
+
+    insert into pedido_itens (pedido_id, produto_id, quantidade, preco_unitario, subtotal)
+    select i.pedido_id, i.produto_id, i.quantidade, i.preco_unitario, i.subtotal
+    from jsonb_populate_recordset(null::pedido_itens, jsonb_path_query_array(criar_pedidos.pedidos, '$[*].itens[*]')) as i;
+
+    if not devolver then
+        return null;
+    end if;
+    return (
+        select coalesce(jsonb_agg(to_jsonb(p) || jsonb_build_object('pedido_itens',
+                   (select coalesce(jsonb_agg(to_jsonb(i)), '[]'::jsonb) from pedido_itens i where i.pedido_id = p.id))), '[]'::jsonb)
+        from pedidos p
+        where p.id in (select n.id from jsonb_populate_recordset(null::pedidos, criar_pedidos.pedidos) as n)
+    );
+end;
+$$;
+
+revoke execute on function public.criar_pedidos(jsonb, boolean) from public, anon, authenticated;
+grant execute on function public.criar_pedidos(jsonb, boolean) to service_role;